@@ -14,6 +14,7 @@ export default function App() {
   const [page, setPage] = useState(0);
   const pageSize = 20;
   const [totalPages, setTotalPages] = useState(1);
+  const [hasNext, setHasNext] = useState(false);
   const [selectedIds, setSelectedIds] = useState(new Set());
 
   const headersForTenant = (t) =>
@@ -40,17 +41,20 @@ export default function App() {
   const fetchExpenses = async (requestedPage = page) => {
     try {
       const resp = await axios.get(
-        `${BACKEND_URL}/expenses?page=${requestedPage}&size=${pageSize}`,
+        // slice mode: no count(*) per page view, the total is a cached estimate
+        `${BACKEND_URL}/expenses?mode=slice&page=${requestedPage}&size=${pageSize}`,
         { headers: headersForTenant(tenant) }
       );
       const data = resp.data;
       if (Array.isArray(data.content)) {
         setExpenses(data.content);
         setTotalPages(data.totalPages ?? 1);
+        setHasNext(data.hasNext ?? (data.number ?? requestedPage) + 1 < (data.totalPages ?? 1));
         setPage(data.number ?? requestedPage);
       } else if (Array.isArray(data)) {
         setExpenses(data);
         setTotalPages(1);
+        setHasNext(false);
         setPage(0);
       } else {
         setExpenses([]);
@@ -92,7 +96,7 @@ export default function App() {
     if (page > 0) setPage((p) => p - 1);
   };
   const nextPage = () => {
-    if (page + 1 < totalPages) setPage((p) => p + 1);
+    if (hasNext) setPage((p) => p + 1);
   };
 
   // toggle row selection by id
@@ -109,12 +113,11 @@ export default function App() {
     if (selectedIds.size === 0) return;
     if (!window.confirm(`Delete ${selectedIds.size} selected expense(s)?`)) return;
     try {
-      // send deletes in parallel
-      await Promise.all(
-        Array.from(selectedIds).map((id) =>
-          axios.delete(`${BACKEND_URL}/expenses/${id}`, { headers: headersForTenant(tenant) })
-        )
-      );
+      // one request and one DELETE statement for the whole selection
+      await axios.delete(`${BACKEND_URL}/expenses`, {
+        params: { ids: Array.from(selectedIds).join(",") },
+        headers: headersForTenant(tenant),
+      });
       // refresh current page
       fetchExpenses(page);
     } catch (err) {
@@ -221,7 +224,7 @@ export default function App() {
         <div>
           Page {page + 1} / {totalPages}
         </div>
-        <Button onClick={nextPage} disabled={page + 1 >= totalPages}>
+        <Button onClick={nextPage} disabled={!hasNext}>
           Next
         </Button>
       </div>
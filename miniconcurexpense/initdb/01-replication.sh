@@ -0,0 +1,10 @@
+#!/bin/bash
+# Runs once, when the postgres container initializes an empty data directory.
+# Lets the postgres-replica service of docker-compose.yml stream from this server.
+set -e
+
+psql -v ON_ERROR_STOP=1 --username "$POSTGRES_USER" --dbname "$POSTGRES_DB" <<-EOSQL
+	CREATE ROLE replicator WITH REPLICATION LOGIN PASSWORD 'replicator-secret';
+EOSQL
+
+echo "host replication replicator all scram-sha-256" >> "$PGDATA/pg_hba.conf"
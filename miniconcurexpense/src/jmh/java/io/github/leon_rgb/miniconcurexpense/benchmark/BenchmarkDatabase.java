@@ -0,0 +1,37 @@
+package io.github.leon_rgb.miniconcurexpense.benchmark;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+
+import java.util.Map;
+
+/**
+ * Connection settings shared by the benchmarks. Defaults match the docker-compose Postgres;
+ * override with -Dbench.db.url=..., -Dbench.db.username=..., -Dbench.db.password=...
+ * (JMH passes the launcher's -D options on to its forks).
+ */
+final class BenchmarkDatabase {
+
+    static final String URL = System.getProperty("bench.db.url", "jdbc:postgresql://localhost:5432/appdb");
+    static final String USERNAME = System.getProperty("bench.db.username", "app");
+    static final String PASSWORD = System.getProperty("bench.db.password", "secret");
+
+    private BenchmarkDatabase() {}
+
+    static HikariDataSource dataSource(int poolSize) {
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl(URL);
+        config.setUsername(USERNAME);
+        config.setPassword(PASSWORD);
+        config.setMaximumPoolSize(poolSize);
+        return new HikariDataSource(config);
+    }
+
+    /** Spring properties pointing the application at the same database. */
+    static Map<String, Object> springProperties() {
+        return Map.of(
+                "spring.datasource.url", URL,
+                "spring.datasource.username", USERNAME,
+                "spring.datasource.password", PASSWORD);
+    }
+}
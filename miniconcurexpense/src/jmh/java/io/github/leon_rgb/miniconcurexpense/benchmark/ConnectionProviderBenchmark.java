@@ -0,0 +1,78 @@
+package io.github.leon_rgb.miniconcurexpense.benchmark;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.github.leon_rgb.miniconcurexpense.tenant.SchemaPerTenantConnectionProvider;
+import io.github.leon_rgb.miniconcurexpense.tenant.TenantMetrics;
+import io.github.leon_rgb.miniconcurexpense.tenant.TenantRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checkout + release through {@link SchemaPerTenantConnectionProvider}, the path Hibernate takes
+ * for every session. With a single pooled connection, {@code sameTenant} always hits the cached
+ * search_path while {@code alternatingTenants} has to issue SET search_path on every checkout.
+ * {@code rawPool} is the Hikari baseline without any tenant routing.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConnectionProviderBenchmark {
+
+    private static final String[] TENANTS = {"public", "bench_other"};
+
+    private HikariDataSource dataSource;
+    private SchemaPerTenantConnectionProvider provider;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        dataSource = BenchmarkDatabase.dataSource(1);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        TenantRegistry tenantRegistry = new TenantRegistry(dataSource);
+        for (String tenant : TENANTS) {
+            tenantRegistry.register(tenant);
+        }
+        provider = new SchemaPerTenantConnectionProvider(dataSource, meterRegistry,
+                new TenantMetrics(meterRegistry, tenantRegistry, 100));
+    }
+
+    @TearDown
+    public void tearDown() {
+        dataSource.close();
+    }
+
+    @Benchmark
+    public void rawPool() throws SQLException {
+        dataSource.getConnection().close();
+    }
+
+    @Benchmark
+    public void sameTenant() throws SQLException {
+        Connection connection = provider.getConnection(TENANTS[0]);
+        provider.releaseConnection(TENANTS[0], connection);
+    }
+
+    @Benchmark
+    public void alternatingTenants() throws SQLException {
+        String tenant = TENANTS[next++ & 1];
+        Connection connection = provider.getConnection(tenant);
+        provider.releaseConnection(tenant, connection);
+    }
+}
@@ -0,0 +1,69 @@
+package io.github.leon_rgb.miniconcurexpense.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.leon_rgb.miniconcurexpense.controller.CursorPage;
+import io.github.leon_rgb.miniconcurexpense.model.Expense;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialization of the two listing response shapes (offset {@code Page} and {@code CursorPage})
+ * with an ObjectMapper configured the way Spring Boot configures it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExpenseJsonBenchmark {
+
+    @Param({"20", "200", "2000"})
+    public int pageSize;
+
+    private ObjectMapper objectMapper;
+    private PageImpl<Expense> page;
+    private CursorPage<Expense> cursorPage;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        SplittableRandom random = new SplittableRandom(42);
+        List<Expense> rows = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            rows.add(new Expense(1_000_000L - i, "Taxi - client meeting #" + random.nextInt(300),
+                    random.nextInt(100_000) / 100.0));
+        }
+        page = new PageImpl<>(rows, PageRequest.of(0, pageSize, Sort.by("id").descending()), 1_000_000L);
+        cursorPage = new CursorPage<>(rows, pageSize, "aWQ6OTk5OTgx");
+    }
+
+    @Benchmark
+    public byte[] offsetPage() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public byte[] cursorPage() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(cursorPage);
+    }
+}
@@ -0,0 +1,115 @@
+package io.github.leon_rgb.miniconcurexpense.benchmark;
+
+import io.github.leon_rgb.miniconcurexpense.MiniconcurexpenseApplication;
+import io.github.leon_rgb.miniconcurexpense.bootstrap.SyntheticExpenseGenerator;
+import io.github.leon_rgb.miniconcurexpense.model.Expense;
+import io.github.leon_rgb.miniconcurexpense.repository.ExpenseRepository;
+import io.github.leon_rgb.miniconcurexpense.tenant.TenantContext;
+import io.github.leon_rgb.miniconcurexpense.tenant.TenantProvisioner;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Repository reads behind GET /expenses on a dedicated {@code bench} tenant: an offset page at
+ * increasing depth (including its count query), the keyset page at the same position, and one
+ * large page. Boots the application without a web server; the tenant is provisioned and filled
+ * with {@code -Dbench.rows} expenses (100000 by default) on first use.
+ * The Hibernate second-level/query cache is switched off so the reads actually reach Postgres.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExpenseReadBenchmark {
+
+    private static final String TENANT = "bench";
+    private static final int PAGE_SIZE = 20;
+    private static final Sort NEWEST_FIRST = Sort.by("id").descending();
+
+    @Param({"0", "100", "2500"})
+    public int pageNumber;
+
+    private ConfigurableApplicationContext context;
+    private ExpenseRepository repository;
+    private Long keysetCursor;
+
+    @Setup
+    public void setUp() {
+        Map<String, Object> properties = new HashMap<>(BenchmarkDatabase.springProperties());
+        properties.put("datagen.rows-per-tenant", 0);
+        properties.put("expenses.l2-cache.enabled", false);
+        properties.put("spring.jpa.properties.hibernate.show_sql", false);
+        context = new SpringApplicationBuilder(MiniconcurexpenseApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(properties)
+                .run();
+        repository = context.getBean(ExpenseRepository.class);
+
+        context.getBean(TenantProvisioner.class).provisionAll(List.of(TENANT));
+        long rows = Long.getLong("bench.rows", 100_000L);
+        context.getBean(SyntheticExpenseGenerator.class).topUp(TENANT, rows);
+
+        // the keyset variant starts right after the last row of the previous offset page
+        keysetCursor = pageNumber == 0 ? null : withTenant(() -> {
+            List<Expense> previous = repository.findAll(PageRequest.of(pageNumber - 1, PAGE_SIZE, NEWEST_FIRST)).getContent();
+            return previous.isEmpty() ? null : previous.get(previous.size() - 1).getId();
+        });
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Page<Expense> offsetPage() {
+        return withTenant(() -> repository.findAll(PageRequest.of(pageNumber, PAGE_SIZE, NEWEST_FIRST)));
+    }
+
+    @Benchmark
+    public List<Expense> keysetPage() {
+        Limit limit = Limit.of(PAGE_SIZE + 1);
+        return withTenant(() -> keysetCursor == null
+                ? repository.findAllByOrderByIdDesc(limit)
+                : repository.findByIdLessThanOrderByIdDesc(keysetCursor, limit));
+    }
+
+    @Benchmark
+    public Page<Expense> largePage() {
+        return withTenant(() -> repository.findAll(PageRequest.of(0, 2000, NEWEST_FIRST)));
+    }
+
+    private static <T> T withTenant(Supplier<T> work) {
+        TenantContext.setCurrentTenant(TENANT);
+        try {
+            return work.get();
+        } finally {
+            TenantContext.clear();
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package io.github.leon_rgb.miniconcurexpense.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.leon_rgb.miniconcurexpense.tenant.TenantFilter;
+import io.github.leon_rgb.miniconcurexpense.tenant.TenantMetrics;
+import io.github.leon_rgb.miniconcurexpense.tenant.TenantRegistry;
+import io.github.leon_rgb.miniconcurexpense.trace.RequestTracer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request cost of {@link TenantFilter} in front of an empty filter chain,
+ * for a known tenant and for one that is rejected by the registry, with request tracing off and on
+ * (sampling 1% as configured by default).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TenantFilterBenchmark {
+
+    private static final FilterChain NOOP_CHAIN = (request, response) -> {};
+
+    @Param({"false", "true"})
+    public boolean tracing;
+
+    private TenantFilter filter;
+    private MockHttpServletRequest knownTenantRequest;
+    private MockHttpServletRequest unknownTenantRequest;
+    private MockHttpServletResponse response;
+
+    @Setup
+    public void setUp() {
+        // no DataSource needed: the registry is filled by hand instead of from information_schema
+        TenantRegistry registry = new TenantRegistry(null);
+        for (int i = 0; i < 1000; i++) {
+            registry.register(String.format("tenant_%04d", i));
+        }
+        RequestTracer tracer = new RequestTracer(new ObjectMapper(), tracing, 0.01, Duration.ofMillis(500), 1024, false);
+        filter = new TenantFilter(registry, new TenantMetrics(new SimpleMeterRegistry(), registry, 100), tracer);
+
+        knownTenantRequest = new MockHttpServletRequest("GET", "/expenses");
+        knownTenantRequest.addHeader("X-Tenant", "tenant_0500");
+        unknownTenantRequest = new MockHttpServletRequest("GET", "/expenses");
+        unknownTenantRequest.addHeader("X-Tenant", "does-not-exist");
+        response = new MockHttpServletResponse();
+    }
+
+    @Benchmark
+    public MockHttpServletResponse knownTenant() throws ServletException, IOException {
+        filter.doFilter(knownTenantRequest, response, NOOP_CHAIN);
+        return response;
+    }
+
+    @Benchmark
+    public MockHttpServletResponse unknownTenant() throws ServletException, IOException {
+        // the 404 body is written to the response, so use a fresh one each time
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        filter.doFilter(unknownTenantRequest, rejected, NOOP_CHAIN);
+        return rejected;
+    }
+}
@@ -2,11 +2,15 @@ package io.github.leon_rgb.miniconcurexpense;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * Main class to start the Spring Boot application.
  */
 @SpringBootApplication
+@EnableScheduling
+@EnableAsync
 public class MiniconcurexpenseApplication {
 
 	public static void main(String[] args) {
@@ -0,0 +1,184 @@
+package io.github.leon_rgb.miniconcurexpense.analytics;
+
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Fork-join aggregations over the primitive columns of an {@link ExpenseColumns} snapshot.
+ *
+ * Each leaf walks a contiguous row range of the arrays and skips deleted rows; nothing is
+ * allocated per row. Every leaf allocates one small accumulator (a few longs, or one slot per
+ * bin or dictionary entry), which is why callers choose the leaf size so that the number of
+ * leaves stays close to the pool's parallelism.
+ */
+final class AggregationKernels {
+
+    private AggregationKernels() {}
+
+    static boolean isDeleted(long[] deleted, int row) {
+        return (deleted[row >>> 6] & (1L << row)) != 0;
+    }
+
+    /**
+     * Splits [from, to) in halves until a range is at most {@code leafSize} rows long.
+     */
+    private abstract static class RangeTask<R> extends RecursiveTask<R> {
+        final int from;
+        final int to;
+        final int leafSize;
+
+        RangeTask(int from, int to, int leafSize) {
+            this.from = from;
+            this.to = to;
+            this.leafSize = leafSize;
+        }
+
+        @Override
+        protected final R compute() {
+            if (to - from <= leafSize) {
+                return leaf();
+            }
+            int mid = (from + to) >>> 1;
+            RangeTask<R> left = child(from, mid);
+            RangeTask<R> right = child(mid, to);
+            left.fork();
+            R rightResult = right.compute();
+            return combine(left.join(), rightResult);
+        }
+
+        abstract R leaf();
+
+        abstract RangeTask<R> child(int from, int to);
+
+        abstract R combine(R left, R right);
+    }
+
+    /**
+     * {count, sum of cents} over the live rows.
+     */
+    static final class Totals extends RangeTask<long[]> {
+        private final long[] cents;
+        private final long[] deleted;
+
+        Totals(long[] cents, long[] deleted, int from, int to, int leafSize) {
+            super(from, to, leafSize);
+            this.cents = cents;
+            this.deleted = deleted;
+        }
+
+        @Override
+        long[] leaf() {
+            long count = 0;
+            long sum = 0;
+            for (int row = from; row < to; row++) {
+                if (!isDeleted(deleted, row)) {
+                    count++;
+                    sum += cents[row];
+                }
+            }
+            return new long[] {count, sum};
+        }
+
+        @Override
+        Totals child(int from, int to) {
+            return new Totals(cents, deleted, from, to, leafSize);
+        }
+
+        @Override
+        long[] combine(long[] left, long[] right) {
+            left[0] += right[0];
+            left[1] += right[1];
+            return left;
+        }
+    }
+
+    /**
+     * Row counts per equal-width amount bin: bin i holds {@code min + i * width <= cents < min + (i + 1) * width}.
+     */
+    static final class Histogram extends RangeTask<long[]> {
+        private final long[] cents;
+        private final long[] deleted;
+        private final long min;
+        private final long width;
+        private final int bins;
+
+        Histogram(long[] cents, long[] deleted, long min, long width, int bins, int from, int to, int leafSize) {
+            super(from, to, leafSize);
+            this.cents = cents;
+            this.deleted = deleted;
+            this.min = min;
+            this.width = width;
+            this.bins = bins;
+        }
+
+        @Override
+        long[] leaf() {
+            long[] counts = new long[bins];
+            for (int row = from; row < to; row++) {
+                if (!isDeleted(deleted, row)) {
+                    int bin = (int) ((cents[row] - min) / width);
+                    counts[Math.min(Math.max(bin, 0), bins - 1)]++;
+                }
+            }
+            return counts;
+        }
+
+        @Override
+        Histogram child(int from, int to) {
+            return new Histogram(cents, deleted, min, width, bins, from, to, leafSize);
+        }
+
+        @Override
+        long[] combine(long[] left, long[] right) {
+            for (int i = 0; i < bins; i++) {
+                left[i] += right[i];
+            }
+            return left;
+        }
+    }
+
+    /**
+     * Row count and cent total per dictionary code: {counts, sums}, both indexed by code.
+     */
+    static final class DescriptionTotals extends RangeTask<long[][]> {
+        private final long[] cents;
+        private final int[] codes;
+        private final long[] deleted;
+        private final int dictionarySize;
+
+        DescriptionTotals(long[] cents, int[] codes, long[] deleted, int dictionarySize, int from, int to, int leafSize) {
+            super(from, to, leafSize);
+            this.cents = cents;
+            this.codes = codes;
+            this.deleted = deleted;
+            this.dictionarySize = dictionarySize;
+        }
+
+        @Override
+        long[][] leaf() {
+            long[] counts = new long[dictionarySize];
+            long[] sums = new long[dictionarySize];
+            for (int row = from; row < to; row++) {
+                if (!isDeleted(deleted, row)) {
+                    int code = codes[row];
+                    counts[code]++;
+                    sums[code] += cents[row];
+                }
+            }
+            return new long[][] {counts, sums};
+        }
+
+        @Override
+        DescriptionTotals child(int from, int to) {
+            return new DescriptionTotals(cents, codes, deleted, dictionarySize, from, to, leafSize);
+        }
+
+        @Override
+        long[][] combine(long[][] left, long[][] right) {
+            for (int i = 0; i < dictionarySize; i++) {
+                left[0][i] += right[0][i];
+                left[1][i] += right[1][i];
+            }
+            return left;
+        }
+    }
+}
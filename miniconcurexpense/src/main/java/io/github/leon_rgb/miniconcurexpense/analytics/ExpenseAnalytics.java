@@ -0,0 +1,29 @@
+package io.github.leon_rgb.miniconcurexpense.analytics;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Response of {@code GET /expenses/analytics}. Amounts are null when the tenant has no expenses.
+ * {@code percentiles} uses nearest-rank and is keyed like "p50", "p99.9".
+ */
+public record ExpenseAnalytics(String tenant,
+                               long count,
+                               BigDecimal sum,
+                               BigDecimal mean,
+                               BigDecimal min,
+                               BigDecimal max,
+                               Map<String, BigDecimal> percentiles,
+                               List<Bucket> histogram,
+                               List<TopExpense> topExpenses,
+                               List<DescriptionTotal> topDescriptions,
+                               long snapshotAgeMillis) {
+
+    /** Expenses with {@code from <= amount < to}. */
+    public record Bucket(BigDecimal from, BigDecimal to, long count) {}
+
+    public record TopExpense(long id, String description, BigDecimal amount) {}
+
+    public record DescriptionTotal(String description, long count, BigDecimal total) {}
+}
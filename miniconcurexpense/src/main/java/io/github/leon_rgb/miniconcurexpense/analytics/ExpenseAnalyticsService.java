@@ -0,0 +1,282 @@
+package io.github.leon_rgb.miniconcurexpense.analytics;
+
+import io.github.leon_rgb.miniconcurexpense.datasource.RecentTenantWrites;
+import io.github.leon_rgb.miniconcurexpense.datasource.ReplicaRoutingDataSource;
+import io.github.leon_rgb.miniconcurexpense.model.Expense;
+import io.github.leon_rgb.miniconcurexpense.tenant.SchemaPerTenantConnectionProvider;
+import io.github.leon_rgb.miniconcurexpense.tenant.TenantContext;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Serves {@code GET /expenses/analytics} from per-tenant {@link ExpenseColumns} snapshots.
+ *
+ * A snapshot is loaded on first use with one streaming scan of the tenant's expense table and
+ * then kept current by the write paths of this replica ({@link #added}, {@link #removed},
+ * {@link #invalidate}). Writes made through other replicas are picked up when the snapshot
+ * reaches {@code expenses.analytics.max-age} and is reloaded.
+ * All snapshots together stay within {@code expenses.analytics.memory-budget}; beyond that the
+ * least recently used tenants are evicted, and a tenant that alone exceeds it is refused.
+ */
+@Service
+public class ExpenseAnalyticsService {
+
+    private static final String LOAD_QUERY =
+            "SELECT id, (amount * 100)::bigint, description FROM expense ORDER BY id";
+    private static final int FETCH_SIZE = 10_000;
+    private static final int BUDGET_CHECK_INTERVAL = 1 << 16;
+
+    private final SchemaPerTenantConnectionProvider connectionProvider;
+    private final RecentTenantWrites recentWrites;
+    private final long memoryBudgetBytes;
+    private final long maxAgeNanos;
+    private final ForkJoinPool pool;
+
+    // access-ordered, so iteration starts at the least recently used tenant; guarded by this
+    private final LinkedHashMap<String, ExpenseColumns> snapshots = new LinkedHashMap<>(16, 0.75f, true);
+    // bumped by every write notification; a load that overlapped one is used once but not kept. Guarded by this
+    private final Map<String, Long> writeEpochs = new HashMap<>();
+    private final ConcurrentHashMap<String, CompletableFuture<ExpenseColumns>> loading = new ConcurrentHashMap<>();
+
+    private final Counter loads;
+    private final Counter evictions;
+
+    public ExpenseAnalyticsService(SchemaPerTenantConnectionProvider connectionProvider,
+                                   RecentTenantWrites recentWrites,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${expenses.analytics.memory-budget:256MB}") DataSize memoryBudget,
+                                   @Value("${expenses.analytics.max-age:5m}") Duration maxAge,
+                                   @Value("${expenses.analytics.parallelism:0}") int parallelism) {
+        this.connectionProvider = connectionProvider;
+        this.recentWrites = recentWrites;
+        this.memoryBudgetBytes = memoryBudget.toBytes();
+        this.maxAgeNanos = maxAge.toNanos();
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+
+        this.loads = Counter.builder("expenses.analytics.snapshot.loads")
+                .description("Analytics snapshots loaded from the database")
+                .register(meterRegistry);
+        this.evictions = Counter.builder("expenses.analytics.snapshot.evictions")
+                .description("Analytics snapshots dropped to stay within the memory budget")
+                .register(meterRegistry);
+        Gauge.builder("expenses.analytics.snapshot.bytes", this, ExpenseAnalyticsService::totalBytes)
+                .description("Estimated heap held by analytics snapshots")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Aggregate the current tenant's expenses.
+     */
+    public ExpenseAnalytics analyze(double[] percentiles, int bins, int top, int topDescriptions) {
+        String tenant = TenantContext.getCurrentTenantOrDefault();
+        ExpenseAnalytics result = snapshot(tenant).analyze(tenant, pool, percentiles, bins, top, topDescriptions);
+        // the first analysis after a change adds the sorted amount column
+        enforceBudget(tenant);
+        return result;
+    }
+
+    /** Committed inserts of the current tenant. */
+    public void added(List<Expense> expenses) {
+        ExpenseColumns columns = touch();
+        if (columns == null) {
+            return;
+        }
+        for (Expense expense : expenses) {
+            columns.add(expense.getId(), cents(expense.getAmount()), expense.getDescription());
+        }
+        enforceBudget(TenantContext.getCurrentTenantOrDefault());
+    }
+
+    public void added(Expense expense) {
+        added(List.of(expense));
+    }
+
+    /** Committed deletes of the current tenant; unknown ids are ignored. */
+    public void removed(Long... ids) {
+        ExpenseColumns columns = touch();
+        if (columns != null) {
+            columns.remove(ids);
+        }
+    }
+
+    /** Committed delete of the inclusive id range. */
+    public void removedRange(long fromId, long toId) {
+        ExpenseColumns columns = touch();
+        if (columns != null) {
+            columns.removeRange(fromId, toId);
+        }
+    }
+
+    /**
+     * Drop the current tenant's snapshot, for writes that are not worth replaying row by row
+     * (COPY import, purge, partition retention). The next analysis reloads it.
+     */
+    public void invalidate() {
+        String tenant = TenantContext.getCurrentTenantOrDefault();
+        recentWrites.record(tenant);
+        synchronized (this) {
+            writeEpochs.merge(tenant, 1L, Long::sum);
+            snapshots.remove(tenant);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        pool.shutdownNow();
+    }
+
+    // records the write and returns the snapshot it has to be applied to, if any
+    private synchronized ExpenseColumns touch() {
+        String tenant = TenantContext.getCurrentTenantOrDefault();
+        recentWrites.record(tenant);
+        writeEpochs.merge(tenant, 1L, Long::sum);
+        return snapshots.get(tenant);
+    }
+
+    private ExpenseColumns snapshot(String tenant) {
+        ExpenseColumns cached = cached(tenant);
+        if (cached != null) {
+            return cached;
+        }
+        CompletableFuture<ExpenseColumns> mine = new CompletableFuture<>();
+        CompletableFuture<ExpenseColumns> running = loading.putIfAbsent(tenant, mine);
+        if (running != null) {
+            try {
+                return running.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+        try {
+            long epoch = epoch(tenant);
+            ExpenseColumns loaded = load(tenant);
+            install(tenant, loaded, epoch);
+            mine.complete(loaded);
+            return loaded;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(tenant, mine);
+        }
+    }
+
+    private synchronized ExpenseColumns cached(String tenant) {
+        ExpenseColumns columns = snapshots.get(tenant);
+        if (columns != null && columns.ageNanos() > maxAgeNanos) {
+            snapshots.remove(tenant);
+            return null;
+        }
+        return columns;
+    }
+
+    private synchronized long epoch(String tenant) {
+        return writeEpochs.getOrDefault(tenant, 0L);
+    }
+
+    private synchronized void install(String tenant, ExpenseColumns columns, long epochBeforeLoad) {
+        // a write during the scan may or may not be in it, so such a snapshot is not kept
+        if (writeEpochs.getOrDefault(tenant, 0L) == epochBeforeLoad) {
+            snapshots.put(tenant, columns);
+            enforceBudget(tenant);
+        }
+    }
+
+    private synchronized void enforceBudget(String keep) {
+        long total = totalBytes();
+        Iterator<Map.Entry<String, ExpenseColumns>> eldestFirst = snapshots.entrySet().iterator();
+        while (total > memoryBudgetBytes && eldestFirst.hasNext()) {
+            Map.Entry<String, ExpenseColumns> entry = eldestFirst.next();
+            if (!entry.getKey().equals(keep)) {
+                total -= entry.getValue().estimatedBytes();
+                eldestFirst.remove();
+                evictions.increment();
+            }
+        }
+    }
+
+    private synchronized long totalBytes() {
+        long total = 0;
+        for (ExpenseColumns columns : snapshots.values()) {
+            total += columns.estimatedBytes();
+        }
+        return total;
+    }
+
+    /**
+     * Stream the tenant's expenses into a new snapshot. The connection's search_path already
+     * points at the tenant (see {@link SchemaPerTenantConnectionProvider}); the driver only uses
+     * the fetch size inside a transaction. The scan may run on a read replica; write
+     * notifications mark the tenant in {@link RecentTenantWrites} before they move its epoch,
+     * so a load that could miss a write either reads from the primary or is not kept.
+     */
+    private ExpenseColumns load(String tenant) {
+        long start = System.nanoTime();
+        ExpenseColumns columns = new ExpenseColumns(1024);
+        Connection conn = null;
+        try {
+            conn = ReplicaRoutingDataSource.readOnly(() -> connectionProvider.getConnection(tenant));
+            conn.setAutoCommit(false);
+            try (PreparedStatement ps = conn.prepareStatement(LOAD_QUERY)) {
+                ps.setFetchSize(FETCH_SIZE);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        if (columns.size() % BUDGET_CHECK_INTERVAL == 0
+                                && (columns.size() == ExpenseColumns.MAX_ROWS || columns.estimatedBytes() > memoryBudgetBytes)) {
+                            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                                    "Tenant " + tenant + " has too many expenses for the analytics memory budget");
+                        }
+                        columns.load(rs.getLong(1), rs.getLong(2), rs.getString(3));
+                    }
+                }
+            } finally {
+                conn.rollback();
+                conn.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Failed to load analytics snapshot for schema " + tenant + ": " + e.getMessage(), e);
+        } finally {
+            if (conn != null) {
+                try {
+                    connectionProvider.releaseConnection(tenant, conn);
+                } catch (SQLException e) {
+                    System.err.println("Error releasing analytics connection for tenant " + tenant + ": " + e.getMessage());
+                }
+            }
+        }
+        loads.increment();
+        System.out.printf("Loaded analytics snapshot of %d expenses for schema %s in %d ms%n",
+                columns.size(), tenant, (System.nanoTime() - start) / 1_000_000);
+        return columns;
+    }
+
+    // same rounding as the NUMERIC(10,2) column applies on insert
+    private static long cents(Double amount) {
+        return BigDecimal.valueOf(amount).setScale(2, RoundingMode.HALF_UP).movePointRight(2).longValueExact();
+    }
+}
@@ -0,0 +1,385 @@
+package io.github.leon_rgb.miniconcurexpense.analytics;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Column-oriented copy of one tenant's expenses: parallel arrays of ids and amounts in cents,
+ * plus the description as a code into a dictionary of distinct descriptions.
+ *
+ * Rows are appended and deleted in place (deletes only set a bit); once a quarter of the rows
+ * are deleted, or too many rows were appended out of id order, the arrays are rebuilt in id order.
+ * For percentiles and top-N the live rows are additionally kept as one sorted {@code long[]} of
+ * (amount, row) pairs, built on first use after a change.
+ * Writers take the write lock; {@link #analyze} runs its kernels under the read lock.
+ */
+final class ExpenseColumns {
+
+    // NUMERIC(10,2) bounds; shifting by this makes every amount non-negative for packing
+    private static final long CENTS_OFFSET = 9_999_999_999L;
+    // (cents + offset) needs 35 bits, which leaves 28 bits for the row number
+    private static final int ROW_BITS = 28;
+    static final int MAX_ROWS = 1 << ROW_BITS;
+    private static final long ROW_MASK = MAX_ROWS - 1;
+    private static final int MAX_UNSORTED_TAIL = 4096;
+    private static final int MIN_LEAF = 16_384;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final long createdAtNanos = System.nanoTime();
+
+    private long[] ids;
+    private long[] cents;
+    private int[] codes;
+    private long[] deleted;
+    private int size;
+    private int live;
+    // ids[0, sortedPrefix) are ascending and can be binary-searched
+    private int sortedPrefix;
+
+    private final List<String> dictionary = new ArrayList<>();
+    private final Map<String, Integer> codeOf = new HashMap<>();
+    private long dictionaryBytes;
+
+    // (cents + CENTS_OFFSET) << ROW_BITS | row for every live row, ascending; null after a change
+    private long[] byAmount;
+
+    ExpenseColumns(int initialCapacity) {
+        int capacity = Math.max(16, initialCapacity);
+        this.ids = new long[capacity];
+        this.cents = new long[capacity];
+        this.codes = new int[capacity];
+        this.deleted = new long[words(capacity)];
+    }
+
+    /**
+     * Append a row while the snapshot is being loaded and not yet shared with other threads.
+     */
+    void load(long id, long amountCents, String description) {
+        appendRow(id, amountCents, description);
+    }
+
+    /**
+     * Add a newly created expense; an id that is already present is ignored.
+     */
+    void add(long id, long amountCents, String description) {
+        lock.writeLock().lock();
+        try {
+            if (indexOf(id) >= 0) {
+                return;
+            }
+            appendRow(id, amountCents, description);
+            byAmount = null;
+            if (size - sortedPrefix > MAX_UNSORTED_TAIL) {
+                compact();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void remove(Long[] removedIds) {
+        lock.writeLock().lock();
+        try {
+            for (Long id : removedIds) {
+                int row = id == null ? -1 : indexOf(id);
+                if (row >= 0) {
+                    markDeleted(row);
+                }
+            }
+            afterRemove();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void removeRange(long fromId, long toId) {
+        lock.writeLock().lock();
+        try {
+            for (int row = 0; row < size; row++) {
+                if (ids[row] >= fromId && ids[row] <= toId && !AggregationKernels.isDeleted(deleted, row)) {
+                    markDeleted(row);
+                }
+            }
+            afterRemove();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    long ageNanos() {
+        return System.nanoTime() - createdAtNanos;
+    }
+
+    long estimatedBytes() {
+        lock.readLock().lock();
+        try {
+            long bytes = 8L * ids.length + 8L * cents.length + 4L * codes.length + 8L * deleted.length + dictionaryBytes;
+            return byAmount == null ? bytes : bytes + 8L * byAmount.length;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Run all aggregations of {@code GET /expenses/analytics} on {@code pool}.
+     */
+    ExpenseAnalytics analyze(String tenant, ForkJoinPool pool, double[] percentiles, int bins, int top, int topDescriptions) {
+        lock.readLock().lock();
+        try {
+            if (byAmount != null) {
+                return analyzeLocked(tenant, pool, percentiles, bins, top, topDescriptions);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        lock.writeLock().lock();
+        try {
+            if (byAmount == null) {
+                byAmount = sortLiveRowsByAmount();
+            }
+            // downgrade, so other readers can run while the kernels do
+            lock.readLock().lock();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        try {
+            return analyzeLocked(tenant, pool, percentiles, bins, top, topDescriptions);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private ExpenseAnalytics analyzeLocked(String tenant, ForkJoinPool pool, double[] percentiles,
+                                           int bins, int top, int topDescriptions) {
+        long ageMillis = ageNanos() / 1_000_000;
+        if (live == 0) {
+            return new ExpenseAnalytics(tenant, 0, BigDecimal.ZERO.setScale(2), null, null, null,
+                    Map.of(), List.of(), List.of(), List.of(), ageMillis);
+        }
+        int leaf = Math.max(MIN_LEAF, size / (pool.getParallelism() * 4) + 1);
+        long[] totals = pool.invoke(new AggregationKernels.Totals(cents, deleted, 0, size, leaf));
+        long min = centsOf(byAmount[0]);
+        long max = centsOf(byAmount[live - 1]);
+
+        Map<String, BigDecimal> percentileValues = new LinkedHashMap<>();
+        for (double p : percentiles) {
+            // nearest rank
+            int rank = (int) Math.ceil(p / 100.0 * live);
+            percentileValues.put(percentileLabel(p), money(centsOf(byAmount[Math.min(live, Math.max(1, rank)) - 1])));
+        }
+
+        // (max - min) / bins + 1 guarantees max < min + bins * width
+        long width = (max - min) / bins + 1;
+        long[] counts = pool.invoke(new AggregationKernels.Histogram(cents, deleted, min, width, bins, 0, size, leaf));
+        List<ExpenseAnalytics.Bucket> histogram = new ArrayList<>(bins);
+        for (int i = 0; i < bins; i++) {
+            histogram.add(new ExpenseAnalytics.Bucket(money(min + i * width), money(min + (i + 1) * width), counts[i]));
+        }
+
+        List<ExpenseAnalytics.TopExpense> topExpenses = new ArrayList<>(Math.min(top, live));
+        for (int i = live - 1; i >= Math.max(0, live - top); i--) {
+            int row = (int) (byAmount[i] & ROW_MASK);
+            topExpenses.add(new ExpenseAnalytics.TopExpense(ids[row], dictionary.get(codes[row]), money(cents[row])));
+        }
+
+        return new ExpenseAnalytics(tenant, totals[0], money(totals[1]),
+                money(totals[1]).divide(BigDecimal.valueOf(totals[0]), 2, RoundingMode.HALF_UP),
+                money(min), money(max), percentileValues, histogram, topExpenses,
+                topDescriptions(pool, topDescriptions), ageMillis);
+    }
+
+    private List<ExpenseAnalytics.DescriptionTotal> topDescriptions(ForkJoinPool pool, int k) {
+        if (k == 0) {
+            return List.of();
+        }
+        // one accumulator pair per leaf is dictionary-sized, so use about one leaf per worker
+        int leaf = Math.max(MIN_LEAF, size / pool.getParallelism() + 1);
+        long[][] totals = pool.invoke(new AggregationKernels.DescriptionTotals(
+                cents, codes, deleted, dictionary.size(), 0, size, leaf));
+        long[] counts = totals[0];
+        long[] sums = totals[1];
+
+        // partial insertion sort: keep the k codes with the highest sums, best first
+        int[] best = new int[Math.min(k, dictionary.size())];
+        int found = 0;
+        for (int code = 0; code < counts.length; code++) {
+            if (counts[code] == 0 || (found == best.length && sums[code] <= sums[best[found - 1]])) {
+                continue;
+            }
+            int i = found < best.length ? found++ : found - 1;
+            while (i > 0 && sums[best[i - 1]] < sums[code]) {
+                best[i] = best[i - 1];
+                i--;
+            }
+            best[i] = code;
+        }
+        List<ExpenseAnalytics.DescriptionTotal> result = new ArrayList<>(found);
+        for (int i = 0; i < found; i++) {
+            result.add(new ExpenseAnalytics.DescriptionTotal(dictionary.get(best[i]), counts[best[i]], money(sums[best[i]])));
+        }
+        return result;
+    }
+
+    private void appendRow(long id, long amountCents, String description) {
+        if (size == MAX_ROWS) {
+            throw new IllegalStateException("Analytics snapshot is limited to " + MAX_ROWS + " rows");
+        }
+        if (size == ids.length) {
+            grow();
+        }
+        if (sortedPrefix == size && (size == 0 || id > ids[size - 1])) {
+            sortedPrefix++;
+        }
+        ids[size] = id;
+        cents[size] = amountCents;
+        codes[size] = encode(description);
+        size++;
+        live++;
+    }
+
+    private int encode(String description) {
+        Integer code = codeOf.get(description);
+        if (code == null) {
+            code = dictionary.size();
+            dictionary.add(description);
+            codeOf.put(description, code);
+            // String + char data, the map entry and the boxed code
+            dictionaryBytes += 100 + 2L * description.length();
+        }
+        return code;
+    }
+
+    private int indexOf(long id) {
+        int row = Arrays.binarySearch(ids, 0, sortedPrefix, id);
+        if (row < 0) {
+            for (row = sortedPrefix; row < size && ids[row] != id; row++) {
+                // linear scan of the rows appended out of order
+            }
+            if (row == size) {
+                return -1;
+            }
+        }
+        return AggregationKernels.isDeleted(deleted, row) ? -1 : row;
+    }
+
+    private void markDeleted(int row) {
+        deleted[row >>> 6] |= 1L << row;
+        live--;
+        byAmount = null;
+    }
+
+    private void afterRemove() {
+        if (size - live > size / 4) {
+            compact();
+        }
+    }
+
+    private void grow() {
+        int capacity = (int) Math.min(MAX_ROWS, ids.length + (ids.length >> 1) + 16L);
+        ids = Arrays.copyOf(ids, capacity);
+        cents = Arrays.copyOf(cents, capacity);
+        codes = Arrays.copyOf(codes, capacity);
+        deleted = Arrays.copyOf(deleted, words(capacity));
+    }
+
+    /**
+     * Drop deleted rows and restore id order. Dictionary entries are kept even if unused.
+     */
+    private void compact() {
+        int[] order = liveRowsInIdOrder();
+        int capacity = Math.max(16, live + (live >> 1));
+        long[] newIds = new long[capacity];
+        long[] newCents = new long[capacity];
+        int[] newCodes = new int[capacity];
+        for (int i = 0; i < live; i++) {
+            int row = order[i];
+            newIds[i] = ids[row];
+            newCents[i] = cents[row];
+            newCodes[i] = codes[row];
+        }
+        ids = newIds;
+        cents = newCents;
+        codes = newCodes;
+        deleted = new long[words(capacity)];
+        size = live;
+        sortedPrefix = live;
+        byAmount = null;
+    }
+
+    /**
+     * Row numbers of the live rows, ordered by id. Ids below 2^35 are packed next to the row
+     * number and sorted as plain longs; larger (BIGINT) ids take the slower boxed sort.
+     */
+    private int[] liveRowsInIdOrder() {
+        int[] rows = new int[live];
+        long maxId = 0;
+        int n = 0;
+        for (int row = 0; row < size; row++) {
+            if (!AggregationKernels.isDeleted(deleted, row)) {
+                rows[n++] = row;
+                maxId = Math.max(maxId, ids[row]);
+            }
+        }
+        if (maxId < 1L << (63 - ROW_BITS)) {
+            long[] keys = new long[live];
+            for (int i = 0; i < live; i++) {
+                keys[i] = ids[rows[i]] << ROW_BITS | rows[i];
+            }
+            Arrays.sort(keys);
+            for (int i = 0; i < live; i++) {
+                rows[i] = (int) (keys[i] & ROW_MASK);
+            }
+            return rows;
+        }
+        Integer[] boxed = new Integer[live];
+        for (int i = 0; i < live; i++) {
+            boxed[i] = rows[i];
+        }
+        Arrays.sort(boxed, Comparator.comparingLong(row -> ids[row]));
+        for (int i = 0; i < live; i++) {
+            rows[i] = boxed[i];
+        }
+        return rows;
+    }
+
+    private long[] sortLiveRowsByAmount() {
+        long[] keys = new long[live];
+        int n = 0;
+        for (int row = 0; row < size; row++) {
+            if (!AggregationKernels.isDeleted(deleted, row)) {
+                keys[n++] = (cents[row] + CENTS_OFFSET) << ROW_BITS | row;
+            }
+        }
+        Arrays.parallelSort(keys);
+        return keys;
+    }
+
+    private static long centsOf(long amountKey) {
+        return (amountKey >>> ROW_BITS) - CENTS_OFFSET;
+    }
+
+    private static BigDecimal money(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    private static String percentileLabel(double p) {
+        return p == Math.rint(p) ? "p" + (long) p : "p" + p;
+    }
+
+    private static int words(int capacity) {
+        return (capacity + 63) >>> 6;
+    }
+}
@@ -1,82 +1,126 @@
 package io.github.leon_rgb.miniconcurexpense.bootstrap;
 
-import io.github.leon_rgb.miniconcurexpense.model.Expense;
-import io.github.leon_rgb.miniconcurexpense.repository.ExpenseRepository;
+import io.github.leon_rgb.miniconcurexpense.cache.ExpensePageCache;
+import io.github.leon_rgb.miniconcurexpense.cache.SecondLevelCacheEvictor;
 import io.github.leon_rgb.miniconcurexpense.tenant.TenantContext;
+import io.github.leon_rgb.miniconcurexpense.tenant.TenantProvisioner;
+import io.github.leon_rgb.miniconcurexpense.tenant.TenantRegistry;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
 import org.springframework.stereotype.Component;
-import org.springframework.context.ApplicationListener;
-import org.springframework.boot.context.event.ApplicationReadyEvent;
-import org.springframework.lang.NonNull;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.annotation.Order;
 
-import javax.sql.DataSource;
-import java.sql.Connection;
-import java.sql.Statement;
-import java.sql.ResultSet;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Random;
 
 /**
- * On application startup, ensure each non-system schema has at least 30 expenses.
- * Uses TenantContext to switch the tenant/schema before using the JPA repository,
- * so this is compatible with the request-time filter/tenant resolver that the app uses.
+ * On application startup, ensure each non-system schema has at least {@code datagen.rows-per-tenant}
+ * expenses (30 by default), optionally creating {@code datagen.tenants} extra synthetic tenants first.
+ *
+ * With the defaults this is the small demo seed. The {@code datagen} profile (application-datagen.yml)
+ * turns it into a load-test data generator, and every setting can be overridden on the command line:
+ * <pre>
+ *   java -jar app.jar --spring.profiles.active=datagen --datagen.tenants=100 --datagen.rows-per-tenant=100000
+ * </pre>
+ * Tenants are filled in parallel on the provisioning executor, each with multi-row INSERTs
+ * (see {@link SyntheticExpenseGenerator}). Runs right after
+ * {@link io.github.leon_rgb.miniconcurexpense.tenant.TenantSchemaInitializer} and before the app reports ready.
  */
 @Component
-public class StartupDataLoader implements ApplicationListener<ApplicationReadyEvent> {
+@Order(2)
+public class StartupDataLoader implements CommandLineRunner {
 
-    private final DataSource dataSource;
-    private final ExpenseRepository expenseRepository;
-    private final Random random = new Random();
+    private final TenantRegistry tenantRegistry;
+    private final TenantProvisioner tenantProvisioner;
+    private final SyntheticExpenseGenerator generator;
+    private final ExpensePageCache pageCache;
+    private final SecondLevelCacheEvictor secondLevelCacheEvictor;
+    private final ApplicationContext applicationContext;
+    private final long rowsPerTenant;
+    private final int syntheticTenants;
+    private final String tenantPrefix;
+    private final boolean exitWhenDone;
 
-    public StartupDataLoader(DataSource dataSource, ExpenseRepository expenseRepository) {
-        this.dataSource = dataSource;
-        this.expenseRepository = expenseRepository;
+    public StartupDataLoader(TenantRegistry tenantRegistry,
+                             TenantProvisioner tenantProvisioner,
+                             SyntheticExpenseGenerator generator,
+                             ExpensePageCache pageCache,
+                             SecondLevelCacheEvictor secondLevelCacheEvictor,
+                             ApplicationContext applicationContext,
+                             @Value("${datagen.rows-per-tenant:30}") long rowsPerTenant,
+                             @Value("${datagen.tenants:0}") int syntheticTenants,
+                             @Value("${datagen.tenant-prefix:loadtest_}") String tenantPrefix,
+                             @Value("${datagen.exit-when-done:false}") boolean exitWhenDone) {
+        this.tenantRegistry = tenantRegistry;
+        this.tenantProvisioner = tenantProvisioner;
+        this.generator = generator;
+        this.pageCache = pageCache;
+        this.secondLevelCacheEvictor = secondLevelCacheEvictor;
+        this.applicationContext = applicationContext;
+        this.rowsPerTenant = rowsPerTenant;
+        this.syntheticTenants = syntheticTenants;
+        this.tenantPrefix = tenantPrefix;
+        this.exitWhenDone = exitWhenDone;
     }
 
     @Override
-    public void onApplicationEvent(@NonNull ApplicationReadyEvent event) {
-        List<String> schemas = fetchSchemas();
-        for (String schema : schemas) {
-            // skip system schemas just in case (same list as DebugController)
-            if (isSystemSchema(schema)) continue;
-            try {
-                TenantContext.setCurrentTenant(schema);
-                long count = expenseRepository.count();
-                if (count < 30) {
-                    int toCreate = 30 - (int) count;
-                    for (int i = 0; i < toCreate; i++) {
-                        Expense e = new Expense();
-                        e.setDescription(randomDescription());
-                        e.setAmount(randomAmount());
-                        expenseRepository.save(e);
-                    }
-                    System.out.println("Inserted " + toCreate + " expenses for schema: " + schema);
-                } else {
-                    System.out.println("Schema " + schema + " already has " + count + " expenses.");
-                }
-            } catch (Exception ex) {
-                System.err.println("Failed to seed expenses for schema " + schema + ": " + ex.getMessage());
-            } finally {
-                TenantContext.clear();
+    public void run(String... args) {
+        if (syntheticTenants > 0) {
+            List<String> newTenants = new ArrayList<>();
+            for (int i = 1; i <= syntheticTenants; i++) {
+                newTenants.add(String.format("%s%03d", tenantPrefix, i));
             }
+            tenantProvisioner.provisionAll(newTenants);
         }
-    }
 
-    private List<String> fetchSchemas() {
         List<String> schemas = new ArrayList<>();
-        String sql = "SELECT schema_name FROM information_schema.schemata " +
-                     "WHERE schema_name NOT IN ('information_schema', 'pg_catalog', 'pg_toast', 'pg_temp_1', 'pg_toast_temp_1')";
-        try (Connection conn = dataSource.getConnection();
-             Statement st = conn.createStatement();
-             ResultSet rs = st.executeQuery(sql)) {
-            while (rs.next()) {
-                schemas.add(rs.getString("schema_name"));
+        for (String schema : tenantRegistry.knownTenants()) {
+            // skip system schemas just in case (same list as DebugController)
+            if (!isSystemSchema(schema)) schemas.add(schema);
+        }
+
+        long start = System.nanoTime();
+        List<Long> inserted = tenantProvisioner.runInParallel(schemas, this::seed);
+        long total = inserted.stream().mapToLong(Long::longValue).sum();
+        double seconds = Math.max(1, System.nanoTime() - start) / 1e9;
+        if (total > 0) {
+            secondLevelCacheEvictor.evictExpenses();
+            System.out.printf("Generated %d expenses across %d schemas in %.1f s (%.0f rows/s)%n",
+                    total, schemas.size(), seconds, total / seconds);
+        }
+
+        if (exitWhenDone) {
+            System.exit(SpringApplication.exit(applicationContext, () -> 0));
+        }
+    }
+
+    private Long seed(String schema) {
+        try {
+            long toCreate = generator.topUp(schema, rowsPerTenant);
+            if (toCreate > 0) {
+                System.out.println("Inserted " + toCreate + " expenses for schema: " + schema);
+                invalidatePageCache(schema);
+            } else {
+                System.out.println("Schema " + schema + " already has " + rowsPerTenant + " or more expenses.");
             }
+            return toCreate;
         } catch (Exception ex) {
-            System.err.println("Error fetching schemas: " + ex.getMessage());
+            System.err.println("Failed to seed expenses for schema " + schema + ": " + ex.getMessage());
+            return 0L;
+        }
+    }
+
+    // rows were written with plain JDBC, so cached pages of this tenant are stale now
+    private void invalidatePageCache(String schema) {
+        try {
+            TenantContext.setCurrentTenant(schema);
+            pageCache.invalidate();
+        } finally {
+            TenantContext.clear();
         }
-        return schemas;
     }
 
     private boolean isSystemSchema(String s) {
@@ -84,24 +128,4 @@ public class StartupDataLoader implements ApplicationListener<ApplicationReadyEv
         String lower = s.toLowerCase();
         return lower.startsWith("pg_") || lower.equals("information_schema") || lower.equals("public") == false && lower.equals("public"); // keep public, but skip obvious pg_ ones
     }
-
-    // Generate a random description using a few parts for variety
-    private String randomDescription() {
-        String[] verbs = {"Taxi", "Lunch", "Dinner", "Hotel", "Flight", "Train", "Parking", "Coffee", "Supplies", "Taxi ride", "Uber", "Meal", "Conference fee", "Subscription", "Office chair"};
-        String[] extras = {"for client", "team", "meeting", "travel", "reimbursement", "project A", "project B", "misc", "snack", "airport", "workshop", "training"};
-        String v = verbs[random.nextInt(verbs.length)];
-        String e = extras[random.nextInt(extras.length)];
-        int suffix = 1 + random.nextInt(300);
-        return v + " - " + e + " #" + suffix;
-    }
-
-    // random amount between 5.00 and 1000.00 with two decimals
-    private Double randomAmount() {
-        double min = 5.0;
-        double max = 1000.0;
-        double val = min + random.nextDouble() * (max - min);
-        // round to two decimals
-        double rounded = Math.round(val * 100.0) / 100.0;
-        return rounded;
-    }
 }
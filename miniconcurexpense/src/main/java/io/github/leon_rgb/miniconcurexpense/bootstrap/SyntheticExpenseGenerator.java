@@ -0,0 +1,271 @@
+package io.github.leon_rgb.miniconcurexpense.bootstrap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.SplittableRandom;
+
+/**
+ * Writes synthetic expenses straight into a tenant schema with multi-row INSERT statements.
+ *
+ * Values are drawn from configurable distributions (see the {@code datagen.*} properties) using a
+ * random generator seeded from {@code datagen.seed} and the tenant name, so a run is reproducible
+ * per tenant regardless of how tenants are scheduled across threads.
+ * Ids are reserved in blocks from expense_id_seq exactly like Hibernate's pooled optimizer does,
+ * so generated rows and rows created through the API never collide.
+ * All names are schema-qualified; the connection's search_path is left untouched.
+ */
+@Component
+public class SyntheticExpenseGenerator {
+
+    private static final String[] VERBS = {"Taxi", "Lunch", "Dinner", "Hotel", "Flight", "Train", "Parking", "Coffee", "Supplies", "Taxi ride", "Uber", "Meal", "Conference fee", "Subscription", "Office chair"};
+    private static final String[] EXTRAS = {"for client", "team", "meeting", "travel", "reimbursement", "project A", "project B", "misc", "snack", "airport", "workshop", "training"};
+
+    // NUMERIC(10,2) upper bound, in cents
+    private static final long MAX_AMOUNT_CENTS = 9_999_999_999L;
+
+    private final DataSource dataSource;
+    private final long seed;
+    private final String amountDistribution;
+    private final long minCents;
+    private final long maxCents;
+    private final double lognormalMu;
+    private final double lognormalSigma;
+    private final double[] descriptionCdf;
+    private final int rowsPerStatement;
+    private final int statementsPerTransaction;
+
+    public SyntheticExpenseGenerator(DataSource dataSource,
+                                     @Value("${datagen.seed:42}") long seed,
+                                     @Value("${datagen.amount.distribution:uniform}") String amountDistribution,
+                                     @Value("${datagen.amount.min:5.00}") BigDecimal minAmount,
+                                     @Value("${datagen.amount.max:1000.00}") BigDecimal maxAmount,
+                                     @Value("${datagen.amount.lognormal-mu:3.5}") double lognormalMu,
+                                     @Value("${datagen.amount.lognormal-sigma:1.2}") double lognormalSigma,
+                                     @Value("${datagen.description-skew:0.0}") double descriptionSkew,
+                                     @Value("${datagen.rows-per-statement:1000}") int rowsPerStatement,
+                                     @Value("${datagen.statements-per-transaction:10}") int statementsPerTransaction) {
+        this.dataSource = dataSource;
+        this.seed = seed;
+        this.amountDistribution = amountDistribution.toLowerCase();
+        this.minCents = Math.max(1, minAmount.movePointRight(2).longValue());
+        this.maxCents = Math.min(MAX_AMOUNT_CENTS, maxAmount.movePointRight(2).longValue());
+        this.lognormalMu = lognormalMu;
+        this.lognormalSigma = lognormalSigma;
+        this.descriptionCdf = zipfCdf(VERBS.length * EXTRAS.length, descriptionSkew);
+        // PostgreSQL allows at most 32767 bind parameters per statement, we use 3 per row
+        this.rowsPerStatement = Math.max(1, Math.min(rowsPerStatement, 10_000));
+        this.statementsPerTransaction = Math.max(1, statementsPerTransaction);
+        if (!this.amountDistribution.equals("uniform") && !this.amountDistribution.equals("lognormal")) {
+            throw new IllegalArgumentException("datagen.amount.distribution must be 'uniform' or 'lognormal'");
+        }
+    }
+
+    /**
+     * Insert as many expenses as needed to bring the tenant to {@code targetRows}.
+     * @return the number of rows inserted
+     */
+    public long topUp(String tenant, long targetRows) {
+        try (Connection conn = dataSource.getConnection()) {
+            long missing = targetRows - countRows(conn, tenant);
+            if (missing <= 0) {
+                return 0;
+            }
+            insertRows(conn, tenant, missing);
+            return missing;
+        } catch (SQLException e) {
+            throw new IllegalStateException("Failed to generate expenses for schema " + tenant + ": " + e.getMessage(), e);
+        }
+    }
+
+    private void insertRows(Connection conn, String tenant, long rows) throws SQLException {
+        String schema = quoteIdentifier(tenant);
+        SplittableRandom random = new SplittableRandom(seed ^ (tenant.hashCode() * 0x9E3779B97F4A7C15L));
+        IdAllocator ids = new IdAllocator(conn, tenant);
+
+        conn.setAutoCommit(false);
+        try (PreparedStatement full = conn.prepareStatement(insertSql(schema, rowsPerStatement))) {
+            long remaining = rows;
+            int statementsInTransaction = 0;
+            while (remaining > 0) {
+                int n = (int) Math.min(rowsPerStatement, remaining);
+                ids.reserve(n);
+                if (n == rowsPerStatement) {
+                    bindRows(full, n, ids, random);
+                    full.executeUpdate();
+                } else {
+                    try (PreparedStatement partial = conn.prepareStatement(insertSql(schema, n))) {
+                        bindRows(partial, n, ids, random);
+                        partial.executeUpdate();
+                    }
+                }
+                remaining -= n;
+                if (++statementsInTransaction == statementsPerTransaction) {
+                    conn.commit();
+                    statementsInTransaction = 0;
+                }
+            }
+            conn.commit();
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+
+    private void bindRows(PreparedStatement ps, int rows, IdAllocator ids, SplittableRandom random) throws SQLException {
+        int p = 1;
+        for (int i = 0; i < rows; i++) {
+            ps.setLong(p++, ids.next());
+            ps.setString(p++, randomDescription(random));
+            ps.setBigDecimal(p++, BigDecimal.valueOf(randomAmountCents(random), 2));
+        }
+    }
+
+    private String randomDescription(SplittableRandom random) {
+        int combo = pick(descriptionCdf, random.nextDouble());
+        String v = VERBS[combo % VERBS.length];
+        String e = EXTRAS[combo / VERBS.length];
+        int suffix = 1 + random.nextInt(300);
+        return v + " - " + e + " #" + suffix;
+    }
+
+    private long randomAmountCents(SplittableRandom random) {
+        long cents;
+        if (amountDistribution.equals("lognormal")) {
+            double gaussian = gaussian(random);
+            cents = Math.round(Math.exp(lognormalMu + lognormalSigma * gaussian) * 100.0);
+        } else {
+            cents = minCents + random.nextLong(maxCents - minCents + 1);
+        }
+        return Math.max(minCents, Math.min(maxCents, cents));
+    }
+
+    // Box-Muller; SplittableRandom has no nextGaussian of its own
+    private static double gaussian(SplittableRandom random) {
+        double u1 = 1.0 - random.nextDouble();
+        double u2 = random.nextDouble();
+        return Math.sqrt(-2.0 * Math.log(u1)) * Math.cos(2.0 * Math.PI * u2);
+    }
+
+    /**
+     * Cumulative distribution over {@code n} items with weight 1/rank^skew; skew 0 is uniform.
+     */
+    private static double[] zipfCdf(int n, double skew) {
+        double[] cdf = new double[n];
+        double total = 0;
+        for (int i = 0; i < n; i++) {
+            total += 1.0 / Math.pow(i + 1, skew);
+            cdf[i] = total;
+        }
+        for (int i = 0; i < n; i++) {
+            cdf[i] /= total;
+        }
+        return cdf;
+    }
+
+    private static int pick(double[] cdf, double u) {
+        int lo = 0, hi = cdf.length - 1;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (cdf[mid] < u) lo = mid + 1; else hi = mid;
+        }
+        return lo;
+    }
+
+    private static long countRows(Connection conn, String tenant) throws SQLException {
+        String schema = quoteIdentifier(tenant);
+        try (Statement st = conn.createStatement()) {
+            // the trigger-maintained rollup answers in O(1); fall back to count(*) if it is missing
+            try (ResultSet rs = st.executeQuery("SELECT expense_count FROM " + schema + ".expense_rollup")) {
+                if (rs.next()) {
+                    return rs.getLong(1);
+                }
+            } catch (SQLException e) {
+                // rollup table not there (manually created schema)
+            }
+            try (ResultSet rs = st.executeQuery("SELECT count(*) FROM " + schema + ".expense")) {
+                rs.next();
+                return rs.getLong(1);
+            }
+        }
+    }
+
+    private static String insertSql(String schema, int rows) {
+        StringBuilder sql = new StringBuilder(64 + rows * 10)
+                .append("INSERT INTO ").append(schema).append(".expense (id, description, amount) VALUES ");
+        for (int i = 0; i < rows; i++) {
+            sql.append(i == 0 ? "(?, ?, ?)" : ", (?, ?, ?)");
+        }
+        return sql.toString();
+    }
+
+    private static String quoteIdentifier(String identifier) {
+        return "\"" + identifier.replace("\"", "\"\"") + "\"";
+    }
+
+    /**
+     * Hands out ids the way Hibernate's pooled optimizer does: every nextval() value v
+     * reserves the range (v - increment, v].
+     */
+    private static final class IdAllocator {
+        private final Connection conn;
+        private final String sequence;
+        private final int increment;
+        private final Deque<long[]> ranges = new ArrayDeque<>();
+        private long available;
+
+        IdAllocator(Connection conn, String tenant) throws SQLException {
+            this.conn = conn;
+            this.sequence = quoteIdentifier(tenant) + ".expense_id_seq";
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "SELECT increment_by FROM pg_sequences WHERE schemaname = ? AND sequencename = 'expense_id_seq'")) {
+                ps.setString(1, tenant);
+                try (ResultSet rs = ps.executeQuery()) {
+                    this.increment = rs.next() ? (int) rs.getLong(1) : 1;
+                }
+            }
+        }
+
+        /** Make sure at least {@code n} ids are available, fetching all needed blocks in one round-trip. */
+        void reserve(int n) throws SQLException {
+            if (available >= n) {
+                return;
+            }
+            // one extra block, because the very first value of a fresh sequence only yields id 1
+            long blocks = (n - available + increment - 1) / increment + 1;
+            try (PreparedStatement ps = conn.prepareStatement("SELECT nextval(?::regclass) FROM generate_series(1, ?)")) {
+                ps.setString(1, sequence);
+                ps.setLong(2, blocks);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        long hi = rs.getLong(1);
+                        long lo = Math.max(1, hi - increment + 1);
+                        ranges.add(new long[] {lo, hi});
+                        available += hi - lo + 1;
+                    }
+                }
+            }
+        }
+
+        long next() {
+            long[] range = ranges.peekFirst();
+            long id = range[0]++;
+            if (range[0] > range[1]) {
+                ranges.pollFirst();
+            }
+            available--;
+            return id;
+        }
+    }
+}
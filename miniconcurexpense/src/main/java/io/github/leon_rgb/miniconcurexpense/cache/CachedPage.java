@@ -0,0 +1,23 @@
+package io.github.leon_rgb.miniconcurexpense.cache;
+
+import io.github.leon_rgb.miniconcurexpense.model.Expense;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+
+/**
+ * Serializable snapshot of one page of expenses: just the rows and the total count.
+ * The Pageable is rebuilt from the request, so it does not have to be stored.
+ */
+record CachedPage(List<Expense> content, long totalElements) {
+
+    static CachedPage of(Page<Expense> page) {
+        return new CachedPage(List.copyOf(page.getContent()), page.getTotalElements());
+    }
+
+    Page<Expense> toPage(Pageable pageable) {
+        return new PageImpl<>(content, pageable, totalElements);
+    }
+}
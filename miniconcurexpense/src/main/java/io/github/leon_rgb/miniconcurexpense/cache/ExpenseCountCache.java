@@ -0,0 +1,54 @@
+package io.github.leon_rgb.miniconcurexpense.cache;
+
+import io.github.leon_rgb.miniconcurexpense.model.ExpenseRollup;
+import io.github.leon_rgb.miniconcurexpense.repository.ExpenseRepository;
+import io.github.leon_rgb.miniconcurexpense.repository.ExpenseRollupRepository;
+import io.github.leon_rgb.miniconcurexpense.tenant.TenantContext;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cheap, slightly stale expense count per tenant for the "page x / y" label of slice listings.
+ *
+ * The count comes from the trigger-maintained expense_rollup row (a primary key lookup); schemas
+ * without a rollup (no row, or no table at all) fall back to the planner's estimate in
+ * pg_class.reltuples. Either way the value
+ * is kept in memory for {@code expenses.slice.count-ttl}, so most requests run no count query at all.
+ */
+@Component
+public class ExpenseCountCache {
+
+    private record Count(long value, long fetchedAtNanos) {}
+
+    private final ExpenseRollupRepository rollupRepository;
+    private final ExpenseRepository repository;
+    private final long ttlNanos;
+    private final ConcurrentHashMap<String, Count> counts = new ConcurrentHashMap<>();
+
+    public ExpenseCountCache(ExpenseRollupRepository rollupRepository,
+                             ExpenseRepository repository,
+                             @Value("${expenses.slice.count-ttl:5s}") Duration ttl) {
+        this.rollupRepository = rollupRepository;
+        this.repository = repository;
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    /**
+     * Approximate number of expenses of the current tenant.
+     */
+    public long approximateCount() {
+        String tenant = TenantContext.getCurrentTenantOrDefault();
+        Count cached = counts.get(tenant);
+        if (cached != null && System.nanoTime() - cached.fetchedAtNanos() < ttlNanos) {
+            return cached.value();
+        }
+        long value = rollupRepository.findRollup()
+                .map(ExpenseRollup::getCount)
+                .orElseGet(repository::estimateCount);
+        counts.put(tenant, new Count(value, System.nanoTime()));
+        return value;
+    }
+}
@@ -0,0 +1,251 @@
+package io.github.leon_rgb.miniconcurexpense.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.leon_rgb.miniconcurexpense.datasource.RecentTenantWrites;
+import io.github.leon_rgb.miniconcurexpense.model.Expense;
+import io.github.leon_rgb.miniconcurexpense.tenant.TenantContext;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.OptionalLong;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Two-tier (local + Redis) cache for pages returned by {@code GET /expenses}.
+ *
+ * Keys are scoped by tenant and contain a per-tenant generation number that lives in Redis.
+ * A write simply increments that generation, so every page cached under the old number
+ * becomes unreachable at once and expires on its own - no key scans are ever needed.
+ *
+ * If Redis is unreachable the cache steps aside and requests go straight to the database
+ * until the back-off period has passed.
+ *
+ * Invalidations, and generation changes made by other app instances, are also reported to
+ * {@link RecentTenantWrites}, which keeps the tenant's reads off the read replicas for a while.
+ * So is the first generation this instance reads for a tenant, since it cannot tell whether that
+ * one is new.
+ *
+ * The generation doubles as the tenant's version stamp for conditional GETs (see {@link #version()}).
+ * A lost generation key (Redis flushed or restarted without persistence) is re-created from the
+ * clock rather than from 0, so stamps handed out before the loss are never reused.
+ */
+@Component
+public class ExpensePageCache {
+
+    private static final String KEY_PREFIX = "expenses:";
+
+    private record Generation(long value, long fetchedAtNanos) {}
+
+    private final StringRedisTemplate redis;
+    private final ObjectMapper objectMapper;
+    private final RecentTenantWrites recentWrites;
+    private final boolean enabled;
+    private final Duration pageTtl;
+    private final long generationTtlNanos;
+    private final long redisBackoffNanos;
+
+    private final NearCache<String, CachedPage> nearCache;
+    private final ConcurrentHashMap<String, Generation> generations = new ConcurrentHashMap<>();
+    private volatile long redisRetryAtNanos = System.nanoTime();
+
+    private final Counter localHits;
+    private final Counter redisHits;
+    private final Counter misses;
+    private final Counter bypassed;
+
+    public ExpensePageCache(StringRedisTemplate redis,
+                            ObjectMapper objectMapper,
+                            RecentTenantWrites recentWrites,
+                            MeterRegistry meterRegistry,
+                            @Value("${expenses.cache.enabled:true}") boolean enabled,
+                            @Value("${expenses.cache.page-ttl:10m}") Duration pageTtl,
+                            @Value("${expenses.cache.generation-ttl:500ms}") Duration generationTtl,
+                            @Value("${expenses.cache.redis-backoff:30s}") Duration redisBackoff,
+                            @Value("${expenses.cache.near-cache.max-entries:1000}") int nearCacheMaxEntries,
+                            @Value("${expenses.cache.near-cache.ttl:30s}") Duration nearCacheTtl) {
+        this.redis = redis;
+        this.objectMapper = objectMapper;
+        this.recentWrites = recentWrites;
+        this.enabled = enabled;
+        this.pageTtl = pageTtl;
+        this.generationTtlNanos = generationTtl.toNanos();
+        this.redisBackoffNanos = redisBackoff.toNanos();
+        this.nearCache = new NearCache<>(nearCacheMaxEntries, nearCacheTtl.toMillis());
+
+        this.localHits = cacheCounter(meterRegistry, "local_hit");
+        this.redisHits = cacheCounter(meterRegistry, "redis_hit");
+        this.misses = cacheCounter(meterRegistry, "miss");
+        this.bypassed = cacheCounter(meterRegistry, "bypass");
+        Gauge.builder("expenses.page.cache.near.size", nearCache, NearCache::size)
+                .description("Entries held in the in-process page cache")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Return the requested page for the current tenant, using the loader only on a miss.
+     */
+    public Page<Expense> getPage(Pageable pageable, Supplier<Page<Expense>> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        String tenant = TenantContext.getCurrentTenantOrDefault();
+        Long generation = currentGeneration(tenant);
+        if (generation == null) {
+            bypassed.increment();
+            return loader.get();
+        }
+
+        String key = pageKey(tenant, generation, pageable);
+        CachedPage cached = nearCache.get(key);
+        if (cached != null) {
+            localHits.increment();
+            return cached.toPage(pageable);
+        }
+
+        cached = readFromRedis(key);
+        if (cached != null) {
+            redisHits.increment();
+            nearCache.put(key, cached);
+            return cached.toPage(pageable);
+        }
+
+        misses.increment();
+        Page<Expense> page = loader.get();
+        CachedPage fresh = CachedPage.of(page);
+        nearCache.put(key, fresh);
+        writeToRedis(key, fresh);
+        return page;
+    }
+
+    /**
+     * Version stamp of the current tenant's expenses; it changes with every {@link #invalidate()}.
+     * Empty when the cache is disabled or Redis is unreachable, since no stamp can be trusted then.
+     */
+    public OptionalLong version() {
+        if (!enabled) {
+            return OptionalLong.empty();
+        }
+        Long generation = currentGeneration(TenantContext.getCurrentTenantOrDefault());
+        return generation == null ? OptionalLong.empty() : OptionalLong.of(generation);
+    }
+
+    /**
+     * Invalidate every cached page of the current tenant by bumping its generation.
+     * Must be called after each write to the tenant's expense table.
+     */
+    public void invalidate() {
+        String tenant = TenantContext.getCurrentTenantOrDefault();
+        recentWrites.record(tenant);
+        if (!enabled) {
+            return;
+        }
+        generations.remove(tenant);
+        if (!redisAvailable()) {
+            return;
+        }
+        try {
+            Long next = redis.opsForValue().increment(generationKey(tenant));
+            if (next != null && next == 1L) {
+                // the key was missing; move past any value handed out before it was lost
+                next = redis.opsForValue().increment(generationKey(tenant), System.currentTimeMillis());
+            }
+            if (next != null) {
+                remember(tenant, next);
+            }
+        } catch (DataAccessException e) {
+            markRedisDown(e);
+        }
+    }
+
+    private Long currentGeneration(String tenant) {
+        Generation known = generations.get(tenant);
+        if (known != null && System.nanoTime() - known.fetchedAtNanos() < generationTtlNanos) {
+            return known.value();
+        }
+        if (!redisAvailable()) {
+            return null;
+        }
+        try {
+            String raw = redis.opsForValue().get(generationKey(tenant));
+            if (raw == null) {
+                redis.opsForValue().setIfAbsent(generationKey(tenant), String.valueOf(System.currentTimeMillis()));
+                raw = redis.opsForValue().get(generationKey(tenant));
+            }
+            long value = raw == null ? 0L : Long.parseLong(raw);
+            if (known == null || value > known.value()) {
+                // another app instance wrote, or may have (nothing known to compare with: first look
+                // at the tenant, or just invalidated); its commit may not have reached the read
+                // replicas yet, and a page loaded from one would be cached under this generation
+                recentWrites.record(tenant);
+            }
+            remember(tenant, value);
+            return value;
+        } catch (DataAccessException e) {
+            markRedisDown(e);
+            return null;
+        }
+    }
+
+    // never let a slow reader overwrite a newer generation written by a concurrent invalidate()
+    private void remember(String tenant, long value) {
+        Generation fresh = new Generation(value, System.nanoTime());
+        generations.merge(tenant, fresh, (old, neu) -> neu.value() >= old.value() ? neu : old);
+    }
+
+    private CachedPage readFromRedis(String key) {
+        try {
+            String json = redis.opsForValue().get(key);
+            return json == null ? null : objectMapper.readValue(json, CachedPage.class);
+        } catch (DataAccessException e) {
+            markRedisDown(e);
+        } catch (JsonProcessingException e) {
+            System.err.println("Discarding unreadable cache entry " + key + ": " + e.getMessage());
+        }
+        return null;
+    }
+
+    private void writeToRedis(String key, CachedPage page) {
+        try {
+            redis.opsForValue().set(key, objectMapper.writeValueAsString(page), pageTtl);
+        } catch (DataAccessException e) {
+            markRedisDown(e);
+        } catch (JsonProcessingException e) {
+            System.err.println("Could not serialize cache entry " + key + ": " + e.getMessage());
+        }
+    }
+
+    private boolean redisAvailable() {
+        return System.nanoTime() - redisRetryAtNanos >= 0;
+    }
+
+    private void markRedisDown(DataAccessException e) {
+        redisRetryAtNanos = System.nanoTime() + redisBackoffNanos;
+        System.err.println("Redis unavailable, bypassing expense page cache: " + e.getMessage());
+    }
+
+    private static String generationKey(String tenant) {
+        return KEY_PREFIX + tenant + ":gen";
+    }
+
+    private static String pageKey(String tenant, long generation, Pageable pageable) {
+        return KEY_PREFIX + tenant + ":" + generation + ":page:" + pageable.getPageNumber()
+                + ":" + pageable.getPageSize() + ":" + pageable.getSort().toString().replace(' ', '_');
+    }
+
+    private static Counter cacheCounter(MeterRegistry registry, String result) {
+        return Counter.builder("expenses.page.cache")
+                .description("Lookups against the expense page cache")
+                .tag("result", result)
+                .register(registry);
+    }
+}
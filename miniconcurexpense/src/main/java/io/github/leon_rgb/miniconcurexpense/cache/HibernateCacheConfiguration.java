@@ -0,0 +1,53 @@
+package io.github.leon_rgb.miniconcurexpense.cache;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import io.github.leon_rgb.miniconcurexpense.model.Expense;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.time.Duration;
+import java.util.OptionalLong;
+
+/**
+ * Caffeine-backed JCache region for Hibernate's second-level cache of Expense entities.
+ *
+ * The region is shared by all tenants: in multi-tenant mode Hibernate puts the tenant identifier
+ * into every cache key, so an entry cached for one schema is never returned for another. Size and
+ * TTL bounds therefore apply to the region as a whole, not per tenant: Hibernate keeps one region
+ * per entity, and splitting it by tenant would take a custom RegionFactory. A tenant with many
+ * lookups can still not simply flush the others out, since Caffeine admits a new entry over a
+ * victim only if it has been asked for more often (TinyLFU), so rows that others keep reading
+ * stay, while one-off lookups of the busy tenant are the first to go.
+ *
+ * The region is local to each app instance and writes made on other instances do not invalidate
+ * it, so its TTL is how long {@code GET /expenses/{id}} may still return a row that was changed or
+ * deleted elsewhere. It defaults to {@code expenses.replicas.max-lag}, the staleness reads already
+ * accept when they are served by a read replica. With the 1s default the cache only absorbs bursts
+ * of lookups of the same rows; a longer TTL saves more database reads at the price of serving
+ * other instances' changes that much later. There is no query cache (see ExpenseRepository).
+ * Bulk reads such as the export stream bypass the region.
+ */
+@Configuration
+public class HibernateCacheConfiguration {
+
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager(
+            @Value("${expenses.l2-cache.entity.max-entries:50000}") long entityMaxEntries,
+            @Value("${expenses.l2-cache.entity.ttl:${expenses.replicas.max-lag:1s}}") Duration entityTtl) {
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName()).getCacheManager();
+        cacheManager.createCache(Expense.CACHE_REGION, region(entityMaxEntries, entityTtl));
+        return cacheManager;
+    }
+
+    private static CaffeineConfiguration<Object, Object> region(long maxEntries, Duration ttl) {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        configuration.setMaximumSize(OptionalLong.of(maxEntries));
+        configuration.setExpireAfterWrite(OptionalLong.of(ttl.toNanos()));
+        configuration.setStatisticsEnabled(true);
+        return configuration;
+    }
+}
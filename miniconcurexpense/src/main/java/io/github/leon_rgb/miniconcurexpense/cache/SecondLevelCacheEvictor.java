@@ -0,0 +1,28 @@
+package io.github.leon_rgb.miniconcurexpense.cache;
+
+import io.github.leon_rgb.miniconcurexpense.model.Expense;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Writes that bypass Hibernate (COPY import, the synthetic data generator) are invisible to the
+ * second-level cache, so cached entities would keep returning old rows until their TTL ran out.
+ * Callers of such writes evict the Expense entries here; Hibernate regions cannot be cleared for
+ * a single tenant, so this affects all tenants of this replica.
+ */
+@Component
+public class SecondLevelCacheEvictor {
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    public SecondLevelCacheEvictor(EntityManagerFactory entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    public void evictExpenses() {
+        Cache cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+        cache.evictEntityData(Expense.class);
+    }
+}
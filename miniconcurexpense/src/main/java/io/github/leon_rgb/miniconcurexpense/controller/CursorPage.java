@@ -0,0 +1,10 @@
+package io.github.leon_rgb.miniconcurexpense.controller;
+
+import java.util.List;
+
+/**
+ * One slice of a keyset-paginated listing. There is deliberately no total count;
+ * {@code nextCursor} is null once the last row has been returned.
+ */
+public record CursorPage<T>(List<T> content, int size, String nextCursor) {
+}
@@ -0,0 +1,7 @@
+package io.github.leon_rgb.miniconcurexpense.controller;
+
+/**
+ * Summary returned by the {@code DELETE /expenses} endpoints.
+ */
+public record DeleteResult(String tenant, long rowsDeleted) {
+}
@@ -1,11 +1,60 @@
 package io.github.leon_rgb.miniconcurexpense.controller;
 
+import io.github.leon_rgb.miniconcurexpense.analytics.ExpenseAnalytics;
+import io.github.leon_rgb.miniconcurexpense.analytics.ExpenseAnalyticsService;
+import io.github.leon_rgb.miniconcurexpense.cache.ExpenseCountCache;
+import io.github.leon_rgb.miniconcurexpense.cache.ExpensePageCache;
+import io.github.leon_rgb.miniconcurexpense.cache.SecondLevelCacheEvictor;
+import io.github.leon_rgb.miniconcurexpense.export.ExpenseExportService;
+import io.github.leon_rgb.miniconcurexpense.export.ExportFormat;
+import io.github.leon_rgb.miniconcurexpense.ingest.BatchResult;
+import io.github.leon_rgb.miniconcurexpense.ingest.ExpenseBatchService;
+import io.github.leon_rgb.miniconcurexpense.ingest.ExpenseCopyImportService;
+import io.github.leon_rgb.miniconcurexpense.ingest.ExpenseWriteBehindQueue;
+import io.github.leon_rgb.miniconcurexpense.ingest.ImportResult;
+import io.github.leon_rgb.miniconcurexpense.ingest.WriteTicket;
 import io.github.leon_rgb.miniconcurexpense.model.Expense;
+import io.github.leon_rgb.miniconcurexpense.model.ExpenseRollup;
 import io.github.leon_rgb.miniconcurexpense.repository.ExpenseRepository;
+import io.github.leon_rgb.miniconcurexpense.repository.ExpenseRollupRepository;
+import io.github.leon_rgb.miniconcurexpense.repository.ExpenseSearchHit;
+import io.github.leon_rgb.miniconcurexpense.repository.ExpenseSearchRepository;
+import io.github.leon_rgb.miniconcurexpense.repository.ExpenseSpecifications;
+import io.github.leon_rgb.miniconcurexpense.retention.ExpensePurgeService;
+import io.github.leon_rgb.miniconcurexpense.tenant.TenantContext;
+import io.github.leon_rgb.miniconcurexpense.tenant.TenantMetrics;
+import io.github.leon_rgb.miniconcurexpense.trace.RequestTrace;
+import jakarta.persistence.LockTimeoutException;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
 
 /**
  * Controller for managing expenses.
@@ -16,9 +65,60 @@ import org.springframework.data.domain.Sort;
 public class ExpenseController {
 
     private final ExpenseRepository repository;
+    private final ExpenseRollupRepository rollupRepository;
+    private final ExpensePageCache pageCache;
+    private final ExpenseBatchService batchService;
+    private final ExpenseExportService exportService;
+    private final ExpenseCopyImportService importService;
+    private final ExpenseWriteBehindQueue writeBehindQueue;
+    private final Duration writeBehindWaitTimeout;
+    private final TenantMetrics tenantMetrics;
+    private final SecondLevelCacheEvictor secondLevelCacheEvictor;
+    private final ExpenseCountCache countCache;
+    private final ExpenseSearchRepository searchRepository;
+    private final int searchMaxCandidates;
+    private final int filterMinPrefixLength;
+    private final ExpensePurgeService purgeService;
+    private final int deleteMaxIds;
+    private final int hotMonths;
+    private final ExpenseAnalyticsService analytics;
 
-    public ExpenseController(ExpenseRepository repository) {
+    public ExpenseController(ExpenseRepository repository,
+                             ExpenseRollupRepository rollupRepository,
+                             ExpensePageCache pageCache,
+                             ExpenseBatchService batchService,
+                             ExpenseExportService exportService,
+                             ExpenseCopyImportService importService,
+                             ExpenseWriteBehindQueue writeBehindQueue,
+                             @Value("${expenses.write-behind.wait-timeout:5s}") Duration writeBehindWaitTimeout,
+                             TenantMetrics tenantMetrics,
+                             SecondLevelCacheEvictor secondLevelCacheEvictor,
+                             ExpenseCountCache countCache,
+                             ExpenseSearchRepository searchRepository,
+                             @Value("${expenses.search.max-candidates:10000}") int searchMaxCandidates,
+                             @Value("${expenses.filter.min-prefix-length:2}") int filterMinPrefixLength,
+                             ExpensePurgeService purgeService,
+                             @Value("${expenses.delete.max-ids:10000}") int deleteMaxIds,
+                             @Value("${expenses.partitions.hot-months:2}") int hotMonths,
+                             ExpenseAnalyticsService analytics) {
         this.repository = repository;
+        this.rollupRepository = rollupRepository;
+        this.pageCache = pageCache;
+        this.batchService = batchService;
+        this.exportService = exportService;
+        this.importService = importService;
+        this.writeBehindQueue = writeBehindQueue;
+        this.writeBehindWaitTimeout = writeBehindWaitTimeout;
+        this.tenantMetrics = tenantMetrics;
+        this.secondLevelCacheEvictor = secondLevelCacheEvictor;
+        this.countCache = countCache;
+        this.searchRepository = searchRepository;
+        this.searchMaxCandidates = searchMaxCandidates;
+        this.filterMinPrefixLength = filterMinPrefixLength;
+        this.purgeService = purgeService;
+        this.deleteMaxIds = deleteMaxIds;
+        this.hotMonths = Math.max(1, hotMonths);
+        this.analytics = analytics;
     }
 
     /**
@@ -26,27 +126,494 @@ public class ExpenseController {
      * appear first. Query params:
      *   ?page=0 (default)
      *   &size=20 (default)
+     * Pages are served from the tenant-scoped page cache when possible, and not at all
+     * (304) when the client's ETag is still current. Pages within the recent months only read
+     * their partitions (see {@link #newestSlice}).
      */
     @GetMapping
     public Page<Expense> getAll(
             @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size,
+            ServletWebRequest request
+    ) {
+        if (notModified(request)) {
+            return null;
+        }
+        Pageable pageable = PageRequest.of(page, size, Sort.by("id").descending());
+        Page<Expense> result = pageCache.getPage(pageable, () -> newestPage(pageable));
+        tenantMetrics.pageRows(TenantContext.getCurrentTenant()).record(result.getNumberOfElements());
+        RequestTrace.addRows(result.getNumberOfElements());
+        return result;
+    }
+
+    /**
+     * Count-free variant of {@link #getAll}, selected with {@code mode=slice}. Query params:
+     *   ?mode=slice
+     *   &page=0 (default)
+     *   &size=20 (default)
+     *   &exactCount=false (default) - true runs a real count(*) for the total
+     * hasNext is always exact; by default the total is the tenant's cached approximate count.
+     */
+    @GetMapping(params = "mode=slice")
+    public SlicePage<Expense> getSlice(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "false") boolean exactCount,
+            ServletWebRequest request
+    ) {
+        if (notModified(request)) {
+            return null;
+        }
+        Pageable pageable = PageRequest.of(page, size, Sort.by("id").descending());
+        Slice<Expense> slice = newestSlice(pageable);
+        tenantMetrics.pageRows(TenantContext.getCurrentTenant()).record(slice.getNumberOfElements());
+        RequestTrace.addRows(slice.getNumberOfElements());
+
+        long total = exactCount ? repository.count() : countCache.approximateCount();
+        // an estimate must at least cover what this request has already seen
+        long seen = (long) page * size + slice.getNumberOfElements() + (slice.hasNext() ? 1 : 0);
+        total = Math.max(total, seen);
+        int totalPages = (int) ((total + size - 1) / size);
+        return new SlicePage<>(slice.getContent(), page, size, slice.hasNext(), total, totalPages, exactCount);
+    }
+
+    /**
+     * Keyset (cursor) variant of {@link #getAll}, selected by the presence of {@code after}.
+     * Query params:
+     *   ?after= (empty for the first page, otherwise the nextCursor of the previous response)
+     *   &size=20 (default)
+     * No count query is run, so latency stays flat however deep the client pages.
+     */
+    @GetMapping(params = "after")
+    public CursorPage<Expense> getAfter(
+            @RequestParam String after,
+            @RequestParam(defaultValue = "20") int size,
+            ServletWebRequest request
+    ) {
+        if (size < 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "size must be at least 1");
+        }
+        if (notModified(request)) {
+            return null;
+        }
+        Long afterId = ExpenseCursor.decode(after);
+        // fetch one extra row to find out whether another page exists
+        Limit limit = Limit.of(size + 1);
+        List<Expense> rows = afterId == null
+                ? newest(limit)
+                : repository.findByIdLessThanOrderByIdDesc(afterId, limit);
+
+        if (rows.size() <= size) {
+            tenantMetrics.pageRows(TenantContext.getCurrentTenant()).record(rows.size());
+            RequestTrace.addRows(rows.size());
+            return new CursorPage<>(rows, size, null);
+        }
+        List<Expense> content = rows.subList(0, size);
+        tenantMetrics.pageRows(TenantContext.getCurrentTenant()).record(size);
+        RequestTrace.addRows(size);
+        String nextCursor = ExpenseCursor.encode(content.get(size - 1).getId());
+        return new CursorPage<>(List.copyOf(content), size, nextCursor);
+    }
+
+    /**
+     * Conditional GET for the listings. The strong ETag is built from the tenant's version stamp
+     * (bumped by every write, see ExpensePageCache#version), the tenant and the response encoding,
+     * so an unchanged listing is answered with 304 before any query runs. Without a stamp
+     * (Redis unreachable) no ETag is sent and the listing is always served.
+     */
+    private boolean notModified(ServletWebRequest request) {
+        OptionalLong version = pageCache.version();
+        if (version.isEmpty()) {
+            return false;
+        }
+        HttpServletResponse response = request.getResponse();
+        if (response != null) {
+            // the browser may keep the body but has to revalidate it on every use
+            response.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache, private");
+            response.addHeader(HttpHeaders.VARY, "Accept, X-Tenant");
+        }
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        String encoding = accept != null && accept.contains(HttpEncodingConfiguration.CBOR_VALUE) ? "cbor" : "json";
+        String tenant = TenantContext.getCurrentTenantOrDefault();
+        String etag = "\"" + Long.toHexString(version.getAsLong()) + "-" + Integer.toHexString(tenant.hashCode())
+                + "-" + encoding + "\"";
+        return request.checkNotModified(etag);
+    }
+
+    /**
+     * The newest expenses, looked up in the {@code expenses.partitions.hot-months} most recent
+     * monthly partitions first. Only a tenant with too few recent rows to fill the page falls back
+     * to scanning every partition.
+     */
+    private List<Expense> newest(Limit limit) {
+        List<Expense> recent = repository.findByCreatedAtGreaterThanEqualOrderByIdDesc(hotSince(), limit);
+        return recent.size() >= limit.max() ? recent : repository.findAllByOrderByIdDesc(limit);
+    }
+
+    /**
+     * Offset page of the id-descending listing, pruned to the hot months like {@link #newest}.
+     * The recent rows answer it only if there are more of them after this page; otherwise the
+     * page (or its hasNext) may depend on older rows and every partition is scanned.
+     */
+    private Slice<Expense> newestSlice(Pageable pageable) {
+        Slice<Expense> recent = repository.findSliceByCreatedAtGreaterThanEqual(hotSince(), pageable);
+        return recent.hasNext() ? recent : repository.findSliceBy(pageable);
+    }
+
+    // the total still counts every partition, as the count query of findAll(pageable) did
+    private Page<Expense> newestPage(Pageable pageable) {
+        Slice<Expense> recent = repository.findSliceByCreatedAtGreaterThanEqual(hotSince(), pageable);
+        return recent.hasNext()
+                ? new PageImpl<>(recent.getContent(), pageable, repository.count())
+                : repository.findAll(pageable);
+    }
+
+    private Instant hotSince() {
+        return YearMonth.now(ZoneOffset.UTC).minusMonths(hotMonths - 1)
+                .atDay(1).atStartOfDay(ZoneOffset.UTC).toInstant();
+    }
+
+    /**
+     * Ranked full-text / fuzzy search over descriptions. Query params:
+     *   ?q= search terms (web-search syntax: "quoted phrase", -excluded, or)
+     *   &after= (optional, the nextCursor of the previous response)
+     *   &size=20 (default)
+     * Each hit carries its rank and an HTML snippet: the description text escaped, the matched
+     * words in <b>...</b>.
+     */
+    @GetMapping("/search")
+    public CursorPage<ExpenseSearchHit> search(
+            @RequestParam String q,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "20") int size
+    ) {
+        if (q.isBlank() || q.length() > 200) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "q must be 1 to 200 characters");
+        }
+        if (size < 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "size must be at least 1");
+        }
+        ExpenseCursor.SearchPosition position = ExpenseCursor.decodeSearch(after);
+        List<ExpenseSearchHit> hits = position == null
+                ? searchRepository.search(q, searchMaxCandidates, size + 1)
+                : searchRepository.searchAfter(q, searchMaxCandidates, position.rank(), position.id(), size + 1);
+
+        if (hits.size() <= size) {
+            RequestTrace.addRows(hits.size());
+            return new CursorPage<>(hits, size, null);
+        }
+        List<ExpenseSearchHit> content = List.copyOf(hits.subList(0, size));
+        ExpenseSearchHit last = content.get(size - 1);
+        RequestTrace.addRows(size);
+        return new CursorPage<>(content, size, ExpenseCursor.encodeSearch(last.getRank(), last.getId()));
+    }
+
+    /**
+     * Filtered, sorted listing with keyset pagination. Query params:
+     *   ?minAmount= / &maxAmount= (optional, inclusive)
+     *   &descriptionPrefix= (optional, case-insensitive, at least expenses.filter.min-prefix-length characters)
+     *   &sort=id (default) or amount
+     *   &direction=desc (default) or asc
+     *   &after= (optional, the nextCursor of the previous response)
+     *   &size=20 (default)
+     * Only filters and sort orders backed by an index are accepted (see ExpenseSpecifications);
+     * everything else is rejected with 400 instead of turning into a full table scan.
+     */
+    @GetMapping("/filter")
+    public CursorPage<Expense> filter(
+            @RequestParam(required = false) Double minAmount,
+            @RequestParam(required = false) Double maxAmount,
+            @RequestParam(required = false) String descriptionPrefix,
+            @RequestParam(defaultValue = "id") String sort,
+            @RequestParam(defaultValue = "desc") String direction,
+            @RequestParam(required = false) String after,
             @RequestParam(defaultValue = "20") int size
     ) {
-        return repository.findAll(PageRequest.of(page, size, Sort.by("id").descending()));
+        if (size < 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "size must be at least 1");
+        }
+        if (!sort.equals("id") && !sort.equals("amount")) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "sort must be 'id' or 'amount'");
+        }
+        if (!direction.equalsIgnoreCase("desc") && !direction.equalsIgnoreCase("asc")) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "direction must be 'asc' or 'desc'");
+        }
+        if (minAmount != null && maxAmount != null && minAmount > maxAmount) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "minAmount must not be greater than maxAmount");
+        }
+        if (descriptionPrefix != null && descriptionPrefix.length() < filterMinPrefixLength) {
+            // a one-letter prefix matches a large part of the table, so the index would not help
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "descriptionPrefix must have at least " + filterMinPrefixLength + " characters");
+        }
+        boolean descending = direction.equalsIgnoreCase("desc");
+        boolean byAmount = sort.equals("amount");
+
+        List<Specification<Expense>> conditions = new ArrayList<>();
+        if (minAmount != null) conditions.add(ExpenseSpecifications.amountAtLeast(minAmount));
+        if (maxAmount != null) conditions.add(ExpenseSpecifications.amountAtMost(maxAmount));
+        if (descriptionPrefix != null) conditions.add(ExpenseSpecifications.descriptionStartsWith(descriptionPrefix));
+        if (byAmount) {
+            ExpenseCursor.AmountPosition position = ExpenseCursor.decodeAmount(after);
+            if (position != null) conditions.add(ExpenseSpecifications.amountAfter(position.amount(), position.id(), descending));
+        } else {
+            Long afterId = ExpenseCursor.decode(after);
+            if (afterId != null) conditions.add(ExpenseSpecifications.idAfter(afterId, descending));
+        }
+
+        Sort.Direction sortDirection = descending ? Sort.Direction.DESC : Sort.Direction.ASC;
+        // id breaks ties between equal amounts, matching the (amount, id) index
+        Sort order = byAmount ? Sort.by(sortDirection, "amount", "id") : Sort.by(sortDirection, "id");
+        List<Expense> rows = repository.findBy(Specification.allOf(conditions),
+                query -> query.sortBy(order).limit(size + 1).all());
+
+        if (rows.size() <= size) {
+            RequestTrace.addRows(rows.size());
+            return new CursorPage<>(rows, size, null);
+        }
+        List<Expense> content = List.copyOf(rows.subList(0, size));
+        Expense last = content.get(size - 1);
+        RequestTrace.addRows(size);
+        String nextCursor = byAmount ? ExpenseCursor.encodeAmount(last.getAmount(), last.getId()) : ExpenseCursor.encode(last.getId());
+        return new CursorPage<>(content, size, nextCursor);
+    }
+
+    /**
+     * A single expense. Repeated lookups are answered from the second-level cache.
+     */
+    @GetMapping("/{id}")
+    public Expense getById(@PathVariable Long id) {
+        return repository.findById(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Expense " + id + " not found"));
+    }
+
+    /**
+     * Distribution of the current tenant's expenses, computed from an in-memory columnar snapshot
+     * (see ExpenseAnalyticsService) instead of the database. Query params:
+     *   ?percentiles=50,90,99 (default) nearest-rank percentiles of the amount
+     *   &bins=20 (default) equal-width histogram buckets between the smallest and largest amount
+     *   &top=10 (default) largest expenses
+     *   &topDescriptions=10 (default) descriptions with the highest total amount
+     */
+    @GetMapping("/analytics")
+    public ExpenseAnalytics analytics(
+            @RequestParam(defaultValue = "50,90,99") double[] percentiles,
+            @RequestParam(defaultValue = "20") int bins,
+            @RequestParam(defaultValue = "10") int top,
+            @RequestParam(defaultValue = "10") int topDescriptions
+    ) {
+        if (percentiles.length > 20) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "at most 20 percentiles");
+        }
+        for (double p : percentiles) {
+            if (!(p >= 0 && p <= 100)) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "percentiles must be between 0 and 100");
+            }
+        }
+        if (bins < 1 || bins > 1000) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "bins must be 1 to 1000");
+        }
+        if (top < 0 || top > 1000 || topDescriptions < 0 || topDescriptions > 1000) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "top and topDescriptions must be 0 to 1000");
+        }
+        return analytics.analyze(percentiles, bins, top, topDescriptions);
+    }
+
+    /**
+     * Count, sum, min and max of the current tenant's expenses, read from the
+     * trigger-maintained rollup row instead of scanning the expense table.
+     */
+    @GetMapping("/summary")
+    public ExpenseRollup summary() {
+        return rollupRepository.findRollup()
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "No rollup for this tenant, run POST /expenses/summary/rebuild"));
+    }
+
+    /**
+     * Recompute the rollup of the current tenant from scratch, e.g. after restoring data
+     * with triggers disabled.
+     */
+    @PostMapping("/summary/rebuild")
+    public Map<String, Long> rebuildSummary() {
+        return Map.of("count", rollupRepository.rebuild());
+    }
+
+    /**
+     * Stream every expense of the current tenant. Query params:
+     *   ?format=ndjson (default) or csv
+     * Rows are read through a server-side cursor, so memory use does not depend on the row count.
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export(@RequestParam(defaultValue = "ndjson") String format) {
+        ExportFormat exportFormat;
+        try {
+            exportFormat = ExportFormat.valueOf(format.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unsupported export format: " + format);
+        }
+        String fileName = "expenses." + exportFormat.fileExtension();
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.contentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
+                .body(exportService.export(exportFormat));
     }
 
     @PostMapping
     public Expense create(@RequestBody Expense expense) {
-        return repository.save(expense);
+        Expense saved = repository.save(expense);
+        pageCache.invalidate();
+        analytics.added(saved);
+        return saved;
+    }
+
+    /**
+     * Asynchronous create: the expense is queued and committed together with other writes of
+     * the same tenant, and the response only carries a ticket. Query params:
+     *   ?wait=false (default) returns 202 right away
+     *   ?wait=true waits for the group commit (up to expenses.write-behind.wait-timeout) and returns 201 with the id
+     * Returns 400 for an expense that could not be stored and 429 when the tenant's queue is full.
+     */
+    @PostMapping("/async")
+    public ResponseEntity<WriteTicket> createAsync(
+            @RequestBody Expense expense,
+            @RequestParam(defaultValue = "false") boolean wait
+    ) {
+        Optional<String> ticket = writeBehindQueue.submit(expense);
+        if (ticket.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).header(HttpHeaders.RETRY_AFTER, "1").build();
+        }
+        if (!wait) {
+            return ResponseEntity.accepted().body(writeBehindQueue.status(ticket.get()).orElseThrow());
+        }
+        WriteTicket result = writeBehindQueue.await(ticket.get(), writeBehindWaitTimeout);
+        return switch (result.status()) {
+            case COMMITTED -> ResponseEntity.status(HttpStatus.CREATED).body(result);
+            case QUEUED -> ResponseEntity.accepted().body(result);
+            case FAILED -> ResponseEntity.internalServerError().body(result);
+        };
+    }
+
+    /**
+     * State of a ticket returned by {@code POST /expenses/async}.
+     */
+    @GetMapping("/async/{ticket}")
+    public WriteTicket asyncStatus(@PathVariable String ticket) {
+        return writeBehindQueue.status(ticket)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown or expired ticket"));
+    }
+
+    /**
+     * Bulk insert. Accepts a JSON array or NDJSON (one expense object per line) and
+     * inserts it in chunks, one transaction per chunk. Query params:
+     *   ?chunkSize= (optional, defaults to expenses.batch.chunk-size)
+     * Returns the outcome of every row, in request order.
+     */
+    @PostMapping(path = "/batch", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public BatchResult createBatch(
+            InputStream body,
+            @RequestParam(required = false) Integer chunkSize
+    ) throws IOException {
+        BatchResult result = batchService.ingest(body, chunkSize);
+        if (result.created() > 0) {
+            pageCache.invalidate();
+        }
+        return result;
+    }
+
+    /**
+     * Bulk load a CSV file (columns: description,amount) with PostgreSQL COPY.
+     * The raw request body is streamed to the database. Query params:
+     *   ?header=true (default) when the first line is a header row
+     * Returns 400 when a row or the header is rejected; nothing is loaded then.
+     */
+    @PostMapping(path = "/import", consumes = "text/csv")
+    public ImportResult importCsv(
+            InputStream body,
+            @RequestParam(defaultValue = "true") boolean header
+    ) throws IOException {
+        ImportResult result = importService.importCsv(body, header);
+        if (result.rowsLoaded() > 0) {
+            pageCache.invalidate();
+            analytics.invalidate();
+            secondLevelCacheEvictor.evictExpenses();
+        }
+        return result;
     }
 
+    /**
+     * Delete one expense with a single DELETE statement (no SELECT beforehand).
+     * Deleting an id that does not exist is not an error; rowsDeleted is 0 then.
+     */
     @DeleteMapping("/{id}")
-    public void delete(@PathVariable Long id) {
-        repository.deleteById(id);
+    public DeleteResult delete(@PathVariable Long id) {
+        int rows = repository.deleteRowById(id);
+        analytics.removed(id);
+        return deleted(rows);
     }
-    
+
+    /**
+     * Set-based deletes; no entities are loaded. Query params:
+     *   ?ids=1,2,3                 the listed expenses, as one {@code WHERE id = ANY(?)} statement
+     *   ?fromId=100&toId=200       every expense in the inclusive id range; either bound may be left out
+     *   (none)                     every expense of the tenant, with TRUNCATE
+     */
     @DeleteMapping()
-    public void delete() {
-        repository.deleteAll();
+    public DeleteResult delete(
+            @RequestParam(required = false) String ids,
+            @RequestParam(required = false) Long fromId,
+            @RequestParam(required = false) Long toId
+    ) {
+        if (ids != null && (fromId != null || toId != null)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "ids cannot be combined with fromId/toId");
+        }
+        if (ids != null) {
+            Long[] parsed = parseIds(ids);
+            int rows = repository.deleteRowsByIds(parsed);
+            analytics.removed(parsed);
+            return deleted(rows);
+        }
+        if (fromId != null || toId != null) {
+            long from = fromId != null ? fromId : Long.MIN_VALUE;
+            long to = toId != null ? toId : Long.MAX_VALUE;
+            if (from > to) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "fromId must not be greater than toId");
+            }
+            int rows = repository.deleteRowsByIdRange(from, to);
+            analytics.removedRange(from, to);
+            return deleted(rows);
+        }
+        try {
+            long rows = purgeService.purgeCurrentTenant();
+            analytics.invalidate();
+            return deleted(rows);
+        } catch (LockTimeoutException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                    "Expense table is busy (e.g. a running export), try again later");
+        }
+    }
+
+    // an empty or malformed list is rejected rather than treated as "no filter", which would purge
+    private Long[] parseIds(String ids) {
+        String[] parts = ids.split(",");
+        if (ids.isBlank() || parts.length > deleteMaxIds) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "ids must list 1 to " + deleteMaxIds + " ids");
+        }
+        Long[] parsed = new Long[parts.length];
+        try {
+            for (int i = 0; i < parts.length; i++) {
+                parsed[i] = Long.valueOf(parts[i].trim());
+            }
+        } catch (NumberFormatException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "ids must be a comma-separated list of numbers");
+        }
+        return parsed;
+    }
+
+    // bulk statements bypass the persistence context; Hibernate evicts the affected L2 regions itself
+    private DeleteResult deleted(long rows) {
+        if (rows > 0) {
+            pageCache.invalidate();
+        }
+        return new DeleteResult(TenantContext.getCurrentTenantOrDefault(), rows);
     }
 }
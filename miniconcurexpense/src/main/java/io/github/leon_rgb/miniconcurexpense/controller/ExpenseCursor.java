@@ -0,0 +1,93 @@
+package io.github.leon_rgb.miniconcurexpense.controller;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.function.Function;
+
+/**
+ * Encodes and decodes the opaque cursors used by keyset pagination: {@code id:<id>} for
+ * id-ordered listings, {@code amount:<amount>:<id>} for amount-ordered ones and
+ * {@code rank:<rank>:<id>} for search results.
+ * Clients must treat the value as a token and only pass it back via {@code ?after=}.
+ */
+final class ExpenseCursor {
+
+    private static final String PREFIX = "id:";
+    private static final String SEARCH_PREFIX = "rank:";
+    private static final String AMOUNT_PREFIX = "amount:";
+
+    /** Position after a search hit. */
+    record SearchPosition(double rank, long id) {}
+
+    /** Position after a row of an amount-ordered listing. */
+    record AmountPosition(double amount, long id) {}
+
+    private ExpenseCursor() {}
+
+    static String encode(long lastId) {
+        return encodeRaw(PREFIX + lastId);
+    }
+
+    /**
+     * @return the id to seek below, or null when the cursor is empty (first page)
+     */
+    static Long decode(String cursor) {
+        return decodeParts(cursor, PREFIX, 1, parts -> Long.parseLong(parts[0]));
+    }
+
+    static String encodeAmount(double amount, long lastId) {
+        return encodeRaw(AMOUNT_PREFIX + amount + ":" + lastId);
+    }
+
+    /**
+     * @return the position to continue after, or null when the cursor is empty (first page)
+     */
+    static AmountPosition decodeAmount(String cursor) {
+        return decodeParts(cursor, AMOUNT_PREFIX, 2,
+                parts -> new AmountPosition(Double.parseDouble(parts[0]), Long.parseLong(parts[1])));
+    }
+
+    static String encodeSearch(double rank, long lastId) {
+        // Double.toString round-trips exactly, so the next page starts precisely after this hit
+        return encodeRaw(SEARCH_PREFIX + rank + ":" + lastId);
+    }
+
+    /**
+     * @return the search position to continue after, or null when the cursor is empty (first page)
+     */
+    static SearchPosition decodeSearch(String cursor) {
+        return decodeParts(cursor, SEARCH_PREFIX, 2,
+                parts -> new SearchPosition(Double.parseDouble(parts[0]), Long.parseLong(parts[1])));
+    }
+
+    private static String encodeRaw(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decode a cursor, check its prefix, split the rest into {@code parts} colon-separated values
+     * and build the position from them. Anything malformed, including values that do not parse,
+     * is a 400; an empty cursor (first page) gives null.
+     */
+    private static <T> T decodeParts(String cursor, String prefix, int parts, Function<String[], T> build) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (!raw.startsWith(prefix)) {
+                throw new IllegalArgumentException("unknown cursor format");
+            }
+            String[] values = raw.substring(prefix.length()).split(":", -1);
+            if (values.length != parts) {
+                throw new IllegalArgumentException("unknown cursor format");
+            }
+            return build.apply(values);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor: " + cursor, e);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package io.github.leon_rgb.miniconcurexpense.controller;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * CBOR as a compact alternative to JSON: clients that send {@code Accept: application/cbor} get
+ * the same objects in binary form. JSON stays the default for every other Accept header.
+ *
+ * Spring MVC registers a CBOR converter by itself once jackson-dataformat-cbor is on the classpath;
+ * this bean replaces it in the same position with one built from Spring Boot's Jackson settings,
+ * so both encodings name and format properties the same way.
+ * Response compression (gzip) is configured under {@code server.compression}.
+ */
+@Configuration
+public class HttpEncodingConfiguration {
+
+    public static final String CBOR_VALUE = "application/cbor";
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+}
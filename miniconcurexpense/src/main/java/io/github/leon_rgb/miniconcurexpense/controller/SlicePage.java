@@ -0,0 +1,17 @@
+package io.github.leon_rgb.miniconcurexpense.controller;
+
+import java.util.List;
+
+/**
+ * One page of an offset listing that was fetched without a count query.
+ * {@code hasNext} is exact; {@code totalElements} / {@code totalPages} are only exact when
+ * {@code totalExact} is true. Field names match Spring's Page JSON where they overlap.
+ */
+public record SlicePage<T>(List<T> content,
+                           int number,
+                           int size,
+                           boolean hasNext,
+                           long totalElements,
+                           int totalPages,
+                           boolean totalExact) {
+}
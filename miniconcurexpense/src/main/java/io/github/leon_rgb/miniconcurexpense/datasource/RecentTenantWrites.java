@@ -0,0 +1,53 @@
+package io.github.leon_rgb.miniconcurexpense.datasource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers which tenants wrote recently, so that {@link ReplicaRoutingDataSource} keeps their
+ * reads on the primary until the read replicas have caught up (read-your-writes).
+ *
+ * Writes are reported by the hooks that the write paths already call after committing
+ * ({@code ExpensePageCache.invalidate()} and the {@code ExpenseAnalyticsService} notifications),
+ * and when the page cache sees a tenant's generation move because another app instance wrote.
+ * The window ({@code expenses.replicas.sticky-window}) must be longer than the replica lag that
+ * is still tolerated plus the lag check interval; {@link ReplicaDataSourceConfiguration} warns
+ * if it is not.
+ */
+@Component
+public class RecentTenantWrites {
+
+    private final long windowNanos;
+    private final ConcurrentHashMap<String, Long> lastWriteNanos = new ConcurrentHashMap<>();
+
+    public RecentTenantWrites(@Value("${expenses.replicas.sticky-window:5s}") Duration window) {
+        this.windowNanos = window.toNanos();
+    }
+
+    public void record(String tenant) {
+        lastWriteNanos.put(tenant, System.nanoTime());
+    }
+
+    /**
+     * True while the tenant's last write is less than the sticky window ago.
+     */
+    public boolean isRecent(String tenant) {
+        Long last = lastWriteNanos.get(tenant);
+        if (last == null) {
+            return false;
+        }
+        if (System.nanoTime() - last < windowNanos) {
+            return true;
+        }
+        // expired; a concurrent record() replaced the value and is kept
+        lastWriteNanos.remove(tenant, last);
+        return false;
+    }
+
+    public Duration window() {
+        return Duration.ofNanos(windowNanos);
+    }
+}
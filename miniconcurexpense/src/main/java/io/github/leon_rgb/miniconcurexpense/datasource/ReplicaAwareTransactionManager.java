@@ -0,0 +1,34 @@
+package io.github.leon_rgb.miniconcurexpense.datasource;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+
+/**
+ * JPA transaction manager that lets read-only transactions run on a read replica.
+ *
+ * Hibernate takes the JDBC connection while the transaction begins, before Spring publishes the
+ * read-only flag through {@code TransactionSynchronizationManager}. The flag is therefore handed
+ * to {@link ReplicaRoutingDataSource} directly, for the duration of {@link #doBegin} only; the
+ * connection then stays with the transaction until it completes.
+ */
+public class ReplicaAwareTransactionManager extends JpaTransactionManager {
+
+    public ReplicaAwareTransactionManager(EntityManagerFactory entityManagerFactory) {
+        super(entityManagerFactory);
+    }
+
+    @Override
+    protected void doBegin(Object transaction, TransactionDefinition definition) {
+        if (!definition.isReadOnly()) {
+            super.doBegin(transaction, definition);
+            return;
+        }
+        Boolean previous = ReplicaRoutingDataSource.enterReadOnly();
+        try {
+            super.doBegin(transaction, definition);
+        } finally {
+            ReplicaRoutingDataSource.exitReadOnly(previous);
+        }
+    }
+}
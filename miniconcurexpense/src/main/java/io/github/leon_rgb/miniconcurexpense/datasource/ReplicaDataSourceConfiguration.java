@@ -0,0 +1,93 @@
+package io.github.leon_rgb.miniconcurexpense.datasource;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.transaction.TransactionManagerCustomizers;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * DataSources for the primary and the read replicas listed in {@code expenses.replicas.urls},
+ * and the transaction manager that routes read-only transactions to the replicas.
+ */
+@Configuration
+public class ReplicaDataSourceConfiguration {
+
+    /**
+     * The primary pool, built from {@code spring.datasource} the same way Spring Boot would;
+     * it is declared here only to put {@link ReplicaRoutingDataSource} in front of it.
+     */
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    @Primary
+    public ReplicaRoutingDataSource dataSource(HikariDataSource primaryDataSource,
+                                               DataSourceProperties properties,
+                                               RecentTenantWrites recentWrites,
+                                               MeterRegistry meterRegistry,
+                                               @Value("${expenses.replicas.urls:}") List<String> urls,
+                                               @Value("${expenses.replicas.username:}") String username,
+                                               @Value("${expenses.replicas.password:}") String password,
+                                               @Value("${expenses.replicas.pool-size:10}") int poolSize,
+                                               @Value("${expenses.replicas.connection-timeout:2s}") Duration connectionTimeout,
+                                               @Value("${expenses.replicas.max-lag:1s}") Duration maxLag,
+                                               @Value("${expenses.replicas.lag-check-interval-ms:1000}") long lagCheckIntervalMs) {
+        List<HikariDataSource> replicas = new ArrayList<>();
+        for (String url : urls) {
+            if (url.isBlank()) {
+                continue;
+            }
+            HikariConfig config = new HikariConfig();
+            config.setPoolName("replica-" + (replicas.size() + 1));
+            config.setJdbcUrl(url.trim());
+            config.setUsername(username.isEmpty() ? properties.determineUsername() : username);
+            config.setPassword(password.isEmpty() ? properties.determinePassword() : password);
+            config.setMaximumPoolSize(poolSize);
+            // bounds the wait of a request (and of the lag check) on a replica that went away
+            config.setConnectionTimeout(connectionTimeout.toMillis());
+            config.setReadOnly(true);
+            // start even while a replica is down; it is used once a lag check succeeds
+            config.setInitializationFailTimeout(-1);
+            config.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            replicas.add(new HikariDataSource(config));
+        }
+
+        Duration lagCheckInterval = Duration.ofMillis(lagCheckIntervalMs);
+        if (!replicas.isEmpty()) {
+            System.out.println("Routing read-only transactions to " + replicas.size() + " read replica(s)");
+            if (recentWrites.window().compareTo(maxLag.plus(lagCheckInterval)) <= 0) {
+                System.err.println("expenses.replicas.sticky-window should be longer than max-lag + lag-check-interval-ms, "
+                        + "otherwise a tenant may not see its own writes right after making them");
+            }
+        }
+        return new ReplicaRoutingDataSource(primaryDataSource, replicas, recentWrites, maxLag, lagCheckInterval, meterRegistry);
+    }
+
+    /**
+     * Replaces Spring Boot's JpaTransactionManager, keeping its customizations
+     * ({@code spring.transaction.*}).
+     */
+    @Bean
+    public ReplicaAwareTransactionManager transactionManager(EntityManagerFactory entityManagerFactory,
+                                                             ObjectProvider<TransactionManagerCustomizers> customizers) {
+        ReplicaAwareTransactionManager transactionManager = new ReplicaAwareTransactionManager(entityManagerFactory);
+        customizers.ifAvailable(c -> c.customize(transactionManager));
+        return transactionManager;
+    }
+}
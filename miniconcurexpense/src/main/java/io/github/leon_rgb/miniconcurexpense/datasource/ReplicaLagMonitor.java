@@ -0,0 +1,25 @@
+package io.github.leon_rgb.miniconcurexpense.datasource;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Re-checks the replay lag of the read replicas, see {@link ReplicaRoutingDataSource}.
+ * A replica is only used while these checks keep succeeding.
+ */
+@Component
+public class ReplicaLagMonitor {
+
+    private final ReplicaRoutingDataSource dataSource;
+
+    public ReplicaLagMonitor(ReplicaRoutingDataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    @Scheduled(fixedDelayString = "${expenses.replicas.lag-check-interval-ms:1000}")
+    public void checkReplicas() {
+        if (dataSource.hasReplicas()) {
+            dataSource.checkReplicas();
+        }
+    }
+}
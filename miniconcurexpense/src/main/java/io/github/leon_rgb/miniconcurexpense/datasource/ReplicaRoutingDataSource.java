@@ -0,0 +1,261 @@
+package io.github.leon_rgb.miniconcurexpense.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.github.leon_rgb.miniconcurexpense.tenant.SchemaPerTenantConnectionProvider;
+import io.github.leon_rgb.miniconcurexpense.tenant.TenantContext;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The application's DataSource: hands out read replica connections for read-only work and
+ * primary connections for everything else. {@link SchemaPerTenantConnectionProvider} sits on
+ * top of it and sets the tenant's search_path on whichever connection it gets.
+ *
+ * A connection comes from a replica only if
+ * <ul>
+ *   <li>it is requested inside {@link #readOnly}, which {@link ReplicaAwareTransactionManager}
+ *       does while beginning a {@code @Transactional(readOnly = true)} transaction,</li>
+ *   <li>the current tenant has not written within the sticky window ({@link RecentTenantWrites}), and</li>
+ *   <li>a replica is usable: its last lag check ({@link ReplicaLagMonitor}) is recent, found it
+ *       in recovery with its WAL receiver streaming, and its replay lag within
+ *       {@code expenses.replicas.max-lag}.</li>
+ * </ul>
+ * Usable replicas take turns. A replica that fails to hand out a connection is skipped until
+ * its next successful check. Everything else goes to the primary; without configured replicas
+ * this is a plain pass-through to the primary pool.
+ */
+public class ReplicaRoutingDataSource extends AbstractDataSource {
+
+    // in-recovery flag, WAL receiver status and replay lag in seconds. The lag is 0 while
+    // everything received has been replayed, so an idle primary does not make its replicas look
+    // further and further behind. That is only sound while the WAL receiver is streaming: a standby
+    // cut off from the primary has also replayed everything it received.
+    // pg_stat_wal_receiver has no row without a receiver; its status is NULL unless the user may
+    // read it (pg_read_all_stats).
+    private static final String LAG_QUERY = """
+            SELECT pg_is_in_recovery(),
+                   (SELECT coalesce(status, 'not visible') FROM pg_stat_wal_receiver),
+                   CASE WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0
+                        ELSE EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp())::float8 END
+            """;
+
+    private static final ThreadLocal<Boolean> READ_ONLY = new ThreadLocal<>();
+
+    /**
+     * Connection acquisition that may be served by a read replica.
+     */
+    @FunctionalInterface
+    public interface ConnectionSupplier<T> {
+        T get() throws SQLException;
+    }
+
+    private static final class Replica {
+        final HikariDataSource pool;
+        volatile boolean usable;
+        volatile double lagSeconds = Double.NaN;
+        volatile long checkedAtNanos;
+        String state = "unchecked";  // only touched by the lag checker, for logging changes
+
+        Replica(HikariDataSource pool) {
+            this.pool = pool;
+        }
+
+        String name() {
+            return pool.getPoolName();
+        }
+    }
+
+    private final DataSource primary;
+    private final List<Replica> replicas = new ArrayList<>();
+    private final RecentTenantWrites recentWrites;
+    private final double maxLagSeconds;
+    private final long checkValidNanos;
+    private final AtomicInteger nextReplica = new AtomicInteger();
+
+    private final Counter primaryReadWrite;
+    private final Counter primarySticky;
+    private final Counter primaryNoReplica;
+    private final Counter replicaReadOnly;
+
+    public ReplicaRoutingDataSource(DataSource primary,
+                                    List<HikariDataSource> replicaPools,
+                                    RecentTenantWrites recentWrites,
+                                    Duration maxLag,
+                                    Duration lagCheckInterval,
+                                    MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.recentWrites = recentWrites;
+        this.maxLagSeconds = maxLag.toNanos() / 1e9;
+        // a check older than this no longer vouches for the replica (e.g. the checker is stuck)
+        this.checkValidNanos = lagCheckInterval.multipliedBy(3).toNanos();
+
+        this.primaryReadWrite = routedCounter(meterRegistry, "primary", "read_write");
+        this.primarySticky = routedCounter(meterRegistry, "primary", "recent_write");
+        this.primaryNoReplica = routedCounter(meterRegistry, "primary", "no_usable_replica");
+        this.replicaReadOnly = routedCounter(meterRegistry, "replica", "read_only");
+
+        for (HikariDataSource pool : replicaPools) {
+            Replica replica = new Replica(pool);
+            replicas.add(replica);
+            Gauge.builder("expenses.datasource.replica.lag", replica, r -> r.lagSeconds)
+                    .description("Replay lag of the read replica at its last check (NaN if unknown)")
+                    .baseUnit("seconds")
+                    .tag("replica", replica.name())
+                    .register(meterRegistry);
+            Gauge.builder("expenses.datasource.replica.usable", replica, r -> isUsable(r) ? 1 : 0)
+                    .description("1 while read-only transactions may use the read replica")
+                    .tag("replica", replica.name())
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * Run {@code acquire} so that the connection it obtains may come from a read replica.
+     * Only for work that never writes and tolerates data up to {@code max-lag} old.
+     */
+    public static <T> T readOnly(ConnectionSupplier<T> acquire) throws SQLException {
+        Boolean previous = enterReadOnly();
+        try {
+            return acquire.get();
+        } finally {
+            exitReadOnly(previous);
+        }
+    }
+
+    static Boolean enterReadOnly() {
+        Boolean previous = READ_ONLY.get();
+        READ_ONLY.set(Boolean.TRUE);
+        return previous;
+    }
+
+    static void exitReadOnly(Boolean previous) {
+        if (previous == null) {
+            READ_ONLY.remove();
+        } else {
+            READ_ONLY.set(previous);
+        }
+    }
+
+    public boolean hasReplicas() {
+        return !replicas.isEmpty();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (replicas.isEmpty() || READ_ONLY.get() == null) {
+            primaryReadWrite.increment();
+            return primary.getConnection();
+        }
+        if (recentWrites.isRecent(TenantContext.getCurrentTenantOrDefault())) {
+            primarySticky.increment();
+            return primary.getConnection();
+        }
+        for (int i = 0; i < replicas.size(); i++) {
+            Replica replica = replicas.get(Math.floorMod(nextReplica.getAndIncrement(), replicas.size()));
+            if (!isUsable(replica)) {
+                continue;
+            }
+            try {
+                Connection connection = replica.pool.getConnection();
+                replicaReadOnly.increment();
+                return connection;
+            } catch (SQLException e) {
+                replica.usable = false;
+                System.err.println("Read replica " + replica.name() + " unavailable, skipping it until the next lag check: " + e.getMessage());
+            }
+        }
+        primaryNoReplica.increment();
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return primary.getConnection(username, password);
+    }
+
+    /**
+     * Unwraps to the primary, so pool introspection (e.g. {@code unwrap(HikariDataSource.class)})
+     * keeps describing the pool that takes the writes.
+     */
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        return iface.isInstance(this) ? iface.cast(this) : primary.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(this) || primary.isWrapperFor(iface);
+    }
+
+    /**
+     * Measure the replay lag of every replica and decide whether it may serve reads.
+     */
+    void checkReplicas() {
+        for (Replica replica : replicas) {
+            check(replica);
+        }
+    }
+
+    private void check(Replica replica) {
+        String state;
+        try (Connection connection = replica.pool.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(LAG_QUERY)) {
+            rs.next();
+            boolean inRecovery = rs.getBoolean(1);
+            String receiver = rs.getString(2);
+            boolean streaming = "streaming".equals(receiver);
+            double lag = rs.getDouble(3);
+            // without a streaming receiver the replay lag says nothing about how far behind it is
+            replica.lagSeconds = rs.wasNull() || !streaming ? Double.NaN : lag;
+            replica.checkedAtNanos = System.nanoTime();
+            // NaN (nothing replayed yet) compares false
+            replica.usable = inRecovery && streaming && replica.lagSeconds <= maxLagSeconds;
+            state = !inRecovery ? "not a standby (promoted?), not used"
+                    : "not visible".equals(receiver) ? "WAL receiver status not visible (grant pg_read_all_stats), not used"
+                    : !streaming ? "WAL receiver not streaming (" + (receiver == null ? "none" : receiver) + "), reads go elsewhere"
+                    : replica.usable ? "in use" : "behind by more than max-lag, reads go elsewhere";
+        } catch (SQLException e) {
+            replica.usable = false;
+            replica.lagSeconds = Double.NaN;
+            state = "unreachable, reads go elsewhere (" + e.getMessage() + ")";
+        }
+        if (!state.equals(replica.state)) {
+            replica.state = state;
+            System.out.printf("Read replica %s: %s, lag %.3f s%n", replica.name(), state, replica.lagSeconds);
+        }
+    }
+
+    private boolean isUsable(Replica replica) {
+        return replica.usable && System.nanoTime() - replica.checkedAtNanos < checkValidNanos;
+    }
+
+    /**
+     * Close the replica pools; the primary pool is a bean of its own.
+     */
+    public void close() {
+        for (Replica replica : replicas) {
+            replica.pool.close();
+        }
+    }
+
+    private static Counter routedCounter(MeterRegistry registry, String target, String reason) {
+        return Counter.builder("expenses.datasource.connections")
+                .description("Connections handed out by the routing DataSource")
+                .tag("target", target)
+                .tag("reason", reason)
+                .register(registry);
+    }
+}
@@ -0,0 +1,113 @@
+package io.github.leon_rgb.miniconcurexpense.export;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import io.github.leon_rgb.miniconcurexpense.model.Expense;
+import io.github.leon_rgb.miniconcurexpense.repository.ExpenseRepository;
+import io.github.leon_rgb.miniconcurexpense.tenant.TenantContext;
+import jakarta.persistence.CacheStoreMode;
+import jakarta.persistence.EntityManager;
+import org.hibernate.jpa.SpecHints;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.stream.Stream;
+
+/**
+ * Streams all expenses of a tenant to the client in constant memory.
+ *
+ * The response body is written on an MVC async thread, so the tenant is captured up front and
+ * re-bound there. The whole export runs in one read-only transaction: Hibernate keeps the same
+ * connection (and therefore the tenant's search_path) until the cursor is exhausted, and every
+ * row is detached as soon as it has been written so the persistence context stays empty.
+ * Nor do the rows go into the second-level cache: Hibernate loads streamed rows after the query
+ * itself has returned, under the session's cache mode rather than the query's, so the store is
+ * bypassed for the whole export session.
+ */
+@Service
+public class ExpenseExportService {
+
+    private final ExpenseRepository repository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ObjectWriter jsonWriter;
+
+    public ExpenseExportService(ExpenseRepository repository,
+                                EntityManager entityManager,
+                                PlatformTransactionManager transactionManager,
+                                ObjectMapper objectMapper) {
+        this.repository = repository;
+        this.entityManager = entityManager;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.jsonWriter = objectMapper.writerFor(Expense.class);
+    }
+
+    /**
+     * Build a response body that exports the current tenant's expenses in the given format.
+     */
+    public StreamingResponseBody export(ExportFormat format) {
+        String tenant = TenantContext.getCurrentTenantOrDefault();
+        return out -> {
+            TenantContext.setCurrentTenant(tenant);
+            try {
+                Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+                readOnlyTransaction.executeWithoutResult(status -> {
+                    // the session, and with it this setting, ends with the transaction
+                    entityManager.setProperty(SpecHints.HINT_SPEC_CACHE_STORE_MODE, CacheStoreMode.BYPASS);
+                    try (Stream<Expense> rows = repository.streamAllByOrderByIdAsc()) {
+                        if (format == ExportFormat.CSV) {
+                            writer.write("id,description,amount\n");
+                        }
+                        rows.forEach(expense -> {
+                            writeRow(writer, format, expense);
+                            entityManager.detach(expense);
+                        });
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                writer.flush();
+            } finally {
+                TenantContext.clear();
+            }
+        };
+    }
+
+    private void writeRow(Writer writer, ExportFormat format, Expense expense) {
+        try {
+            if (format == ExportFormat.CSV) {
+                writer.write(String.valueOf(expense.getId()));
+                writer.write(',');
+                writer.write(csvField(expense.getDescription()));
+                writer.write(',');
+                writer.write(expense.getAmount() == null ? "" : BigDecimal.valueOf(expense.getAmount()).toPlainString());
+            } else {
+                writer.write(jsonWriter.writeValueAsString(expense));
+            }
+            writer.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // RFC 4180: quote fields containing separators, quotes or line breaks and double any quotes
+    static String csvField(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
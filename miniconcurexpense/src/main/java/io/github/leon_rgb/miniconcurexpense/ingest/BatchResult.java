@@ -0,0 +1,9 @@
+package io.github.leon_rgb.miniconcurexpense.ingest;
+
+import java.util.List;
+
+/**
+ * Summary returned by {@code POST /expenses/batch}, with one entry per submitted row.
+ */
+public record BatchResult(int created, int rejected, int failed, List<BatchRowResult> rows) {
+}
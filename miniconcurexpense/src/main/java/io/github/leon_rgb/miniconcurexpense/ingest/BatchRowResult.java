@@ -0,0 +1,21 @@
+package io.github.leon_rgb.miniconcurexpense.ingest;
+
+/**
+ * Outcome of one row of a batch upload. {@code index} is the 0-based position in the request body.
+ */
+public record BatchRowResult(int index, Status status, Long id, String error) {
+
+    public enum Status { CREATED, REJECTED, FAILED }
+
+    static BatchRowResult created(int index, Long id) {
+        return new BatchRowResult(index, Status.CREATED, id, null);
+    }
+
+    static BatchRowResult rejected(int index, String error) {
+        return new BatchRowResult(index, Status.REJECTED, null, error);
+    }
+
+    static BatchRowResult failed(int index, String error) {
+        return new BatchRowResult(index, Status.FAILED, null, error);
+    }
+}
@@ -0,0 +1,155 @@
+package io.github.leon_rgb.miniconcurexpense.ingest;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import io.github.leon_rgb.miniconcurexpense.analytics.ExpenseAnalyticsService;
+import io.github.leon_rgb.miniconcurexpense.model.Expense;
+import io.github.leon_rgb.miniconcurexpense.repository.ExpenseRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Inserts many expenses for the current tenant in chunks, one transaction per chunk.
+ *
+ * The body is read as a stream, so only the current chunk is held in memory. Each chunk is
+ * written with saveAll + flush, which Hibernate turns into JDBC batches of
+ * {@code hibernate.jdbc.batch_size} rows (possible because Expense ids come from a pooled sequence).
+ * A failing chunk is rolled back on its own; chunks before and after it are unaffected.
+ */
+@Service
+public class ExpenseBatchService {
+
+    // amount is NUMERIC(10,2)
+    private static final long MAX_AMOUNT = 100_000_000;
+
+    private final ExpenseRepository repository;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectReader expenseReader;
+    private final ExpenseAnalyticsService analytics;
+    private final int defaultChunkSize;
+    private final int maxChunkSize;
+
+    public ExpenseBatchService(ExpenseRepository repository,
+                               TransactionTemplate transactionTemplate,
+                               ObjectMapper objectMapper,
+                               ExpenseAnalyticsService analytics,
+                               @Value("${expenses.batch.chunk-size:500}") int defaultChunkSize,
+                               @Value("${expenses.batch.max-chunk-size:5000}") int maxChunkSize) {
+        this.repository = repository;
+        this.transactionTemplate = transactionTemplate;
+        this.expenseReader = objectMapper.readerFor(Expense.class);
+        this.analytics = analytics;
+        this.defaultChunkSize = defaultChunkSize;
+        this.maxChunkSize = maxChunkSize;
+    }
+
+    /**
+     * Read a JSON array or newline-delimited JSON objects from {@code body} and insert them.
+     * @param chunkSize rows per transaction, or null for the configured default
+     */
+    public BatchResult ingest(InputStream body, Integer chunkSize) throws IOException {
+        int effectiveChunkSize = Math.max(1, Math.min(chunkSize == null ? defaultChunkSize : chunkSize, maxChunkSize));
+        List<BatchRowResult> results = new ArrayList<>();
+        List<Expense> chunk = new ArrayList<>(effectiveChunkSize);
+        List<Integer> chunkIndexes = new ArrayList<>(effectiveChunkSize);
+
+        // readValues handles both a top-level JSON array and a plain sequence of objects (NDJSON)
+        int index = 0;
+        try (MappingIterator<Expense> rows = expenseReader.readValues(body)) {
+            while (true) {
+                Expense expense;
+                try {
+                    if (!rows.hasNextValue()) {
+                        break;
+                    }
+                    expense = rows.nextValue();
+                } catch (JsonProcessingException e) {
+                    // a malformed document cannot be resumed reliably, so stop reading here
+                    results.add(BatchRowResult.rejected(index, "Unreadable JSON: " + e.getOriginalMessage()));
+                    break;
+                }
+
+                String problem = validate(expense);
+                if (problem != null) {
+                    results.add(BatchRowResult.rejected(index, problem));
+                } else {
+                    expense.setId(null);
+                    chunk.add(expense);
+                    chunkIndexes.add(index);
+                    if (chunk.size() == effectiveChunkSize) {
+                        flushChunk(chunk, chunkIndexes, results);
+                    }
+                }
+                index++;
+            }
+        }
+        flushChunk(chunk, chunkIndexes, results);
+
+        results.sort((a, b) -> Integer.compare(a.index(), b.index()));
+        int created = 0, rejected = 0, failed = 0;
+        for (BatchRowResult r : results) {
+            switch (r.status()) {
+                case CREATED -> created++;
+                case REJECTED -> rejected++;
+                case FAILED -> failed++;
+            }
+        }
+        return new BatchResult(created, rejected, failed, results);
+    }
+
+    private void flushChunk(List<Expense> chunk, List<Integer> chunkIndexes, List<BatchRowResult> results) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        try {
+            List<Expense> saved = transactionTemplate.execute(status -> {
+                List<Expense> rows = repository.saveAll(chunk);
+                repository.flush();
+                return rows;
+            });
+            for (int i = 0; i < saved.size(); i++) {
+                results.add(BatchRowResult.created(chunkIndexes.get(i), saved.get(i).getId()));
+            }
+            analytics.added(saved);
+        } catch (RuntimeException e) {
+            System.err.println("Batch chunk of " + chunk.size() + " expenses failed: " + e.getMessage());
+            for (Integer i : chunkIndexes) {
+                results.add(BatchRowResult.failed(i, e.getMessage()));
+            }
+        } finally {
+            chunk.clear();
+            chunkIndexes.clear();
+        }
+    }
+
+    /**
+     * Why the row cannot be inserted, or null if it can. Rejecting these up front keeps a single
+     * bad row from failing the whole chunk it would be written with.
+     */
+    static String validate(Expense expense) {
+        if (expense == null) {
+            return "Row is null";
+        }
+        if (expense.getDescription() == null || expense.getDescription().isBlank()) {
+            return "description is required";
+        }
+        if (expense.getAmount() == null) {
+            return "amount is required";
+        }
+        if (expense.getAmount().isNaN() || expense.getAmount() < 0) {
+            return "amount must not be negative";
+        }
+        if (expense.getAmount() >= MAX_AMOUNT) {
+            return "amount must be below " + MAX_AMOUNT;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,81 @@
+package io.github.leon_rgb.miniconcurexpense.ingest;
+
+import io.github.leon_rgb.miniconcurexpense.tenant.SchemaPerTenantConnectionProvider;
+import io.github.leon_rgb.miniconcurexpense.tenant.TenantContext;
+import lombok.RequiredArgsConstructor;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Loads CSV uploads straight into the tenant's expense table with PostgreSQL {@code COPY FROM STDIN}.
+ *
+ * The request body is handed to the driver's CopyManager as-is, so the file is never buffered
+ * in the application. The connection comes from {@link SchemaPerTenantConnectionProvider}, which
+ * has already pointed its search_path at the tenant schema. COPY is a single statement, so the
+ * load is all-or-nothing.
+ *
+ * Ids are filled in by the column default. The sequence steps by {@code Expense.ID_ALLOCATION_SIZE},
+ * so every copied row takes the top id of a block of its own and the rest of the block is never
+ * used; ids stay unique next to Hibernate's pooled allocation, and the BIGINT id column has room
+ * for the gaps.
+ */
+@Service
+@RequiredArgsConstructor
+public class ExpenseCopyImportService {
+
+    private static final String COPY_WITH_HEADER =
+            "COPY expense (description, amount) FROM STDIN WITH (FORMAT csv, HEADER MATCH)";
+    private static final String COPY_WITHOUT_HEADER =
+            "COPY expense (description, amount) FROM STDIN WITH (FORMAT csv)";
+
+    private final SchemaPerTenantConnectionProvider connectionProvider;
+
+    /**
+     * Copy the CSV in {@code csv} into the current tenant's expense table.
+     * @param header whether the first line is a {@code description,amount} header
+     */
+    public ImportResult importCsv(InputStream csv, boolean header) throws IOException {
+        String tenant = TenantContext.getCurrentTenantOrDefault();
+        long start = System.nanoTime();
+        Connection connection = null;
+        try {
+            connection = connectionProvider.getConnection(tenant);
+            CopyManager copyManager = connection.unwrap(PGConnection.class).getCopyAPI();
+            long rows = copyManager.copyIn(header ? COPY_WITH_HEADER : COPY_WITHOUT_HEADER, csv);
+            long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+            System.out.println("Imported " + rows + " expenses into schema " + tenant + " in " + elapsedMillis + " ms");
+            return new ImportResult(tenant, rows, elapsedMillis);
+        } catch (SQLException e) {
+            if (isBadInput(e)) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "CSV import failed: " + e.getMessage(), e);
+            }
+            // lost connection, cancelled statement, missing table: not something the client can fix
+            throw new RuntimeException("CSV import failed for tenant " + tenant, e);
+        } finally {
+            if (connection != null) {
+                try {
+                    connectionProvider.releaseConnection(tenant, connection);
+                } catch (SQLException e) {
+                    System.err.println("Error releasing import connection for tenant " + tenant + ": " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Malformed rows, a wrong header or values the table rejects: SQLState classes 22 (data
+     * exception) and 23 (integrity constraint violation). The client has to fix the file.
+     */
+    static boolean isBadInput(SQLException e) {
+        String state = e.getSQLState();
+        return state != null && (state.startsWith("22") || state.startsWith("23"));
+    }
+}
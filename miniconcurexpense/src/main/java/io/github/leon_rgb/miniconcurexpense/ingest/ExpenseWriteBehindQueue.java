@@ -0,0 +1,296 @@
+package io.github.leon_rgb.miniconcurexpense.ingest;
+
+import io.github.leon_rgb.miniconcurexpense.analytics.ExpenseAnalyticsService;
+import io.github.leon_rgb.miniconcurexpense.cache.ExpensePageCache;
+import io.github.leon_rgb.miniconcurexpense.model.Expense;
+import io.github.leon_rgb.miniconcurexpense.repository.ExpenseRepository;
+import io.github.leon_rgb.miniconcurexpense.tenant.TenantContext;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Asynchronous ingestion path for {@code POST /expenses/async}: writes are queued per tenant and
+ * committed in groups, so one transaction (and one JDBC batch) carries many expenses.
+ *
+ * A tenant's queue is flushed as soon as it holds {@code batch-size} writes, or after at most
+ * {@code max-delay} otherwise. Each tenant has its own bounded queue, so a burst from one tenant
+ * cannot starve the others; a full queue rejects new writes instead of growing. On shutdown the
+ * queue stops accepting writes and drains everything still pending before the DataSource closes.
+ *
+ * Writes are validated like batch rows before they are queued. If a group commit still fails,
+ * its writes are retried one by one, so only the offending write fails.
+ */
+@Component
+public class ExpenseWriteBehindQueue implements SmartLifecycle {
+
+    private record PendingWrite(String ticket, Expense expense, CompletableFuture<Long> result) {}
+
+    private record TicketState(String tenant, CompletableFuture<Long> result, long expiresAtNanos) {}
+
+    private static final class TenantQueue {
+        final String tenant;
+        final BlockingQueue<PendingWrite> writes;
+        final AtomicBoolean flushScheduled = new AtomicBoolean();
+
+        TenantQueue(String tenant, int capacity) {
+            this.tenant = tenant;
+            this.writes = new ArrayBlockingQueue<>(capacity);
+        }
+    }
+
+    private final ExpenseRepository repository;
+    private final TransactionTemplate transactionTemplate;
+    private final ExpensePageCache pageCache;
+    private final ExpenseAnalyticsService analytics;
+    private final int capacity;
+    private final int batchSize;
+    private final Duration maxDelay;
+    private final long ticketTtlNanos;
+    private final int maxTickets;
+    private final int flushThreads;
+
+    private final ConcurrentHashMap<String, TenantQueue> queues = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, TicketState> tickets = new ConcurrentHashMap<>();
+    private ScheduledExecutorService ticker;
+    private ExecutorService flushers;
+    private volatile boolean running;
+    // submit() holds the read lock from its running check until its write is queued, so stop()
+    // can be sure that nothing is queued after it stopped accepting writes and drained
+    private final ReadWriteLock acceptLock = new ReentrantReadWriteLock();
+
+    public ExpenseWriteBehindQueue(ExpenseRepository repository,
+                                   TransactionTemplate transactionTemplate,
+                                   ExpensePageCache pageCache,
+                                   ExpenseAnalyticsService analytics,
+                                   @Value("${expenses.write-behind.capacity-per-tenant:10000}") int capacity,
+                                   @Value("${expenses.write-behind.batch-size:500}") int batchSize,
+                                   @Value("${expenses.write-behind.max-delay:50ms}") Duration maxDelay,
+                                   @Value("${expenses.write-behind.ticket-ttl:10m}") Duration ticketTtl,
+                                   @Value("${expenses.write-behind.max-tickets:100000}") int maxTickets,
+                                   @Value("${expenses.write-behind.flush-threads:2}") int flushThreads) {
+        this.repository = repository;
+        this.transactionTemplate = transactionTemplate;
+        this.pageCache = pageCache;
+        this.analytics = analytics;
+        this.capacity = capacity;
+        this.batchSize = batchSize;
+        this.maxDelay = maxDelay;
+        this.ticketTtlNanos = ticketTtl.toNanos();
+        this.maxTickets = maxTickets;
+        this.flushThreads = flushThreads;
+    }
+
+    /**
+     * Queue an expense for the current tenant.
+     * @return the ticket, or empty when the tenant's queue is full
+     * @throws ResponseStatusException 400 if the expense cannot be stored, 503 while shutting down
+     */
+    public Optional<String> submit(Expense expense) {
+        String problem = ExpenseBatchService.validate(expense);
+        if (problem != null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, problem);
+        }
+        acceptLock.readLock().lock();
+        try {
+            if (!running) {
+                throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Write-behind queue is not accepting writes");
+            }
+            String tenant = TenantContext.getCurrentTenantOrDefault();
+            TenantQueue queue = queues.computeIfAbsent(tenant, t -> new TenantQueue(t, capacity));
+
+            expense.setId(null);
+            PendingWrite write = new PendingWrite(UUID.randomUUID().toString(), expense, new CompletableFuture<>());
+            tickets.put(write.ticket(), new TicketState(tenant, write.result(), System.nanoTime() + ticketTtlNanos));
+            if (!queue.writes.offer(write)) {
+                tickets.remove(write.ticket());
+                return Optional.empty();
+            }
+            if (queue.writes.size() >= batchSize) {
+                scheduleFlush(queue);
+            }
+            return Optional.of(write.ticket());
+        } finally {
+            acceptLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Current state of a ticket of the current tenant, or empty if unknown or expired.
+     */
+    public Optional<WriteTicket> status(String ticket) {
+        TicketState state = tickets.get(ticket);
+        if (state == null || !state.tenant().equals(TenantContext.getCurrentTenantOrDefault())) {
+            return Optional.empty();
+        }
+        return Optional.of(toTicket(ticket, state.result()));
+    }
+
+    /**
+     * Block until the ticket's group commit has happened, or the timeout has passed.
+     */
+    public WriteTicket await(String ticket, Duration timeout) {
+        TicketState state = tickets.get(ticket);
+        if (state == null) {
+            return WriteTicket.failed(ticket, "Unknown ticket");
+        }
+        try {
+            state.result().get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            // reported through the ticket state below
+        }
+        return toTicket(ticket, state.result());
+    }
+
+    private static WriteTicket toTicket(String ticket, CompletableFuture<Long> result) {
+        if (!result.isDone()) {
+            return WriteTicket.queued(ticket);
+        }
+        try {
+            return WriteTicket.committed(ticket, result.join());
+        } catch (RuntimeException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            return WriteTicket.failed(ticket, cause.getMessage());
+        }
+    }
+
+    private void scheduleFlush(TenantQueue queue) {
+        if (queue.flushScheduled.compareAndSet(false, true)) {
+            flushers.execute(() -> {
+                try {
+                    drain(queue);
+                } finally {
+                    queue.flushScheduled.set(false);
+                }
+            });
+        }
+    }
+
+    private void tick() {
+        for (TenantQueue queue : queues.values()) {
+            if (!queue.writes.isEmpty()) {
+                scheduleFlush(queue);
+            }
+        }
+        long now = System.nanoTime();
+        tickets.values().removeIf(t -> t.result().isDone() && now - t.expiresAtNanos() > 0);
+        if (tickets.size() > maxTickets) {
+            // at high write rates the TTL alone would keep millions of finished tickets around
+            tickets.values().removeIf(t -> t.result().isDone());
+        }
+    }
+
+    private void drain(TenantQueue queue) {
+        List<PendingWrite> batch = new ArrayList<>(batchSize);
+        while (queue.writes.drainTo(batch, batchSize) > 0) {
+            commit(queue.tenant, batch);
+            batch.clear();
+        }
+    }
+
+    private void commit(String tenant, List<PendingWrite> batch) {
+        TenantContext.setCurrentTenant(tenant);
+        try {
+            List<Expense> expenses = new ArrayList<>(batch.size());
+            for (PendingWrite w : batch) {
+                expenses.add(w.expense());
+            }
+            List<Expense> saved = transactionTemplate.execute(status -> {
+                List<Expense> rows = repository.saveAll(expenses);
+                repository.flush();
+                return rows;
+            });
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).result().complete(saved.get(i).getId());
+            }
+            pageCache.invalidate();
+            analytics.added(saved);
+        } catch (RuntimeException e) {
+            System.err.println("Group commit of " + batch.size() + " expenses for tenant " + tenant + " failed: " + e.getMessage());
+            if (batch.size() == 1) {
+                batch.get(0).result().completeExceptionally(e);
+            } else {
+                // the group was rolled back as a whole; commit the writes alone so only the culprit fails
+                for (PendingWrite w : batch) {
+                    w.expense().setId(null);  // assigned by the failed attempt
+                    commit(tenant, List.of(w));
+                }
+            }
+        } finally {
+            TenantContext.clear();
+        }
+    }
+
+    @Override
+    public void start() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        flushers = Executors.newFixedThreadPool(flushThreads,
+                r -> new Thread(r, "expense-group-commit-" + threadNumber.incrementAndGet()));
+        ticker = Executors.newSingleThreadScheduledExecutor(r -> new Thread(r, "expense-group-commit-ticker"));
+        ticker.scheduleWithFixedDelay(this::tick, maxDelay.toMillis(), maxDelay.toMillis(), TimeUnit.MILLISECONDS);
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        acceptLock.writeLock().lock();
+        try {
+            running = false;
+        } finally {
+            acceptLock.writeLock().unlock();
+        }
+        ticker.shutdownNow();
+        flushers.shutdown();
+        try {
+            flushers.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // whatever is still queued is committed on the shutdown thread
+        int pending = queues.values().stream().mapToInt(q -> q.writes.size()).sum();
+        if (pending > 0) {
+            System.out.println("Draining " + pending + " queued expenses before shutdown");
+        }
+        for (TenantQueue queue : queues.values()) {
+            drain(queue);
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Stop after the web server has stopped taking requests, but before the DataSource is closed.
+     */
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+}
@@ -0,0 +1,7 @@
+package io.github.leon_rgb.miniconcurexpense.ingest;
+
+/**
+ * Summary returned by {@code POST /expenses/import}.
+ */
+public record ImportResult(String tenant, long rowsLoaded, long elapsedMillis) {
+}
@@ -0,0 +1,22 @@
+package io.github.leon_rgb.miniconcurexpense.ingest;
+
+/**
+ * State of an expense accepted through the write-behind queue.
+ * {@code id} is set once the row has been committed.
+ */
+public record WriteTicket(String ticket, Status status, Long id, String error) {
+
+    public enum Status { QUEUED, COMMITTED, FAILED }
+
+    static WriteTicket queued(String ticket) {
+        return new WriteTicket(ticket, Status.QUEUED, null, null);
+    }
+
+    static WriteTicket committed(String ticket, Long id) {
+        return new WriteTicket(ticket, Status.COMMITTED, id, null);
+    }
+
+    static WriteTicket failed(String ticket, String error) {
+        return new WriteTicket(ticket, Status.FAILED, null, error);
+    }
+}
@@ -1,19 +1,48 @@
 package io.github.leon_rgb.miniconcurexpense.model;
 
+import jakarta.persistence.Cacheable;
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.Instant;
 
 /**
  * Simple Expense entity.
+ * Ids come from the tenant's expense_id_seq through Hibernate's pooled optimizer:
+ * one nextval() reserves {@link #ID_ALLOCATION_SIZE} ids, which keeps JDBC insert batching enabled
+ * (IDENTITY would force one round-trip per row). See V2__Pooled_expense_id_sequence.sql.
+ * Cached in the second-level cache region {@link #CACHE_REGION} (see HibernateCacheConfiguration).
+ * The table is partitioned by month on {@code created_at} (see V6__Partition_expense_by_month.sql).
  */
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Expense.CACHE_REGION)
 public class Expense {
+    public static final int ID_ALLOCATION_SIZE = 50;
+    public static final String CACHE_REGION = "expense";
+
     @Id
-    @GeneratedValue(strategy = jakarta.persistence.GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "expense_id_seq")
+    @SequenceGenerator(name = "expense_id_seq", sequenceName = "expense_id_seq", allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
     private String description;
+    // bound as NUMERIC to match the column: a float8 parameter would make Postgres cast the
+    // column instead, and amount conditions could no longer use expense_amount_id_idx
+    @JdbcTypeCode(SqlTypes.NUMERIC)
     private Double amount;
+    // set by Hibernate on insert rather than read back from the column default, so inserts stay batched
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private Instant createdAt;
 
     public Expense() {}
 
@@ -45,5 +74,9 @@ public class Expense {
 
     public void setAmount(Double amount) {
         this.amount = amount;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
     }        
 }
@@ -0,0 +1,61 @@
+package io.github.leon_rgb.miniconcurexpense.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import org.hibernate.annotations.Immutable;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Read-only view of the single-row expense_rollup table of a tenant schema.
+ * The row is maintained by database triggers (see V3__Create_expense_rollup.sql),
+ * so the application never writes it.
+ */
+@Entity
+@Immutable
+@Table(name = "expense_rollup")
+public class ExpenseRollup {
+    @Id
+    private Boolean id;
+    @Column(name = "expense_count")
+    private long count;
+    @Column(name = "amount_sum")
+    private BigDecimal sum;
+    @Column(name = "amount_min")
+    private BigDecimal min;
+    @Column(name = "amount_max")
+    private BigDecimal max;
+    @Column(name = "updated_at")
+    private Instant updatedAt;
+
+    protected ExpenseRollup() {}
+
+    @JsonIgnore
+    public Boolean getId() {
+        return id;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public BigDecimal getSum() {
+        return sum;
+    }
+
+    public BigDecimal getMin() {
+        return min;
+    }
+
+    public BigDecimal getMax() {
+        return max;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+}
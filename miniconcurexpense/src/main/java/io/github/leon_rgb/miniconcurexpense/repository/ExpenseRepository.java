@@ -1,8 +1,25 @@
 package io.github.leon_rgb.miniconcurexpense.repository;
 
 import io.github.leon_rgb.miniconcurexpense.model.Expense;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.dao.IncorrectResultSizeDataAccessException;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Stream;
 
 /**
  * Repository interface for managing Expense entities. 
@@ -10,5 +27,119 @@ import org.springframework.stereotype.Repository;
  * By extending JpaRepository, this interface inherits several methods for working with Expense persistence, including methods for saving, deleting, and finding Expense entities.
  */
 @Repository
-public interface ExpenseRepository extends JpaRepository<Expense, Long> {
+@Transactional(readOnly = true)  // lets the query methods below run on a read replica; writes override it
+public interface ExpenseRepository extends JpaRepository<Expense, Long>, JpaSpecificationExecutor<Expense> {
+
+    /*
+     * The listing queries below are deliberately not marked cacheable. Hibernate's query cache is
+     * local to each app instance and knows nothing of writes made on the others, while their
+     * results feed ExpensePageCache and the listing ETags, which are shared through Redis.
+     */
+
+    /**
+     * Offset listing without a count query: Spring Data fetches size + 1 rows to find out
+     * whether there is a next page.
+     */
+    Slice<Expense> findSliceBy(Pageable pageable);
+
+    /**
+     * {@link #findSliceBy} restricted to rows created since {@code since}, so that PostgreSQL can
+     * prune the older monthly partitions.
+     */
+    Slice<Expense> findSliceByCreatedAtGreaterThanEqual(Instant since, Pageable pageable);
+
+    /**
+     * Planner estimate of the row count of the current tenant's expense table, from the
+     * statistics kept by (auto)vacuum/analyze. Never negative (-1 means "not analyzed yet").
+     */
+    @Query(value = "SELECT GREATEST(reltuples, 0)::bigint FROM pg_class WHERE oid = 'expense'::regclass", nativeQuery = true)
+    long estimateCount();
+
+    /**
+     * First page of a keyset listing: the newest expenses, without a count query.
+     */
+    List<Expense> findAllByOrderByIdDesc(Limit limit);
+
+    /**
+     * {@link #findAllByOrderByIdDesc} restricted to rows created since {@code since}. The bound lets
+     * PostgreSQL prune the older monthly partitions.
+     */
+    List<Expense> findByCreatedAtGreaterThanEqualOrderByIdDesc(Instant since, Limit limit);
+
+    /**
+     * Seek query for keyset pagination ({@code WHERE id < ? ORDER BY id DESC LIMIT ?}).
+     * Walks the primary key index backwards, so the cost does not grow with the page depth.
+     */
+    List<Expense> findByIdLessThanOrderByIdDesc(Long id, Limit limit);
+
+    /**
+     * Every expense of the current tenant, in id order, backed by a server-side cursor.
+     * The PostgreSQL driver only honours the fetch size inside a transaction (autocommit off),
+     * so callers must consume the stream within one and close it afterwards.
+     * The rows must not go into the second-level cache: an export would otherwise pay a cache put
+     * per row and push every other entry out of the shared region. The hint covers the query;
+     * rows that the stream loads later follow the session's cache mode, so callers also bypass
+     * the store on the session (see ExpenseExportService).
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_MODE, value = "IGNORE")
+    })
+    Stream<Expense> streamAllByOrderByIdAsc();
+
+    /**
+     * Single-statement delete by id. Unlike {@code deleteById} it does not load the entity first.
+     * @return the number of rows deleted (0 or 1)
+     * @throws IncorrectResultSizeDataAccessException if the id was not unique; nothing is deleted then
+     */
+    @Transactional
+    default int deleteRowById(Long id) {
+        int rows = deleteRowsWithId(id);
+        if (rows > 1) {
+            throw new IncorrectResultSizeDataAccessException("Expense id " + id + " is not unique", 1, rows);
+        }
+        return rows;
+    }
+
+    /**
+     * Delete a set of expenses with one {@code WHERE id = ANY(?)} statement; the ids are bound
+     * as a single array parameter, so the SQL text is the same for every list size.
+     * @return the number of rows deleted
+     * @throws IncorrectResultSizeDataAccessException if an id was not unique; nothing is deleted then
+     */
+    @Transactional
+    default int deleteRowsByIds(Long[] ids) {
+        int rows = deleteRowsWithIds(ids);
+        long distinct = Arrays.stream(ids).filter(Objects::nonNull).distinct().count();
+        if (rows > distinct) {
+            throw new IncorrectResultSizeDataAccessException("Expense ids are not unique", (int) distinct, rows);
+        }
+        return rows;
+    }
+
+    /*
+     * The statements behind the two methods above. The primary key of the partitioned table is
+     * (id, created_at), so nothing but the id sequence keeps ids unique (V6); use the methods
+     * above, which roll back instead of deleting several rows for one id.
+     */
+
+    @Transactional
+    @Modifying
+    @Query("delete from Expense e where e.id = :id")
+    int deleteRowsWithId(Long id);
+
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM expense WHERE id = ANY(:ids)", nativeQuery = true)
+    int deleteRowsWithIds(Long[] ids);
+
+    /**
+     * Delete every expense with {@code fromId <= id <= toId}, as a primary key range scan.
+     * @return the number of rows deleted
+     */
+    @Transactional
+    @Modifying
+    @Query("delete from Expense e where e.id between :fromId and :toId")
+    int deleteRowsByIdRange(Long fromId, Long toId);
 }
@@ -0,0 +1,40 @@
+package io.github.leon_rgb.miniconcurexpense.repository;
+
+import io.github.leon_rgb.miniconcurexpense.model.ExpenseRollup;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+/**
+ * Access to the per-tenant expense rollup row. Reading it is a primary key lookup,
+ * independent of how many expenses the tenant has.
+ */
+@org.springframework.stereotype.Repository
+@Transactional(readOnly = true)
+public interface ExpenseRollupRepository extends Repository<ExpenseRollup, Boolean> {
+
+    /**
+     * The rollup row, or empty if the schema has none: either the row is missing, or the whole
+     * table is (a schema created by TenantService's fallback DDL has no rollup).
+     */
+    default Optional<ExpenseRollup> findRollup() {
+        return hasRollupTable() ? findRollupRow() : Optional.empty();
+    }
+
+    // checked first because a failed query would also abort a surrounding transaction
+    @Query(value = "SELECT to_regclass('expense_rollup') IS NOT NULL", nativeQuery = true)
+    boolean hasRollupTable();
+
+    @Query("select r from ExpenseRollup r")
+    Optional<ExpenseRollup> findRollupRow();
+
+    /**
+     * Recompute the rollup from the expense table of the current tenant.
+     * @return the number of expenses counted
+     */
+    @Transactional
+    @Query(value = "SELECT expense_rollup_rebuild()", nativeQuery = true)
+    Long rebuild();
+}
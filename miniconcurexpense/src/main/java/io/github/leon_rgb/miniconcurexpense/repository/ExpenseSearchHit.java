@@ -0,0 +1,42 @@
+package io.github.leon_rgb.miniconcurexpense.repository;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import org.springframework.web.util.HtmlUtils;
+
+/**
+ * One search result: the expense, its relevance and a short excerpt of the description
+ * with the matched words wrapped in {@code <b>...</b>}.
+ */
+public interface ExpenseSearchHit {
+
+    char MATCH_START = '\u0002';
+    char MATCH_END = '\u0003';
+
+    Long getId();
+
+    String getDescription();
+
+    Double getAmount();
+
+    Double getRank();
+
+    /**
+     * The excerpt as ts_headline returns it: raw description text, matches between
+     * {@link #MATCH_START} and {@link #MATCH_END}.
+     */
+    @JsonIgnore
+    String getMarkedSnippet();
+
+    /**
+     * The excerpt as HTML: the description text escaped, only the match markers turned into tags.
+     */
+    default String getSnippet() {
+        String marked = getMarkedSnippet();
+        if (marked == null) {
+            return null;
+        }
+        return HtmlUtils.htmlEscape(marked)
+                .replace(String.valueOf(MATCH_START), "<b>")
+                .replace(String.valueOf(MATCH_END), "</b>");
+    }
+}
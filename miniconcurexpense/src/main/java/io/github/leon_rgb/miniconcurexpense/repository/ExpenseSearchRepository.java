@@ -0,0 +1,61 @@
+package io.github.leon_rgb.miniconcurexpense.repository;
+
+import io.github.leon_rgb.miniconcurexpense.model.Expense;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Ranked description search over the current tenant's expenses (indexes: V4__Expense_description_search.sql).
+ *
+ * A row matches if its description matches the query as full text (web-search syntax, English
+ * stemming) or contains a word similar to it (pg_trgm word similarity, which catches typos and
+ * partial words). Both conditions are answered from GIN indexes; only the newest
+ * {@code maxCandidates} matches (by id) are ranked, which bounds the work for very common terms
+ * and keeps the candidate set the same from one page to the next.
+ * Results are ordered by rank, then id, and paged by keyset on that pair.
+ * ts_headline runs only for the rows that are returned. It marks the matched words with the
+ * control characters STX/ETX (removed from the description first), and {@link ExpenseSearchHit}
+ * turns them into HTML only after escaping the text around them.
+ */
+@org.springframework.stereotype.Repository
+@Transactional(readOnly = true)
+public interface ExpenseSearchRepository extends Repository<Expense, Long> {
+
+    String CANDIDATES = """
+            WITH q AS (SELECT websearch_to_tsquery('english', :q) AS query),
+            candidates AS (
+                SELECT e.id, e.description, e.amount, q.query,
+                       (ts_rank_cd(to_tsvector('english'::regconfig, coalesce(e.description, '')), q.query)
+                        + public.word_similarity(:q, e.description))::float8 AS rank
+                  FROM expense e, q
+                 WHERE to_tsvector('english'::regconfig, coalesce(e.description, '')) @@ q.query
+                    OR :q OPERATOR(public.<%) e.description
+                 ORDER BY e.id DESC
+                 LIMIT :maxCandidates
+            )
+            SELECT id, description, amount::float8 AS amount, rank,
+                   ts_headline('english', translate(description, chr(2) || chr(3), ''), query,
+                               'MaxFragments=1, MaxWords=12, MinWords=3, StartSel=' || chr(2) || ', StopSel=' || chr(3)) AS marked_snippet
+              FROM candidates
+            """;
+
+    @Query(value = CANDIDATES + " ORDER BY rank DESC, id DESC LIMIT :limit", nativeQuery = true)
+    List<ExpenseSearchHit> search(@Param("q") String q,
+                                  @Param("maxCandidates") int maxCandidates,
+                                  @Param("limit") int limit);
+
+    /**
+     * Next page after the hit with {@code afterRank} / {@code afterId}.
+     */
+    @Query(value = CANDIDATES + " WHERE (rank, id) < (:afterRank, :afterId) ORDER BY rank DESC, id DESC LIMIT :limit",
+            nativeQuery = true)
+    List<ExpenseSearchHit> searchAfter(@Param("q") String q,
+                                       @Param("maxCandidates") int maxCandidates,
+                                       @Param("afterRank") double afterRank,
+                                       @Param("afterId") long afterId,
+                                       @Param("limit") int limit);
+}
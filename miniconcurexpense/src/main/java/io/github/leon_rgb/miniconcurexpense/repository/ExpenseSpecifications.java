@@ -0,0 +1,55 @@
+package io.github.leon_rgb.miniconcurexpense.repository;
+
+import io.github.leon_rgb.miniconcurexpense.model.Expense;
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * Building blocks for filtered expense listings. Every predicate here has a matching
+ * index (V5__Expense_filter_indexes.sql): the amount conditions use (amount, id), the
+ * description prefix uses lower(description) text_pattern_ops, and the id seek the primary key.
+ * Predicates on anything else would end up scanning the tenant's whole table, so none are offered.
+ */
+public final class ExpenseSpecifications {
+
+    private ExpenseSpecifications() {}
+
+    public static Specification<Expense> amountAtLeast(double min) {
+        return (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("amount"), min);
+    }
+
+    public static Specification<Expense> amountAtMost(double max) {
+        return (root, query, cb) -> cb.lessThanOrEqualTo(root.get("amount"), max);
+    }
+
+    /**
+     * Case-insensitive prefix match; LIKE wildcards in the prefix are matched literally.
+     */
+    public static Specification<Expense> descriptionStartsWith(String prefix) {
+        String pattern = prefix.toLowerCase()
+                .replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_") + "%";
+        return (root, query, cb) -> cb.like(cb.lower(root.get("description")), pattern, '\\');
+    }
+
+    /**
+     * Keyset seek for an id-sorted listing: rows after {@code lastId} in the given direction.
+     */
+    public static Specification<Expense> idAfter(long lastId, boolean descending) {
+        return (root, query, cb) -> descending
+                ? cb.lessThan(root.get("id"), lastId)
+                : cb.greaterThan(root.get("id"), lastId);
+    }
+
+    /**
+     * Keyset seek for an amount-sorted listing ({@code ORDER BY amount, id}):
+     * rows after ({@code lastAmount}, {@code lastId}) in the given direction.
+     */
+    public static Specification<Expense> amountAfter(double lastAmount, long lastId, boolean descending) {
+        return (root, query, cb) -> descending
+                ? cb.or(cb.lessThan(root.get("amount"), lastAmount),
+                        cb.and(cb.equal(root.get("amount"), lastAmount), cb.lessThan(root.get("id"), lastId)))
+                : cb.or(cb.greaterThan(root.get("amount"), lastAmount),
+                        cb.and(cb.equal(root.get("amount"), lastAmount), cb.greaterThan(root.get("id"), lastId)));
+    }
+}
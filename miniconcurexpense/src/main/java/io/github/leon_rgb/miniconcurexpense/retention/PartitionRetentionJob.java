@@ -0,0 +1,312 @@
+package io.github.leon_rgb.miniconcurexpense.retention;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.leon_rgb.miniconcurexpense.analytics.ExpenseAnalyticsService;
+import io.github.leon_rgb.miniconcurexpense.cache.ExpensePageCache;
+import io.github.leon_rgb.miniconcurexpense.cache.SecondLevelCacheEvictor;
+import io.github.leon_rgb.miniconcurexpense.tenant.SchemaPerTenantConnectionProvider;
+import io.github.leon_rgb.miniconcurexpense.tenant.TenantContext;
+import io.github.leon_rgb.miniconcurexpense.tenant.TenantRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Maintains the monthly expense partitions of every tenant (see V6__Partition_expense_by_month.sql).
+ *
+ * Each run creates the partitions for the next {@code expenses.partitions.months-ahead} months and,
+ * if retention is enabled, retires partitions older than the last {@code expenses.retention.keep-months}
+ * calendar months: detach (the rollup is corrected in the same transaction), write the rows to
+ * {@code <archive-dir>/<tenant>/expense_pYYYYMM.ndjson.gz}, then drop the table.
+ * Every step can be repeated, so a partition left detached by a failed run is archived and dropped
+ * by the next one. Replicas take turns through a per-tenant advisory lock.
+ * The default partition is never retired; rows in it mean some month had no partition in time,
+ * which is logged as a warning on every run until they have been moved out.
+ * Archive lines carry the same fields as {@code GET /expenses/export?format=ndjson}.
+ */
+@Component
+public class PartitionRetentionJob {
+
+    private static final Pattern PARTITION_NAME = Pattern.compile("expense_p(\\d{4})(\\d{2})");
+    private static final String PARTITIONS_QUERY =
+            "SELECT relname, relispartition FROM pg_class " +
+            "WHERE relnamespace = current_schema()::regnamespace AND relkind = 'r' AND relname ~ '^expense_p[0-9]{6}$'";
+    private static final String LOCK_KEY = "hashtext(current_schema() || '.expense_partitions')";
+    private static final int FETCH_SIZE = 1000;
+
+    private final TenantRegistry tenantRegistry;
+    private final SchemaPerTenantConnectionProvider connectionProvider;
+    private final ExpensePageCache pageCache;
+    private final SecondLevelCacheEvictor secondLevelCacheEvictor;
+    private final ExpenseAnalyticsService analytics;
+    private final ObjectMapper objectMapper;
+    private final int monthsAhead;
+    private final boolean retentionEnabled;
+    private final int keepMonths;
+    private final Path archiveDir;
+    private final long lockTimeoutMillis;
+
+    private record Partition(String name, YearMonth month, boolean attached) {}
+
+    public PartitionRetentionJob(TenantRegistry tenantRegistry,
+                                 SchemaPerTenantConnectionProvider connectionProvider,
+                                 ExpensePageCache pageCache,
+                                 SecondLevelCacheEvictor secondLevelCacheEvictor,
+                                 ExpenseAnalyticsService analytics,
+                                 ObjectMapper objectMapper,
+                                 @Value("${expenses.partitions.months-ahead:2}") int monthsAhead,
+                                 @Value("${expenses.retention.enabled:true}") boolean retentionEnabled,
+                                 @Value("${expenses.retention.keep-months:12}") int keepMonths,
+                                 @Value("${expenses.retention.archive-dir:archive}") String archiveDir,
+                                 @Value("${expenses.retention.lock-timeout:5s}") Duration lockTimeout) {
+        this.tenantRegistry = tenantRegistry;
+        this.connectionProvider = connectionProvider;
+        this.pageCache = pageCache;
+        this.secondLevelCacheEvictor = secondLevelCacheEvictor;
+        this.analytics = analytics;
+        this.objectMapper = objectMapper;
+        this.monthsAhead = Math.max(1, monthsAhead);
+        this.retentionEnabled = retentionEnabled;
+        // the current month is never retired
+        this.keepMonths = Math.max(1, keepMonths);
+        this.archiveDir = Path.of(archiveDir);
+        this.lockTimeoutMillis = Math.max(1, lockTimeout.toMillis());
+    }
+
+    @Scheduled(initialDelayString = "${expenses.partitions.initial-delay-ms:10000}",
+               fixedDelayString = "${expenses.partitions.maintenance-interval-ms:3600000}")
+    public void run() {
+        YearMonth oldestKept = YearMonth.now(ZoneOffset.UTC).minusMonths(keepMonths - 1);
+        for (String tenant : tenantRegistry.knownTenants()) {
+            try {
+                maintain(tenant, oldestKept);
+            } catch (SQLException | IOException e) {
+                System.err.println("Partition maintenance failed for schema " + tenant + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private void maintain(String tenant, YearMonth oldestKept) throws SQLException, IOException {
+        Connection conn = connectionProvider.getConnection(tenant);
+        try {
+            if (!isPartitioned(conn) || !tryLock(conn)) {
+                return;
+            }
+            try {
+                int created = createPartitions(conn);
+                if (created > 0) {
+                    System.out.println("Created " + created + " expense partitions in schema " + tenant);
+                }
+                long unpartitioned = countDefaultPartition(conn);
+                if (unpartitioned > 0) {
+                    System.err.println("⚠ " + unpartitioned + " expenses of schema " + tenant + " are in the default partition;"
+                            + " their months are outside expenses.partitions.months-ahead of now");
+                }
+                if (retentionEnabled) {
+                    retireExpired(conn, tenant, oldestKept);
+                }
+            } finally {
+                unlock(conn);
+            }
+        } finally {
+            connectionProvider.releaseConnection(tenant, conn);
+        }
+    }
+
+    private void retireExpired(Connection conn, String tenant, YearMonth oldestKept) throws SQLException, IOException {
+        boolean detachedAny = false;
+        try {
+            for (Partition partition : partitions(conn)) {
+                if (!partition.month().isBefore(oldestKept)) {
+                    continue;
+                }
+                if (partition.attached()) {
+                    long rows = detach(conn, partition.name());
+                    detachedAny = true;
+                    System.out.println("Detached " + partition.name() + " (" + rows + " expenses) in schema " + tenant);
+                }
+                Path file = archive(conn, tenant, partition.name());
+                drop(conn, partition.name());
+                System.out.println("Archived " + partition.name() + " of schema " + tenant + " to " + file + " and dropped it");
+            }
+        } finally {
+            if (detachedAny) {
+                // the detached rows vanished without going through Hibernate
+                invalidateCaches(tenant);
+            }
+        }
+    }
+
+    private static boolean isPartitioned(Connection conn) throws SQLException {
+        try (Statement st = conn.createStatement();
+             ResultSet rs = st.executeQuery("SELECT relkind FROM pg_class WHERE oid = to_regclass('expense')")) {
+            return rs.next() && "p".equals(rs.getString(1));
+        }
+    }
+
+    private static boolean tryLock(Connection conn) throws SQLException {
+        try (Statement st = conn.createStatement();
+             ResultSet rs = st.executeQuery("SELECT pg_try_advisory_lock(" + LOCK_KEY + ")")) {
+            return rs.next() && rs.getBoolean(1);
+        }
+    }
+
+    private static void unlock(Connection conn) {
+        try (Statement st = conn.createStatement()) {
+            st.execute("SELECT pg_advisory_unlock(" + LOCK_KEY + ")");
+        } catch (SQLException e) {
+            // a session lock dies with its connection, so this can only delay the next run
+            System.err.println("Could not release partition maintenance lock: " + e.getMessage());
+        }
+    }
+
+    private int createPartitions(Connection conn) throws SQLException {
+        return (int) inLockBoundedTransaction(conn, "SELECT expense_create_partitions(?)", monthsAhead);
+    }
+
+    // rows left there after expense_create_partitions() belong to months it does not cover
+    private static long countDefaultPartition(Connection conn) throws SQLException {
+        try (Statement st = conn.createStatement();
+             ResultSet rs = st.executeQuery("SELECT count(*) FROM expense_pdefault")) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    private long detach(Connection conn, String partition) throws SQLException {
+        return inLockBoundedTransaction(conn, "SELECT expense_detach_partition(?)", partition);
+    }
+
+    /**
+     * Run a single-value function call in its own transaction with {@code expenses.retention.lock-timeout},
+     * so DDL on the partitioned table gives up instead of queueing every request behind it.
+     */
+    private long inLockBoundedTransaction(Connection conn, String sql, Object argument) throws SQLException {
+        conn.setAutoCommit(false);
+        try {
+            try (Statement st = conn.createStatement()) {
+                st.execute("SET LOCAL lock_timeout = '" + lockTimeoutMillis + "ms'");
+            }
+            long result;
+            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                ps.setObject(1, argument);
+                try (ResultSet rs = ps.executeQuery()) {
+                    rs.next();
+                    result = rs.getLong(1);
+                }
+            }
+            conn.commit();
+            return result;
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+
+    private static List<Partition> partitions(Connection conn) throws SQLException {
+        List<Partition> result = new ArrayList<>();
+        try (Statement st = conn.createStatement();
+             ResultSet rs = st.executeQuery(PARTITIONS_QUERY)) {
+            while (rs.next()) {
+                Matcher m = PARTITION_NAME.matcher(rs.getString(1));
+                if (m.matches()) {
+                    YearMonth month = YearMonth.of(Integer.parseInt(m.group(1)), Integer.parseInt(m.group(2)));
+                    result.add(new Partition(m.group(), month, rs.getBoolean(2)));
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Write the detached partition to a gzip'd NDJSON file. The file is written under a temporary
+     * name, synced and then renamed, so a complete archive exists before the table is dropped.
+     */
+    private Path archive(Connection conn, String tenant, String partition) throws SQLException, IOException {
+        Path dir = archiveDir.resolve(tenant);
+        Files.createDirectories(dir);
+        Path target = dir.resolve(partition + ".ndjson.gz");
+        Path temp = dir.resolve(partition + ".ndjson.gz.part");
+
+        // the driver only honours the fetch size inside a transaction
+        conn.setAutoCommit(false);
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                     StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+             GZIPOutputStream gzip = new GZIPOutputStream(Channels.newOutputStream(channel), 64 * 1024);
+             PreparedStatement ps = conn.prepareStatement(
+                     "SELECT id, description, amount, created_at FROM " + quoteIdentifier(partition) + " ORDER BY id")) {
+            ps.setFetchSize(FETCH_SIZE);
+            try (ResultSet rs = ps.executeQuery();
+                 JsonGenerator json = objectMapper.getFactory().createGenerator((OutputStream) gzip)) {
+                json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                while (rs.next()) {
+                    json.writeStartObject();
+                    json.writeNumberField("id", rs.getLong(1));
+                    json.writeStringField("description", rs.getString(2));
+                    json.writeNumberField("amount", rs.getBigDecimal(3));
+                    json.writeStringField("createdAt", rs.getObject(4, OffsetDateTime.class).toInstant().toString());
+                    json.writeEndObject();
+                    json.writeRaw('\n');
+                }
+            }
+            gzip.finish();
+            channel.force(true);
+            conn.commit();
+        } catch (SQLException | IOException e) {
+            conn.rollback();
+            Files.deleteIfExists(temp);
+            throw e;
+        } finally {
+            conn.setAutoCommit(true);
+        }
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        return target;
+    }
+
+    private static void drop(Connection conn, String partition) throws SQLException {
+        try (Statement st = conn.createStatement()) {
+            st.execute("DROP TABLE " + quoteIdentifier(partition));
+        }
+    }
+
+    private void invalidateCaches(String tenant) {
+        secondLevelCacheEvictor.evictExpenses();
+        try {
+            TenantContext.setCurrentTenant(tenant);
+            pageCache.invalidate();
+            analytics.invalidate();
+        } finally {
+            TenantContext.clear();
+        }
+    }
+
+    private static String quoteIdentifier(String identifier) {
+        return "\"" + identifier.replace("\"", "\"\"") + "\"";
+    }
+}
@@ -21,9 +21,11 @@ import java.util.Map;
 public class DebugController {
     
     private final DataSource dataSource;
+    private final TenantRegistry tenantRegistry;
     
-    public DebugController(DataSource dataSource) {
+    public DebugController(DataSource dataSource, TenantRegistry tenantRegistry) {
         this.dataSource = dataSource;
+        this.tenantRegistry = tenantRegistry;
     }
     
     @GetMapping("/current-tenant")
@@ -35,24 +37,7 @@ public class DebugController {
     
     @GetMapping("/schemas")
     public List<String> getSchemas() {
-        List<String> schemas = new ArrayList<>();
-        try (Connection conn = dataSource.getConnection();
-             Statement st = conn.createStatement()) {
-            
-            ResultSet rs = st.executeQuery(
-                "SELECT schema_name FROM information_schema.schemata " +
-                "WHERE schema_name NOT IN ('information_schema', 'pg_catalog', 'pg_toast', 'pg_temp_1', 'pg_toast_temp_1')"
-            );
-            
-            while (rs.next()) {
-                schemas.add(rs.getString("schema_name"));
-            }
-            
-        } catch (Exception e) {
-            schemas.add("Error: " + e.getMessage());
-        }
-        
-        return schemas;
+        return tenantRegistry.knownTenants();
     }
     
     @GetMapping("/tables/{schema}")
@@ -2,7 +2,6 @@ package io.github.leon_rgb.miniconcurexpense.tenant;
 
 import org.hibernate.context.spi.CurrentTenantIdentifierResolver;
 import org.springframework.stereotype.Component;
-import java.util.Optional;
 
 /**
  * Resolves the current tenant identifier from the TenantContext.
@@ -11,7 +10,7 @@ import java.util.Optional;
 @Component
 public class HeaderTenantIdentifierResolver implements CurrentTenantIdentifierResolver<String> {
   public String resolveCurrentTenantIdentifier() {
-    return Optional.ofNullable(TenantContext.getCurrentTenant()).orElse("public");
+    return TenantContext.getCurrentTenantOrDefault();
   }
   public boolean validateExistingCurrentSessions() { return true; }
 }
@@ -1,11 +1,17 @@
 package io.github.leon_rgb.miniconcurexpense.tenant;
 
+import io.github.leon_rgb.miniconcurexpense.trace.RequestTracer;
+import io.github.leon_rgb.miniconcurexpense.trace.TraceSessionEventListener;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.jcache.MissingCacheStrategy;
 import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.orm.jpa.EntityManagerFactoryBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
 
+import javax.cache.CacheManager;
 import javax.sql.DataSource;
 import java.util.HashMap;
 import java.util.Map;
@@ -19,13 +25,22 @@ public class MultiTenantJpaConfiguration {
     private final DataSource dataSource;
     private final SchemaPerTenantConnectionProvider connectionProvider;
     private final HeaderTenantIdentifierResolver tenantIdentifierResolver;
+    private final RequestTracer requestTracer;
+    private final CacheManager hibernateCacheManager;
+    private final boolean secondLevelCacheEnabled;
 
     public MultiTenantJpaConfiguration(DataSource dataSource,
                                        SchemaPerTenantConnectionProvider connectionProvider,
-                                       HeaderTenantIdentifierResolver tenantIdentifierResolver) {
+                                       HeaderTenantIdentifierResolver tenantIdentifierResolver,
+                                       RequestTracer requestTracer,
+                                       CacheManager hibernateCacheManager,
+                                       @Value("${expenses.l2-cache.enabled:true}") boolean secondLevelCacheEnabled) {
         this.dataSource = dataSource;
         this.connectionProvider = connectionProvider;
         this.tenantIdentifierResolver = tenantIdentifierResolver;
+        this.requestTracer = requestTracer;
+        this.hibernateCacheManager = hibernateCacheManager;
+        this.secondLevelCacheEnabled = secondLevelCacheEnabled;
     }
 
     /**
@@ -39,11 +54,24 @@ public class MultiTenantJpaConfiguration {
         
         props.put(AvailableSettings.MULTI_TENANT_CONNECTION_PROVIDER, connectionProvider);
         props.put(AvailableSettings.MULTI_TENANT_IDENTIFIER_RESOLVER, tenantIdentifierResolver);
+        props.put(AvailableSettings.STATEMENT_INSPECTOR, new RequestStatementCounter());
+        if (requestTracer.isEnabled()) {
+            // per-session listener measuring DB time; not registered at all when tracing is off
+            props.put(AvailableSettings.AUTO_SESSION_EVENTS_LISTENER, TraceSessionEventListener.class.getName());
+        }
         props.put(AvailableSettings.DIALECT, "org.hibernate.dialect.PostgreSQLDialect");
         
         // Enable schema-per-tenant multi-tenancy
         props.put("hibernate.multiTenancy", "SCHEMA");
 
+        // Second-level cache; cache keys include the tenant identifier. No query cache: its entries
+        // would outlive writes made on other app instances (see ExpenseRepository).
+        props.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, secondLevelCacheEnabled);
+        props.put(AvailableSettings.USE_QUERY_CACHE, false);
+        props.put(AvailableSettings.CACHE_REGION_FACTORY, "jcache");
+        props.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+        props.put(ConfigSettings.MISSING_CACHE_STRATEGY, MissingCacheStrategy.FAIL.getExternalRepresentation());
+
         return builder
                 .dataSource(dataSource)
                 .packages("io.github.leon_rgb.miniconcurexpense.model")
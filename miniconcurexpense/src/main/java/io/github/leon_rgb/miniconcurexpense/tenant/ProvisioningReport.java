@@ -0,0 +1,18 @@
+package io.github.leon_rgb.miniconcurexpense.tenant;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Outcome of one provisioning run, with the time spent on every tenant.
+ */
+public record ProvisioningReport(Instant finishedAt, long totalMillis, int parallelism, List<TenantResult> tenants) {
+
+    public enum Outcome { MIGRATED, UP_TO_DATE, FAILED }
+
+    public record TenantResult(String tenant, Outcome outcome, long millis, String error) {}
+
+    public long count(Outcome outcome) {
+        return tenants.stream().filter(t -> t.outcome() == outcome).count();
+    }
+}
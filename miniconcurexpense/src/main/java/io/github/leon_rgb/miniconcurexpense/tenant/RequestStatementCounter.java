@@ -0,0 +1,35 @@
+package io.github.leon_rgb.miniconcurexpense.tenant;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Counts the JDBC statements Hibernate prepares on the current thread between
+ * {@link #start()} and {@link #stop()} (TenantFilter brackets every request with them).
+ * Statements prepared outside such a window are passed through without counting.
+ */
+public class RequestStatementCounter implements StatementInspector {
+
+    private static final ThreadLocal<int[]> counter = new ThreadLocal<>();
+
+    public static void start() {
+        counter.set(new int[1]);
+    }
+
+    /**
+     * @return the number of statements since {@link #start()}, or 0 if counting was not active
+     */
+    public static int stop() {
+        int[] count = counter.get();
+        counter.remove();
+        return count == null ? 0 : count[0];
+    }
+
+    @Override
+    public String inspect(String sql) {
+        int[] count = counter.get();
+        if (count != null) {
+            count[0]++;
+        }
+        return sql;
+    }
+}
@@ -1,6 +1,9 @@
 package io.github.leon_rgb.miniconcurexpense.tenant;
 
-import lombok.RequiredArgsConstructor;
+import io.github.leon_rgb.miniconcurexpense.datasource.ReplicaRoutingDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.hibernate.engine.jdbc.connections.spi.MultiTenantConnectionProvider;
 import org.springframework.stereotype.Component;
 
@@ -8,16 +11,49 @@ import javax.sql.DataSource;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.sql.Statement;
-import java.sql.ResultSet;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Connection provider that sets the PostgreSQL schema based on the tenant identifier.
+ *
+ * The pool hands out the same physical connections over and over, so the provider remembers
+ * which search_path each physical connection currently has and only issues
+ * {@code SET search_path} when the tenant actually changes. Connections are returned to the
+ * pool with their schema left in place; everything else that talks to the raw DataSource
+ * must therefore use schema-qualified names instead of changing the search_path itself.
+ *
+ * Pool wait time and the cost of the SET are recorded per tenant through {@link TenantMetrics}.
+ *
+ * The DataSource is the {@link ReplicaRoutingDataSource}, so a connection may come from a read
+ * replica; the search_path cache does not care, since it is keyed by the physical connection.
  */
 @Component
-@RequiredArgsConstructor
 public class SchemaPerTenantConnectionProvider implements MultiTenantConnectionProvider<String> {
-    
+
     private final DataSource dataSource;
+    private final TenantMetrics tenantMetrics;
+
+    // keyed by the physical connection behind the pool proxy; weak so evicted connections drop out
+    private final Map<Connection, String> currentSchemas = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private final Counter switchesPerformed;
+    private final Counter switchesSkipped;
+
+    public SchemaPerTenantConnectionProvider(DataSource dataSource, MeterRegistry meterRegistry, TenantMetrics tenantMetrics) {
+        this.dataSource = dataSource;
+        this.tenantMetrics = tenantMetrics;
+        this.switchesPerformed = Counter.builder("tenant.search_path.switches")
+                .description("Connection checkouts that had to change the search_path")
+                .tag("outcome", "switched")
+                .register(meterRegistry);
+        this.switchesSkipped = Counter.builder("tenant.search_path.switches")
+                .description("Connection checkouts that already had the tenant's search_path")
+                .tag("outcome", "skipped")
+                .register(meterRegistry);
+    }
 
     @Override
     public Connection getAnyConnection() throws SQLException {
@@ -26,17 +62,25 @@ public class SchemaPerTenantConnectionProvider implements MultiTenantConnectionP
 
     @Override
     public Connection getConnection(String tenantIdentifier) throws SQLException {
+        long acquireStart = System.nanoTime();
         Connection connection = dataSource.getConnection();
-        try (Statement statement = connection.createStatement()) {
-            // Set the schema for this tenant - note the correct syntax
-            System.out.println("Setting search_path to: " + tenantIdentifier);
-            statement.execute("SET search_path TO \"" + tenantIdentifier + "\"");
-            
-            // Verify the search path was set
-            ResultSet rs = statement.executeQuery("SHOW search_path");
-            if (rs.next()) {
-                System.out.println("Current search_path: " + rs.getString(1));
+        long acquired = System.nanoTime();
+        tenantMetrics.connectionAcquire(tenantIdentifier).record(acquired - acquireStart, TimeUnit.NANOSECONDS);
+        try {
+            Connection physical = physicalConnection(connection);
+            if (tenantIdentifier.equals(currentSchemas.get(physical))) {
+                switchesSkipped.increment();
+                return connection;
+            }
+            // forget the old value first, so a failed SET can never leave a stale entry behind
+            currentSchemas.remove(physical);
+            Timer.Sample sample = Timer.start();
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("SET search_path TO " + quoteIdentifier(tenantIdentifier));
             }
+            sample.stop(tenantMetrics.searchPathSwitch(tenantIdentifier));
+            currentSchemas.put(physical, tenantIdentifier);
+            switchesPerformed.increment();
         } catch (SQLException e) {
             System.err.println("Error setting search_path for tenant " + tenantIdentifier + ": " + e.getMessage());
             connection.close();
@@ -52,12 +96,8 @@ public class SchemaPerTenantConnectionProvider implements MultiTenantConnectionP
 
     @Override
     public void releaseConnection(String tenantIdentifier, Connection connection) throws SQLException {
-        try (Statement statement = connection.createStatement()) {
-            // Reset to public schema
-            statement.execute("SET search_path TO public");
-        } finally {
-            connection.close();
-        }
+        // The search_path is left as is: the next checkout for the same tenant can skip the SET.
+        connection.close();
     }
 
     @Override
@@ -75,4 +115,15 @@ public class SchemaPerTenantConnectionProvider implements MultiTenantConnectionP
     public <T> T unwrap(Class<T> unwrapType) {
         return null;
     }
-}
\ No newline at end of file
+
+    /**
+     * The pool wraps every checkout in a new proxy, so the cache has to be keyed by the driver connection.
+     */
+    private static Connection physicalConnection(Connection connection) throws SQLException {
+        return connection.isWrapperFor(Connection.class) ? connection.unwrap(Connection.class) : connection;
+    }
+
+    private static String quoteIdentifier(String identifier) {
+        return "\"" + identifier.replace("\"", "\"\"") + "\"";
+    }
+}
@@ -1,11 +1,21 @@
 package io.github.leon_rgb.miniconcurexpense.tenant;
 
+import java.util.concurrent.Callable;
+
 /**
  * Utility class to hold the current tenant identifier in a ThreadLocal variable. 
  * This means that the tenant context is specific to the current thread and won't interfere with other threads.
  * This is crucial in a multi-tenant application where multiple requests (threads) may be handled concurrently.
+ *
+ * Work handed to another thread does not see the ThreadLocal, so it has to be wrapped with
+ * {@link #wrap(Runnable)} / {@link #wrap(Callable)}; {@link TenantTaskDecorator} does this for every
+ * Spring-managed executor (@Async, MVC async). The wrappers bind the tenant only for the duration of
+ * the task and restore the previous value afterwards, like {@code ScopedValue.where(...).run(...)}.
  */
 public class TenantContext {
+    /** Tenant (schema) used when a request carries no X-Tenant header. */
+    public static final String DEFAULT_TENANT = "public";
+
     private static final ThreadLocal<String> currentTenant = new ThreadLocal<>();
 
     public static void setCurrentTenant(String tenant) {
@@ -16,7 +26,57 @@ public class TenantContext {
         return currentTenant.get();
     }
 
+    /**
+     * Same as {@link #getCurrentTenant()} but falls back to {@link #DEFAULT_TENANT},
+     * mirroring what {@link HeaderTenantIdentifierResolver} hands to Hibernate.
+     */
+    public static String getCurrentTenantOrDefault() {
+        String tenant = currentTenant.get();
+        return tenant != null ? tenant : DEFAULT_TENANT;
+    }
+
     public static void clear() {
         currentTenant.remove();
     }
+
+    /**
+     * Capture the caller's tenant and return a task that runs with it bound, on whatever thread executes it.
+     */
+    public static Runnable wrap(Runnable task) {
+        String tenant = currentTenant.get();
+        return () -> {
+            String previous = bind(tenant);
+            try {
+                task.run();
+            } finally {
+                bind(previous);
+            }
+        };
+    }
+
+    /**
+     * Callable variant of {@link #wrap(Runnable)}.
+     */
+    public static <T> Callable<T> wrap(Callable<T> task) {
+        String tenant = currentTenant.get();
+        return () -> {
+            String previous = bind(tenant);
+            try {
+                return task.call();
+            } finally {
+                bind(previous);
+            }
+        };
+    }
+
+    // set (or remove, for null) the tenant and return the value it replaces
+    private static String bind(String tenant) {
+        String previous = currentTenant.get();
+        if (tenant == null) {
+            currentTenant.remove();
+        } else {
+            currentTenant.set(tenant);
+        }
+        return previous;
+    }
 }
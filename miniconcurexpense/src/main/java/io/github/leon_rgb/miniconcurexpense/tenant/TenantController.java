@@ -12,10 +12,19 @@ import org.springframework.web.bind.annotation.*;
 public class TenantController {
 
     private final TenantService tenantService;
+    private final TenantProvisioner tenantProvisioner;
 
     @PostMapping("/{tenantId}")
     public String createTenant(@PathVariable String tenantId) {
         tenantService.createTenant(tenantId);
         return "Tenant created: " + tenantId;
     }
+
+    /**
+     * Per-tenant timings of the last provisioning run (normally the one at startup).
+     */
+    @GetMapping("/provisioning")
+    public ProvisioningReport lastProvisioning() {
+        return tenantProvisioner.getLastReport();
+    }
 }
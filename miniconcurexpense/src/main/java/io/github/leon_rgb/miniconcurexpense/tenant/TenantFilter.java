@@ -4,6 +4,9 @@ import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import io.github.leon_rgb.miniconcurexpense.trace.RequestTrace;
+import io.github.leon_rgb.miniconcurexpense.trace.RequestTracer;
+import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 import org.springframework.lang.NonNull;
@@ -13,9 +16,17 @@ import java.io.IOException;
 /**
  * Servlet filter that extracts the tenant identifier from the "X-Tenant" header
  * and sets it in the TenantContext for the duration of the request.
+ * Unknown tenants are rejected with 404 from the in-memory TenantRegistry, before any database work.
+ * Also records how many statements Hibernate prepared for the request (see {@link RequestStatementCounter})
+ * and hands the request to the {@link RequestTracer}; nothing is written to stdout on this path.
  */
 @Component
+@RequiredArgsConstructor
 public class TenantFilter extends OncePerRequestFilter {
+
+    private final TenantRegistry tenantRegistry;
+    private final TenantMetrics tenantMetrics;
+    private final RequestTracer requestTracer;
     
     @Override
     protected void doFilterInternal(@NonNull HttpServletRequest request, 
@@ -27,15 +38,29 @@ public class TenantFilter extends OncePerRequestFilter {
         
         // Default to "public" if no tenant header is provided
         if (tenant == null || tenant.isBlank()) {
-            tenant = "public";
+            tenant = TenantContext.DEFAULT_TENANT;
+        }
+
+        if (!tenantRegistry.contains(tenant)) {
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            response.setContentType("application/json");
+            response.getWriter().write("{\"error\":\"Unknown tenant\"}");
+            return;
         }
         
-        System.out.println("Processing request for tenant: " + tenant);
-        
+        RequestTrace trace = requestTracer.start(tenant, request);
+        Throwable failure = null;
         try {
             TenantContext.setCurrentTenant(tenant);
+            RequestStatementCounter.start();
             filterChain.doFilter(request, response);
+        } catch (ServletException | IOException | RuntimeException e) {
+            failure = e;
+            throw e;
         } finally {
+            int statements = RequestStatementCounter.stop();
+            tenantMetrics.statementsPerRequest(tenant).record(statements);
+            requestTracer.finish(trace, request, response.getStatus(), failure, statements);
             TenantContext.clear();
         }
     }
@@ -0,0 +1,109 @@
+package io.github.leon_rgb.miniconcurexpense.tenant;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Per-tenant meters for the request and database path, all tagged with {@code tenant}.
+ *
+ * To keep the number of time series bounded, only the first {@code tenants.metrics.max-tagged-tenants}
+ * known tenants that show up get their own tag value; later ones are reported as {@code other}
+ * and tenants missing from the {@link TenantRegistry} as {@code unknown}.
+ * Meters are cached per tag value, so recording does not go through the registry lookup.
+ */
+@Component
+public class TenantMetrics {
+
+    public static final String TAG = "tenant";
+    static final String OTHER_TENANTS = "other";
+    static final String UNKNOWN_TENANT = "unknown";
+
+    private final MeterRegistry meterRegistry;
+    private final TenantRegistry tenantRegistry;
+    private final int maxTaggedTenants;
+
+    private final Set<String> taggedTenants = ConcurrentHashMap.newKeySet();
+    private final Map<String, Timer> connectionAcquire = new ConcurrentHashMap<>();
+    private final Map<String, Timer> searchPathSwitch = new ConcurrentHashMap<>();
+    private final Map<String, DistributionSummary> statementsPerRequest = new ConcurrentHashMap<>();
+    private final Map<String, DistributionSummary> pageRows = new ConcurrentHashMap<>();
+
+    public TenantMetrics(MeterRegistry meterRegistry,
+                         TenantRegistry tenantRegistry,
+                         @Value("${tenants.metrics.max-tagged-tenants:100}") int maxTaggedTenants) {
+        this.meterRegistry = meterRegistry;
+        this.tenantRegistry = tenantRegistry;
+        this.maxTaggedTenants = maxTaggedTenants;
+    }
+
+    /**
+     * The value to use for the {@code tenant} tag of the given tenant (null means the default tenant).
+     */
+    public String tenantTag(String tenant) {
+        if (tenant == null) {
+            tenant = TenantContext.DEFAULT_TENANT;
+        }
+        if (taggedTenants.contains(tenant)) {
+            return tenant;
+        }
+        if (!tenantRegistry.contains(tenant)) {
+            return UNKNOWN_TENANT;
+        }
+        synchronized (taggedTenants) {
+            if (taggedTenants.size() < maxTaggedTenants) {
+                taggedTenants.add(tenant);
+                return tenant;
+            }
+        }
+        return OTHER_TENANTS;
+    }
+
+    /** Time spent waiting for a pooled connection for the tenant. */
+    public Timer connectionAcquire(String tenant) {
+        return connectionAcquire.computeIfAbsent(tenantTag(tenant), tag -> Timer.builder("tenant.connection.acquire")
+                .description("Time to check out a pooled connection for a tenant")
+                .tag(TAG, tag)
+                .publishPercentileHistogram()
+                .register(meterRegistry));
+    }
+
+    /** Time spent on SET search_path when a checkout had to switch schema. */
+    public Timer searchPathSwitch(String tenant) {
+        return searchPathSwitch.computeIfAbsent(tenantTag(tenant), tag -> Timer.builder("tenant.search_path.switch.duration")
+                .description("Time spent changing the search_path of a pooled connection")
+                .tag(TAG, tag)
+                .publishPercentileHistogram()
+                .register(meterRegistry));
+    }
+
+    /** JDBC statements Hibernate prepared while handling one request. */
+    public DistributionSummary statementsPerRequest(String tenant) {
+        return summary(statementsPerRequest, tenant, tag -> DistributionSummary.builder("tenant.request.statements")
+                .description("Hibernate statements prepared per HTTP request")
+                .baseUnit("statements")
+                .tag(TAG, tag));
+    }
+
+    /** Rows returned by one listing request. */
+    public DistributionSummary pageRows(String tenant) {
+        return summary(pageRows, tenant, tag -> DistributionSummary.builder("expenses.page.rows")
+                .description("Expenses returned per GET /expenses request")
+                .baseUnit("rows")
+                .tag(TAG, tag));
+    }
+
+    private DistributionSummary summary(Map<String, DistributionSummary> cache, String tenant,
+                                        Function<String, DistributionSummary.Builder> builder) {
+        return cache.computeIfAbsent(tenantTag(tenant), tag -> builder.apply(tag)
+                .publishPercentileHistogram()
+                .register(meterRegistry));
+    }
+}
@@ -0,0 +1,217 @@
+package io.github.leon_rgb.miniconcurexpense.tenant;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Brings many tenant schemas up to date at once.
+ *
+ * The first tenant is migrated on its own and validated against the migrations on the
+ * classpath. If it passes, its newest Flyway history entry (version + checksum) is what "up to
+ * date" means for this build: the history heads of all other schemas are then read in one
+ * query, matching schemas are skipped, and the rest are migrated in parallel on a bounded
+ * executor sized to the connection pool. If it does not (e.g. its migration fell back to the
+ * manual DDL), its head proves nothing and every schema is migrated.
+ */
+@Component
+public class TenantProvisioner {
+
+    private final TenantService tenantService;
+    private final TenantRegistry tenantRegistry;
+    private final DataSource dataSource;
+    private final int parallelism;
+
+    private volatile ProvisioningReport lastReport;
+
+    private record HistoryHead(String version, Integer checksum) {}
+
+    public TenantProvisioner(TenantService tenantService,
+                             TenantRegistry tenantRegistry,
+                             DataSource dataSource,
+                             @Value("${tenants.provisioning.parallelism:0}") int parallelism) {
+        this.tenantService = tenantService;
+        this.tenantRegistry = tenantRegistry;
+        this.dataSource = dataSource;
+        this.parallelism = parallelism > 0 ? parallelism : defaultParallelism(dataSource);
+    }
+
+    /**
+     * Create and migrate the given tenants. Blocks until every tenant has been handled.
+     */
+    public ProvisioningReport provisionAll(Collection<String> tenants) {
+        long start = System.nanoTime();
+        List<String> ordered = new ArrayList<>(new LinkedHashSet<>(tenants));
+        List<ProvisioningReport.TenantResult> results = new ArrayList<>();
+        if (!ordered.isEmpty()) {
+            String reference = ordered.get(0);
+            List<String> rest = ordered.subList(1, ordered.size());
+
+            results.add(migrate(reference));
+            HistoryHead expected = tenantService.isUpToDate(reference)
+                    ? readHistoryHeads(List.of(reference)).get(reference)
+                    : null;
+            Map<String, HistoryHead> heads = expected == null ? Map.of() : readHistoryHeads(rest);
+
+            List<String> pending = new ArrayList<>();
+            for (String tenant : rest) {
+                if (expected != null && expected.equals(heads.get(tenant))) {
+                    tenantRegistry.register(tenant);
+                    results.add(new ProvisioningReport.TenantResult(tenant, ProvisioningReport.Outcome.UP_TO_DATE, 0, null));
+                } else {
+                    pending.add(tenant);
+                }
+            }
+            results.addAll(runInParallel(pending, this::migrate));
+        }
+
+        long totalMillis = (System.nanoTime() - start) / 1_000_000;
+        ProvisioningReport report = new ProvisioningReport(Instant.now(), totalMillis, parallelism, List.copyOf(results));
+        lastReport = report;
+        for (ProvisioningReport.TenantResult r : results) {
+            System.out.println("  " + r.tenant() + ": " + r.outcome() + " in " + r.millis() + " ms"
+                    + (r.error() != null ? " (" + r.error() + ")" : ""));
+        }
+        System.out.println("Provisioned " + results.size() + " tenants in " + totalMillis + " ms with parallelism " + parallelism
+                + ": " + report.count(ProvisioningReport.Outcome.MIGRATED) + " migrated, "
+                + report.count(ProvisioningReport.Outcome.UP_TO_DATE) + " up to date, "
+                + report.count(ProvisioningReport.Outcome.FAILED) + " failed");
+        return report;
+    }
+
+    /**
+     * Run a task for every tenant on the provisioning executor and wait for all of them.
+     * Results are returned in input order. Tasks run on pool threads, so they have to set
+     * the TenantContext themselves if they need it.
+     */
+    public <T> List<T> runInParallel(Collection<String> tenants, Function<String, T> task) {
+        if (tenants.isEmpty()) {
+            return List.of();
+        }
+        AtomicInteger threadNumber = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, tenants.size()),
+                r -> new Thread(r, "tenant-provisioning-" + threadNumber.incrementAndGet()));
+        try {
+            List<Future<T>> futures = new ArrayList<>();
+            for (String tenant : tenants) {
+                futures.add(executor.submit(() -> task.apply(tenant)));
+            }
+            List<T> results = new ArrayList<>(futures.size());
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while provisioning tenants", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Tenant task failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    public ProvisioningReport getLastReport() {
+        return lastReport;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    private ProvisioningReport.TenantResult migrate(String tenant) {
+        long start = System.nanoTime();
+        try {
+            tenantService.createTenant(tenant);
+            return new ProvisioningReport.TenantResult(tenant, ProvisioningReport.Outcome.MIGRATED, elapsedMillis(start), null);
+        } catch (Exception e) {
+            System.err.println("✖ Failed to initialize tenant '" + tenant + "': " + e.getMessage());
+            return new ProvisioningReport.TenantResult(tenant, ProvisioningReport.Outcome.FAILED, elapsedMillis(start), e.getMessage());
+        }
+    }
+
+    /**
+     * Newest successful versioned migration of each schema, read in a single UNION ALL query.
+     * Schemas without a Flyway history table are simply absent from the result.
+     */
+    private Map<String, HistoryHead> readHistoryHeads(List<String> schemas) {
+        Map<String, HistoryHead> heads = new HashMap<>();
+        if (schemas.isEmpty()) {
+            return heads;
+        }
+        try (Connection conn = dataSource.getConnection();
+             Statement st = conn.createStatement()) {
+            Set<String> withHistory = new HashSet<>();
+            try (ResultSet rs = st.executeQuery(
+                    "SELECT table_schema FROM information_schema.tables WHERE table_name = 'flyway_schema_history'")) {
+                while (rs.next()) {
+                    withHistory.add(rs.getString(1));
+                }
+            }
+
+            StringBuilder sql = new StringBuilder();
+            for (String schema : schemas) {
+                if (!withHistory.contains(schema)) {
+                    continue;
+                }
+                if (!sql.isEmpty()) {
+                    sql.append(" UNION ALL ");
+                }
+                sql.append("(SELECT '").append(schema.replace("'", "''")).append("' AS schema_name, version, checksum")
+                   .append(" FROM \"").append(schema.replace("\"", "\"\"")).append("\".flyway_schema_history")
+                   .append(" WHERE success AND version IS NOT NULL ORDER BY installed_rank DESC LIMIT 1)");
+            }
+            if (sql.isEmpty()) {
+                return heads;
+            }
+            try (ResultSet rs = st.executeQuery(sql.toString())) {
+                while (rs.next()) {
+                    Integer checksum = (Integer) rs.getObject("checksum");
+                    heads.put(rs.getString("schema_name"), new HistoryHead(rs.getString("version"), checksum));
+                }
+            }
+        } catch (SQLException e) {
+            // without the heads every schema is simply migrated, which is slower but always correct
+            System.err.println("Could not read Flyway history heads: " + e.getMessage());
+            heads.clear();
+        }
+        return heads;
+    }
+
+    // A Flyway run can hold two connections (history table + migration), so use half the pool.
+    private static int defaultParallelism(DataSource dataSource) {
+        try {
+            if (dataSource.isWrapperFor(HikariDataSource.class)) {
+                return Math.max(1, dataSource.unwrap(HikariDataSource.class).getMaximumPoolSize() / 2);
+            }
+        } catch (SQLException e) {
+            System.err.println("Could not determine pool size, provisioning with parallelism 2: " + e.getMessage());
+        }
+        return 2;
+    }
+
+    private static long elapsedMillis(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+}
@@ -0,0 +1,89 @@
+package io.github.leon_rgb.miniconcurexpense.tenant;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory set of known tenant schemas, so request handling can validate a tenant
+ * without going to the database.
+ *
+ * Loaded once at startup, updated by {@link TenantService#createTenant} and refreshed
+ * periodically to pick up schemas created (or dropped) through other replicas.
+ */
+@Component
+@RequiredArgsConstructor
+public class TenantRegistry {
+
+    private static final String SCHEMA_QUERY =
+            "SELECT schema_name FROM information_schema.schemata " +
+            "WHERE schema_name NOT IN ('information_schema', 'pg_catalog', 'pg_toast') " +
+            "AND schema_name NOT LIKE 'pg\\_temp\\_%' AND schema_name NOT LIKE 'pg\\_toast\\_temp\\_%'";
+
+    private final DataSource dataSource;
+
+    // tenant -> System.nanoTime() of when it was last seen or registered
+    private final Map<String, Long> tenants = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void load() {
+        refresh();
+    }
+
+    public boolean contains(String tenant) {
+        return tenant != null && tenants.containsKey(tenant);
+    }
+
+    public void register(String tenant) {
+        tenants.put(tenant, System.nanoTime());
+    }
+
+    /**
+     * @return the known tenants in alphabetical order
+     */
+    public List<String> knownTenants() {
+        List<String> result = new ArrayList<>(tenants.keySet());
+        result.sort(null);
+        return result;
+    }
+
+    /**
+     * Re-read the schema list from the database. Tenants registered locally while the
+     * query was running are kept even if the query did not see them yet.
+     */
+    @Scheduled(initialDelayString = "${tenants.registry.refresh-interval-ms:30000}",
+               fixedDelayString = "${tenants.registry.refresh-interval-ms:30000}")
+    public void refresh() {
+        long startedAt = System.nanoTime();
+        Set<String> schemas = new HashSet<>();
+        try (Connection conn = dataSource.getConnection();
+             Statement st = conn.createStatement();
+             ResultSet rs = st.executeQuery(SCHEMA_QUERY)) {
+            while (rs.next()) {
+                schemas.add(rs.getString("schema_name"));
+            }
+        } catch (SQLException e) {
+            System.err.println("Could not refresh tenant registry, keeping " + tenants.size() + " known tenants: " + e.getMessage());
+            return;
+        }
+
+        for (String schema : schemas) {
+            tenants.put(schema, startedAt);
+        }
+        tenants.entrySet().removeIf(e -> !schemas.contains(e.getKey()) && e.getValue() - startedAt < 0);
+        tenants.putIfAbsent(TenantContext.DEFAULT_TENANT, startedAt);
+    }
+}
@@ -2,28 +2,32 @@ package io.github.leon_rgb.miniconcurexpense.tenant;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
 
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
 /**
- * Initializes default tenant schemas on application startup.
+ * Initializes default tenant schemas on application startup and brings every
+ * known tenant schema up to the latest migration.
+ * Runs before the application reports ready, so the readiness probe only passes once
+ * provisioning has finished.
  */
 @Component
+@Order(1)
 @RequiredArgsConstructor
 public class TenantSchemaInitializer implements CommandLineRunner {
-    private final TenantService tenantService;
+    private final TenantProvisioner tenantProvisioner;
+    private final TenantRegistry tenantRegistry;
 
     @Override
     public void run(String... args) {
-        // Create default tenants on startup
-        String[] defaultTenants = {"sap", "ibm", "public"};
-        
-        for (String tenant : defaultTenants) {
-            try {
-                tenantService.createTenant(tenant);
-                System.out.println("✔ Tenant '" + tenant + "' is ready.");
-            } catch (Exception e) {
-                System.err.println("✖ Failed to initialize tenant '" + tenant + "': " + e.getMessage());
-            }
-        }
+        // Create default tenants on startup, then every other schema already in the database
+        Set<String> tenants = new LinkedHashSet<>(List.of("sap", "ibm", "public"));
+        tenants.addAll(tenantRegistry.knownTenants());
+
+        tenantProvisioner.provisionAll(tenants);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,32 @@
+package io.github.leon_rgb.miniconcurexpense.tenant;
+
+import io.micrometer.common.KeyValues;
+import org.springframework.http.server.observation.DefaultServerRequestObservationConvention;
+import org.springframework.http.server.observation.ServerRequestObservationContext;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+
+/**
+ * Adds a {@code tenant} tag to {@code http.server.requests}. The observation ends after TenantFilter
+ * has cleared the TenantContext, so the tenant is taken from the X-Tenant header and bounded by
+ * {@link TenantMetrics#tenantTag}.
+ */
+@Component
+public class TenantServerRequestObservationConvention extends DefaultServerRequestObservationConvention {
+
+    private final TenantMetrics tenantMetrics;
+
+    public TenantServerRequestObservationConvention(TenantMetrics tenantMetrics) {
+        this.tenantMetrics = tenantMetrics;
+    }
+
+    @Override
+    @NonNull
+    public KeyValues getLowCardinalityKeyValues(@NonNull ServerRequestObservationContext context) {
+        String tenant = context.getCarrier() == null ? null : context.getCarrier().getHeader("X-Tenant");
+        if (tenant != null && tenant.isBlank()) {
+            tenant = null;
+        }
+        return super.getLowCardinalityKeyValues(context).and(TenantMetrics.TAG, tenantMetrics.tenantTag(tenant));
+    }
+}
@@ -1,12 +1,12 @@
 package io.github.leon_rgb.miniconcurexpense.tenant;
 
+import io.github.leon_rgb.miniconcurexpense.model.Expense;
 import lombok.RequiredArgsConstructor;
 import org.flywaydb.core.Flyway;
 import org.springframework.stereotype.Service;
 
 import javax.sql.DataSource;
 import java.sql.Connection;
-import java.sql.ResultSet;
 import java.sql.Statement;
 import java.sql.SQLException;
 
@@ -17,46 +17,31 @@ import java.sql.SQLException;
 @RequiredArgsConstructor
 public class TenantService {
     private final DataSource dataSource;
+    private final TenantRegistry tenantRegistry;
 
     public void createTenant(String tenant) {
         try (Connection conn = dataSource.getConnection();
              Statement st = conn.createStatement()) {
             
-            // Check if schema already exists
-            ResultSet rs = st.executeQuery(
-                "SELECT schema_name FROM information_schema.schemata WHERE schema_name = '" + tenant + "'"
-            );
-            
-            if (!rs.next()) {
-                // Schema doesn't exist, create it
-                st.execute("CREATE SCHEMA \"" + tenant + "\"");
-                System.out.println("Created schema: " + tenant);
-                
-                // Run Flyway migration against this tenant schema
-                try {
-                    Flyway flyway = Flyway.configure()
-                            .dataSource(dataSource)
-                            .schemas(tenant)
-                            .locations("classpath:db/migration")
-                            .baselineOnMigrate(true)
-                            .load();
-                    
-                    flyway.migrate();
-                    System.out.println("Successfully migrated schema: " + tenant);
-                    
-                    // Verify table creation
-                    verifyTableExists(tenant);
-                    
-                } catch (Exception e) {
-                    System.err.println("Flyway migration failed for tenant " + tenant + ": " + e.getMessage());
-                    // Fallback: create table manually
-                    createTableManually(tenant);
-                }
-            } else {
-                System.out.println("Schema already exists: " + tenant);
-                // Check if table exists in existing schema
-                verifyTableExists(tenant);
+            // The registry already knows every existing schema, so there is no need to ask information_schema.
+            // IF NOT EXISTS covers schemas another replica created since the last registry refresh.
+            boolean known = tenantRegistry.contains(tenant);
+            st.execute("CREATE SCHEMA IF NOT EXISTS \"" + tenant + "\"");
+            System.out.println(known ? "Schema already exists: " + tenant : "Created schema: " + tenant);
+
+            // Run Flyway migration against this tenant schema. Existing schemas are migrated too,
+            // so later migrations (e.g. V2) reach tenants created before they were added.
+            try {
+                // A successful migration guarantees the expense table, no need to ask information_schema
+                migrateSchema(tenant);
+                System.out.println("Successfully migrated schema: " + tenant);
+
+            } catch (Exception e) {
+                System.err.println("Flyway migration failed for tenant " + tenant + ": " + e.getMessage());
+                // Fallback: create table manually
+                createTableManually(tenant);
             }
+            tenantRegistry.register(tenant);
             
         } catch (SQLException e) {
             System.err.println("Error creating tenant " + tenant + ": " + e.getMessage());
@@ -64,46 +49,49 @@ public class TenantService {
         }
     }
     
-    private void verifyTableExists(String tenant) {
-        try (Connection conn = dataSource.getConnection();
-             Statement st = conn.createStatement()) {
-            
-            // Set search path to the tenant schema
-            st.execute("SET search_path TO \"" + tenant + "\"");
-            
-            // Check if expense table exists
-            ResultSet rs = st.executeQuery(
-                "SELECT table_name FROM information_schema.tables " +
-                "WHERE table_schema = '" + tenant + "' AND table_name = 'expense'"
-            );
-            
-            if (rs.next()) {
-                System.out.println("Table 'expense' exists in schema: " + tenant);
-            } else {
-                System.out.println("Table 'expense' missing in schema: " + tenant + ", creating manually");
-                createTableManually(tenant);
-            }
-            
-        } catch (SQLException e) {
-            System.err.println("Error verifying table for tenant " + tenant + ": " + e.getMessage());
+    /**
+     * Whether the tenant's Flyway history matches the migrations on the classpath: every
+     * migration applied, with the checksum of this build. False for a schema whose migration
+     * fell back to the manual DDL.
+     */
+    public boolean isUpToDate(String tenant) {
+        try {
+            return flyway(tenant).validateWithResult().validationSuccessful;
+        } catch (Exception e) {
+            System.err.println("Could not validate schema " + tenant + " against the migrations: " + e.getMessage());
+            return false;
         }
     }
-    
+
+    private void migrateSchema(String tenant) {
+        flyway(tenant).migrate();
+    }
+
+    private Flyway flyway(String tenant) {
+        return Flyway.configure()
+                .dataSource(dataSource)
+                .schemas(tenant)
+                .locations("classpath:db/migration")
+                .baselineOnMigrate(true)
+                .load();
+    }
+
     private void createTableManually(String tenant) {
         try (Connection conn = dataSource.getConnection();
              Statement st = conn.createStatement()) {
             
-            // Set search path to the tenant schema
-            st.execute("SET search_path TO \"" + tenant + "\"");
-            
-            // Create the expense table manually
+            // Create the expense table manually. Names are schema-qualified instead of changing the
+            // search_path, which SchemaPerTenantConnectionProvider tracks for every pooled connection.
             st.execute(
-                "CREATE TABLE IF NOT EXISTS expense (" +
-                "    id SERIAL PRIMARY KEY," +
+                "CREATE TABLE IF NOT EXISTS \"" + tenant + "\".expense (" +
+                "    id BIGSERIAL PRIMARY KEY," +
                 "    description TEXT NOT NULL," +
-                "    amount NUMERIC(10,2) NOT NULL" +
+                "    amount NUMERIC(10,2) NOT NULL," +
+                "    created_at TIMESTAMPTZ NOT NULL DEFAULT now()" +
                 ")"
             );
+            // Keep in step with V2__Pooled_expense_id_sequence.sql
+            st.execute("ALTER SEQUENCE \"" + tenant + "\".expense_id_seq INCREMENT BY " + Expense.ID_ALLOCATION_SIZE);
             
             System.out.println("Manually created 'expense' table in schema: " + tenant);
             
@@ -0,0 +1,21 @@
+package io.github.leon_rgb.miniconcurexpense.tenant;
+
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+
+/**
+ * Carries the submitting thread's tenant into work run by Spring's task executors.
+ * Spring Boot applies a TaskDecorator bean to the auto-configured application task executor,
+ * which backs @Async methods and async MVC responses (e.g. the streaming export) - with
+ * platform threads as well as with virtual threads.
+ */
+@Component
+public class TenantTaskDecorator implements TaskDecorator {
+
+    @Override
+    @NonNull
+    public Runnable decorate(@NonNull Runnable runnable) {
+        return TenantContext.wrap(runnable);
+    }
+}
@@ -0,0 +1,48 @@
+package io.github.leon_rgb.miniconcurexpense.trace;
+
+/**
+ * Measurements of the request running on the current thread, filled in by the instrumentation
+ * points while the request runs and turned into a {@link TraceRecord} by {@link RequestTracer}.
+ *
+ * Only the request thread touches an instance, so the fields are plain. When tracing is
+ * disabled no instance is bound and every static hook returns after a single ThreadLocal read.
+ */
+public final class RequestTrace {
+
+    private static final ThreadLocal<RequestTrace> current = new ThreadLocal<>();
+
+    final String tenant;
+    final String method;
+    final boolean sampled;
+    final long startedAtMillis = System.currentTimeMillis();
+    final long startNanos = System.nanoTime();
+    long dbNanos;
+    long connectionWaitNanos;
+    long rows;
+
+    RequestTrace(String tenant, String method, boolean sampled) {
+        this.tenant = tenant;
+        this.method = method;
+        this.sampled = sampled;
+    }
+
+    static RequestTrace current() {
+        return current.get();
+    }
+
+    static void bind(RequestTrace trace) {
+        current.set(trace);
+    }
+
+    static void unbind() {
+        current.remove();
+    }
+
+    /** Add rows returned to the client by the current request. */
+    public static void addRows(long count) {
+        RequestTrace trace = current.get();
+        if (trace != null) {
+            trace.rows += count;
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package io.github.leon_rgb.miniconcurexpense.trace;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Sampled request tracing into a fixed-size in-memory ring buffer.
+ *
+ * A fraction ({@code tracing.sample-rate}) of requests is kept, plus every request that was slower
+ * than {@code tracing.slow-threshold} or failed. Finishing a trace is one array write, with no locks
+ * and no I/O on the request thread; the newest records can be read from {@code GET /debug/traces},
+ * and slow or failed ones are also printed as JSON lines by a background task.
+ * With {@code tracing.enabled=false} no trace objects are created at all.
+ */
+@Component
+public class RequestTracer {
+
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final double sampleRate;
+    private final long slowThresholdNanos;
+    private final boolean logCaptured;
+
+    private final AtomicReferenceArray<TraceRecord> ring;
+    private final AtomicLong nextSequence = new AtomicLong();
+    private long loggedUpTo;
+
+    public RequestTracer(ObjectMapper objectMapper,
+                         @Value("${tracing.enabled:true}") boolean enabled,
+                         @Value("${tracing.sample-rate:0.01}") double sampleRate,
+                         @Value("${tracing.slow-threshold:500ms}") Duration slowThreshold,
+                         @Value("${tracing.buffer-size:1024}") int bufferSize,
+                         @Value("${tracing.log-captured:true}") boolean logCaptured) {
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.sampleRate = sampleRate;
+        this.slowThresholdNanos = slowThreshold.toNanos();
+        this.logCaptured = logCaptured;
+        this.ring = new AtomicReferenceArray<>(Math.max(1, bufferSize));
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Begin tracing the current request.
+     * @return the trace to pass to {@link #finish}, or null when tracing is disabled
+     */
+    public RequestTrace start(String tenant, HttpServletRequest request) {
+        if (!enabled) {
+            return null;
+        }
+        boolean sampled = sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate;
+        RequestTrace trace = new RequestTrace(tenant, request.getMethod(), sampled);
+        RequestTrace.bind(trace);
+        return trace;
+    }
+
+    /**
+     * Complete a trace started with {@link #start} and keep it if it was sampled, slow or failed.
+     */
+    public void finish(RequestTrace trace, HttpServletRequest request, int status, Throwable error, int statements) {
+        if (trace == null) {
+            return;
+        }
+        RequestTrace.unbind();
+        long durationNanos = System.nanoTime() - trace.startNanos;
+        TraceRecord.Reason reason;
+        if (error != null || status >= 500) {
+            reason = TraceRecord.Reason.FAILED;
+        } else if (durationNanos >= slowThresholdNanos) {
+            reason = TraceRecord.Reason.SLOW;
+        } else if (trace.sampled) {
+            reason = TraceRecord.Reason.SAMPLED;
+        } else {
+            return;
+        }
+
+        // the route pattern (e.g. /expenses/{id}) is only known after the dispatch
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String route = pattern != null ? pattern.toString() : request.getRequestURI();
+        long sequence = nextSequence.getAndIncrement();
+        ring.set((int) (sequence % ring.length()), new TraceRecord(
+                sequence, Instant.ofEpochMilli(trace.startedAtMillis), trace.tenant, trace.method, route, status,
+                durationNanos / 1e6, trace.dbNanos / 1e6, trace.connectionWaitNanos / 1e6, statements, trace.rows,
+                error == null ? null : error.getClass().getSimpleName() + ": " + error.getMessage(), reason));
+    }
+
+    /**
+     * The buffered records, newest first.
+     * @param reason only records kept for this reason, or null for all
+     */
+    public List<TraceRecord> recent(TraceRecord.Reason reason, int limit) {
+        List<TraceRecord> result = new ArrayList<>();
+        for (int i = 0; i < ring.length(); i++) {
+            TraceRecord r = ring.get(i);
+            if (r != null && (reason == null || r.reason() == reason)) {
+                result.add(r);
+            }
+        }
+        result.sort(Comparator.comparingLong(TraceRecord::sequence).reversed());
+        return result.size() > limit ? List.copyOf(result.subList(0, limit)) : result;
+    }
+
+    /**
+     * Print slow and failed records captured since the last run, one JSON object per line.
+     * Records overwritten before this runs are skipped. A sequence is reserved before its record
+     * is stored, so a slot that does not hold it yet ends this run; the next one starts there.
+     */
+    @Scheduled(fixedDelayString = "${tracing.log-interval-ms:1000}")
+    void logCaptured() {
+        if (!enabled || !logCaptured) {
+            return;
+        }
+        long upTo = nextSequence.get();
+        long from = Math.max(loggedUpTo, upTo - ring.length());
+        for (long seq = from; seq < upTo; seq++) {
+            TraceRecord r = ring.get((int) (seq % ring.length()));
+            if (r == null || r.sequence() < seq) {
+                // still being stored by the request thread
+                loggedUpTo = seq;
+                return;
+            }
+            if (r.sequence() > seq || r.reason() == TraceRecord.Reason.SAMPLED) {
+                continue;
+            }
+            try {
+                System.out.println("trace " + objectMapper.writeValueAsString(r));
+            } catch (JsonProcessingException e) {
+                System.err.println("Could not serialize trace " + seq + ": " + e.getMessage());
+            }
+        }
+        loggedUpTo = upTo;
+    }
+}
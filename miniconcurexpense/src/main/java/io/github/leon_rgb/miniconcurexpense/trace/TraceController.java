@@ -0,0 +1,45 @@
+package io.github.leon_rgb.miniconcurexpense.trace;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+
+/**
+ * Read access to the request trace buffer. For debugging purposes only.
+ */
+@RestController
+@RequestMapping("/debug/traces")
+public class TraceController {
+
+    private final RequestTracer requestTracer;
+
+    public TraceController(RequestTracer requestTracer) {
+        this.requestTracer = requestTracer;
+    }
+
+    /**
+     * Newest traces first. Query params:
+     *   ?reason= (optional) sampled, slow or failed
+     *   &limit=100 (default)
+     */
+    @GetMapping
+    public List<TraceRecord> recent(
+            @RequestParam(required = false) String reason,
+            @RequestParam(defaultValue = "100") int limit
+    ) {
+        TraceRecord.Reason filter = null;
+        if (reason != null) {
+            try {
+                filter = TraceRecord.Reason.valueOf(reason.toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown reason: " + reason);
+            }
+        }
+        return requestTracer.recent(filter, Math.max(0, limit));
+    }
+}
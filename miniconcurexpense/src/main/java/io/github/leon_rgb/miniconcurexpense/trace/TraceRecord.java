@@ -0,0 +1,23 @@
+package io.github.leon_rgb.miniconcurexpense.trace;
+
+import java.time.Instant;
+
+/**
+ * One captured request. {@code reason} tells why it was kept: it was sampled, slow or failed.
+ */
+public record TraceRecord(long sequence,
+                          Instant startedAt,
+                          String tenant,
+                          String method,
+                          String route,
+                          int status,
+                          double durationMs,
+                          double dbMs,
+                          double connectionWaitMs,
+                          int statements,
+                          long rows,
+                          String error,
+                          Reason reason) {
+
+    public enum Reason { SAMPLED, SLOW, FAILED }
+}
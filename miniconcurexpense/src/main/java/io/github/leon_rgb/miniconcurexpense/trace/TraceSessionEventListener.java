@@ -0,0 +1,54 @@
+package io.github.leon_rgb.miniconcurexpense.trace;
+
+import org.hibernate.SessionEventListener;
+
+/**
+ * Adds the time Hibernate spends executing JDBC statements and waiting for connections to
+ * the current {@link RequestTrace}. Hibernate creates one instance per session
+ * (registered through {@code hibernate.session.events.auto} only when tracing is enabled).
+ */
+public class TraceSessionEventListener implements SessionEventListener {
+
+    private long statementStart;
+    private long batchStart;
+    private long acquisitionStart;
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        statementStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        RequestTrace trace = RequestTrace.current();
+        if (trace != null) {
+            trace.dbNanos += System.nanoTime() - statementStart;
+        }
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        batchStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        RequestTrace trace = RequestTrace.current();
+        if (trace != null) {
+            trace.dbNanos += System.nanoTime() - batchStart;
+        }
+    }
+
+    @Override
+    public void jdbcConnectionAcquisitionStart() {
+        acquisitionStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcConnectionAcquisitionEnd() {
+        RequestTrace trace = RequestTrace.current();
+        if (trace != null) {
+            trace.connectionWaitNanos += System.nanoTime() - acquisitionStart;
+        }
+    }
+}
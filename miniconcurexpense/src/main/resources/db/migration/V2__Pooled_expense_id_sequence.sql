@@ -0,0 +1,7 @@
+-- Expense ids are now allocated by Hibernate's pooled optimizer, which reserves
+-- 50 ids per nextval() call. The sequence behind the SERIAL column has to step
+-- by the same amount (see Expense.ID_ALLOCATION_SIZE).
+-- Writers that take ids from the column default (COPY, plain INSERTs) still use up a whole
+-- block per row, so ids are widened to BIGINT; an INTEGER id would run out 50 times sooner.
+ALTER TABLE expense ALTER COLUMN id TYPE BIGINT;
+ALTER SEQUENCE expense_id_seq AS BIGINT INCREMENT BY 50;
@@ -0,0 +1,106 @@
+-- Per-tenant rollup of the expense table (count/sum/min/max), kept up to date by
+-- statement-level triggers. The triggers fire in the same transaction as the write,
+-- for every write path (JPA, JDBC batches, COPY, TRUNCATE), and read the changed
+-- rows from transition tables, so a multi-row statement updates the rollup once.
+-- SET search_path FROM CURRENT pins the functions to the tenant schema Flyway is migrating.
+
+CREATE TABLE expense_rollup (
+    id            BOOLEAN PRIMARY KEY DEFAULT TRUE CHECK (id),  -- single-row table
+    expense_count BIGINT NOT NULL DEFAULT 0,
+    amount_sum    NUMERIC(20,2) NOT NULL DEFAULT 0,
+    amount_min    NUMERIC(10,2),
+    amount_max    NUMERIC(10,2),
+    updated_at    TIMESTAMPTZ NOT NULL DEFAULT now()
+);
+
+-- Lets the delete trigger re-derive min/max with an index probe instead of a scan
+CREATE INDEX expense_amount_idx ON expense (amount);
+
+-- Full recomputation; used to backfill below and by POST /expenses/summary/rebuild
+CREATE FUNCTION expense_rollup_rebuild() RETURNS BIGINT
+LANGUAGE plpgsql SET search_path FROM CURRENT AS $$
+DECLARE
+    total BIGINT;
+BEGIN
+    -- block concurrent writers so no change slips in between the scan and the upsert
+    LOCK TABLE expense IN SHARE MODE;
+    INSERT INTO expense_rollup AS r (id, expense_count, amount_sum, amount_min, amount_max, updated_at)
+    SELECT TRUE, count(*), coalesce(sum(amount), 0), min(amount), max(amount), now() FROM expense
+    ON CONFLICT (id) DO UPDATE
+        SET expense_count = EXCLUDED.expense_count,
+            amount_sum    = EXCLUDED.amount_sum,
+            amount_min    = EXCLUDED.amount_min,
+            amount_max    = EXCLUDED.amount_max,
+            updated_at    = EXCLUDED.updated_at
+    RETURNING r.expense_count INTO total;
+    RETURN total;
+END $$;
+
+CREATE FUNCTION expense_rollup_after_insert() RETURNS TRIGGER
+LANGUAGE plpgsql SET search_path FROM CURRENT AS $$
+BEGIN
+    UPDATE expense_rollup r
+       SET expense_count = r.expense_count + n.cnt,
+           amount_sum    = r.amount_sum + n.total,
+           amount_min    = LEAST(r.amount_min, n.lo),     -- LEAST/GREATEST ignore NULLs
+           amount_max    = GREATEST(r.amount_max, n.hi),
+           updated_at    = now()
+      FROM (SELECT count(*) AS cnt, coalesce(sum(amount), 0) AS total, min(amount) AS lo, max(amount) AS hi
+              FROM new_rows) n
+     WHERE n.cnt > 0;
+    RETURN NULL;
+END $$;
+
+CREATE FUNCTION expense_rollup_after_delete() RETURNS TRIGGER
+LANGUAGE plpgsql SET search_path FROM CURRENT AS $$
+BEGIN
+    -- only when a current extreme was removed do we have to look at the remaining rows
+    UPDATE expense_rollup r
+       SET expense_count = r.expense_count - d.cnt,
+           amount_sum    = r.amount_sum - d.total,
+           amount_min    = CASE WHEN d.lo <= r.amount_min THEN (SELECT min(amount) FROM expense) ELSE r.amount_min END,
+           amount_max    = CASE WHEN d.hi >= r.amount_max THEN (SELECT max(amount) FROM expense) ELSE r.amount_max END,
+           updated_at    = now()
+      FROM (SELECT count(*) AS cnt, coalesce(sum(amount), 0) AS total, min(amount) AS lo, max(amount) AS hi
+              FROM old_rows) d
+     WHERE d.cnt > 0;
+    RETURN NULL;
+END $$;
+
+CREATE FUNCTION expense_rollup_after_update() RETURNS TRIGGER
+LANGUAGE plpgsql SET search_path FROM CURRENT AS $$
+BEGIN
+    UPDATE expense_rollup r
+       SET amount_sum = r.amount_sum + (SELECT coalesce(sum(amount), 0) FROM new_rows)
+                                     - (SELECT coalesce(sum(amount), 0) FROM old_rows),
+           amount_min = (SELECT min(amount) FROM expense),
+           amount_max = (SELECT max(amount) FROM expense),
+           updated_at = now();
+    RETURN NULL;
+END $$;
+
+CREATE FUNCTION expense_rollup_after_truncate() RETURNS TRIGGER
+LANGUAGE plpgsql SET search_path FROM CURRENT AS $$
+BEGIN
+    UPDATE expense_rollup
+       SET expense_count = 0, amount_sum = 0, amount_min = NULL, amount_max = NULL, updated_at = now();
+    RETURN NULL;
+END $$;
+
+-- transition tables allow only one event per trigger, hence one trigger per operation
+CREATE TRIGGER expense_rollup_insert AFTER INSERT ON expense
+    REFERENCING NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION expense_rollup_after_insert();
+
+CREATE TRIGGER expense_rollup_delete AFTER DELETE ON expense
+    REFERENCING OLD TABLE AS old_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION expense_rollup_after_delete();
+
+CREATE TRIGGER expense_rollup_update AFTER UPDATE ON expense
+    REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION expense_rollup_after_update();
+
+CREATE TRIGGER expense_rollup_truncate AFTER TRUNCATE ON expense
+    FOR EACH STATEMENT EXECUTE FUNCTION expense_rollup_after_truncate();
+
+SELECT expense_rollup_rebuild();
@@ -0,0 +1,16 @@
+-- Indexes for GET /expenses/search: full-text matching on the description and trigram
+-- matching for typos / partial words.
+-- pg_trgm is installed once per database into public (a trusted extension, so the database
+-- owner may create it); tenant schemas reference its operator class and operators as public.*
+-- because their search_path only contains the tenant schema.
+-- Expression indexes instead of a stored tsvector column: no table rewrite, and the entity,
+-- COPY import and data generator keep writing just (id, description, amount).
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm WITH SCHEMA public;
+
+-- the query must use exactly this expression (same regconfig) to match the index
+CREATE INDEX expense_description_fts_idx ON expense
+    USING gin (to_tsvector('english'::regconfig, coalesce(description, '')));
+
+CREATE INDEX expense_description_trgm_idx ON expense
+    USING gin (description public.gin_trgm_ops);
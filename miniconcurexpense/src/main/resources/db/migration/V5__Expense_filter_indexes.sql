@@ -0,0 +1,10 @@
+-- B-tree indexes behind GET /expenses/filter (see ExpenseSpecifications).
+
+-- amount range filters, ORDER BY amount, id (either direction) and keyset seeks on (amount, id).
+-- Supersedes expense_amount_idx from V3, which it also covers for the rollup's min/max probes.
+CREATE INDEX expense_amount_id_idx ON expense (amount, id);
+DROP INDEX expense_amount_idx;
+
+-- case-insensitive description prefix filter: lower(description) LIKE 'abc%'.
+-- text_pattern_ops makes LIKE prefixes indexable regardless of the database collation.
+CREATE INDEX expense_description_prefix_idx ON expense (lower(description) text_pattern_ops);
@@ -0,0 +1,121 @@
+-- Turns expense into a table range-partitioned by month on a new created_at column, so old data
+-- can be detached and archived one month at a time (see PartitionRetentionJob) and queries that
+-- filter on created_at only visit recent partitions.
+-- Partitions are named expense_pYYYYMM and cover one UTC calendar month each.
+-- expense_create_partitions() is called here and by the retention job to keep a few months ahead
+-- ready. A row for a month without a partition (e.g. the job has not run for longer than that)
+-- lands in expense_pdefault instead of being rejected; the next expense_create_partitions() call
+-- moves it into its month's partition. The job logs a warning while the default is not empty.
+-- Existing rows are stamped with the migration time. The copy holds an exclusive lock on the old
+-- table for its duration, like any table rewrite.
+--
+-- There is no unique constraint on id alone: the primary key has to include the partition key,
+-- so it is (id, created_at), and Postgres would accept the same id in two months. Ids are unique
+-- only because every insert takes them from expense_id_seq; ExpenseRepository refuses by-id
+-- deletes that hit more rows than ids, rather than silently removing both.
+
+CREATE FUNCTION expense_create_partitions(months_ahead INTEGER) RETURNS INTEGER
+LANGUAGE plpgsql SET search_path FROM CURRENT AS $$
+DECLARE
+    month_start TIMESTAMP := date_trunc('month', now() AT TIME ZONE 'UTC');
+    partition_name TEXT;
+    month_from TIMESTAMPTZ;
+    month_to TIMESTAMPTZ;
+    created INTEGER := 0;
+BEGIN
+    FOR i IN 0..months_ahead LOOP
+        partition_name := 'expense_p' || to_char(month_start, 'YYYYMM');
+        month_from := month_start AT TIME ZONE 'UTC';
+        month_to := (month_start + INTERVAL '1 month') AT TIME ZONE 'UTC';
+        IF to_regclass(partition_name) IS NULL THEN
+            -- new rows for the month must not reach the default between the move and the ATTACH
+            -- check; readers are not blocked
+            LOCK TABLE expense_pdefault IN EXCLUSIVE MODE;
+            IF EXISTS (SELECT 1 FROM expense_pdefault WHERE created_at >= month_from AND created_at < month_to) THEN
+                -- split the month out of the default. Statements on a partition do not fire the
+                -- statement triggers of the parent, so the rollup (whose totals do not change)
+                -- is left alone; ATTACH builds the indexes.
+                EXECUTE format('CREATE TABLE %I (LIKE expense)', partition_name);
+                EXECUTE format('WITH moved AS (DELETE FROM expense_pdefault WHERE created_at >= $1 AND created_at < $2 RETURNING *) '
+                               'INSERT INTO %I SELECT * FROM moved', partition_name)
+                    USING month_from, month_to;
+                EXECUTE format('ALTER TABLE expense ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)',
+                               partition_name, month_from, month_to);
+            ELSE
+                EXECUTE format('CREATE TABLE %I PARTITION OF expense FOR VALUES FROM (%L) TO (%L)',
+                               partition_name, month_from, month_to);
+            END IF;
+            created := created + 1;
+        END IF;
+        month_start := month_start + INTERVAL '1 month';
+    END LOOP;
+    RETURN created;
+END $$;
+
+-- DETACH fires no delete trigger, so the rollup is corrected here in the same transaction.
+-- min/max come from index probes on the remaining partitions.
+CREATE FUNCTION expense_detach_partition(partition_name TEXT) RETURNS BIGINT
+LANGUAGE plpgsql SET search_path FROM CURRENT AS $$
+DECLARE
+    d RECORD;
+BEGIN
+    EXECUTE format('ALTER TABLE expense DETACH PARTITION %I', partition_name);
+    EXECUTE format('SELECT count(*) AS cnt, coalesce(sum(amount), 0) AS total FROM %I', partition_name) INTO d;
+    UPDATE expense_rollup r
+       SET expense_count = r.expense_count - d.cnt,
+           amount_sum    = r.amount_sum - d.total,
+           amount_min    = (SELECT min(amount) FROM expense),
+           amount_max    = (SELECT max(amount) FROM expense),
+           updated_at    = now();
+    RETURN d.cnt;
+END $$;
+
+-- the sequence would otherwise be dropped together with the old table
+ALTER SEQUENCE expense_id_seq OWNED BY NONE;
+ALTER TABLE expense RENAME TO expense_unpartitioned;
+ALTER TABLE expense_unpartitioned RENAME CONSTRAINT expense_pkey TO expense_unpartitioned_pkey;
+
+-- the partition key has to be part of the primary key, so id alone is not unique (see above)
+CREATE TABLE expense (
+    id          BIGINT NOT NULL DEFAULT nextval('expense_id_seq'),
+    description TEXT NOT NULL,
+    amount      NUMERIC(10,2) NOT NULL,
+    created_at  TIMESTAMPTZ NOT NULL DEFAULT now(),
+    PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+
+ALTER SEQUENCE expense_id_seq OWNED BY expense.id;
+
+CREATE TABLE expense_pdefault PARTITION OF expense DEFAULT;
+
+SELECT expense_create_partitions(2);
+
+-- the new table has no rollup triggers yet, and the rollup already counts these rows
+INSERT INTO expense (id, description, amount, created_at)
+SELECT id, description, amount, now() FROM expense_unpartitioned;
+
+DROP TABLE expense_unpartitioned;
+
+-- indexes from V4 and V5, now created on every partition
+CREATE INDEX expense_description_fts_idx ON expense
+    USING gin (to_tsvector('english'::regconfig, coalesce(description, '')));
+CREATE INDEX expense_description_trgm_idx ON expense
+    USING gin (description public.gin_trgm_ops);
+CREATE INDEX expense_amount_id_idx ON expense (amount, id);
+CREATE INDEX expense_description_prefix_idx ON expense (lower(description) text_pattern_ops);
+
+-- rollup triggers from V3; statement triggers on the parent see the rows of all partitions
+CREATE TRIGGER expense_rollup_insert AFTER INSERT ON expense
+    REFERENCING NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION expense_rollup_after_insert();
+
+CREATE TRIGGER expense_rollup_delete AFTER DELETE ON expense
+    REFERENCING OLD TABLE AS old_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION expense_rollup_after_delete();
+
+CREATE TRIGGER expense_rollup_update AFTER UPDATE ON expense
+    REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION expense_rollup_after_update();
+
+CREATE TRIGGER expense_rollup_truncate AFTER TRUNCATE ON expense
+    FOR EACH STATEMENT EXECUTE FUNCTION expense_rollup_after_truncate();
@@ -0,0 +1,98 @@
+package io.github.leon_rgb.miniconcurexpense;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Assumptions;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.UUID;
+
+/**
+ * Postgres for the tests that need one. Defaults match the docker-compose Postgres; override with
+ * -Dtest.db.url=..., -Dtest.db.username=..., -Dtest.db.password=...
+ * Tests using it are skipped (not failed) when the database cannot be reached.
+ *
+ * {@link #create()} migrates a fresh schema with the application's migrations, the way
+ * TenantService does for a new tenant, and {@link #close()} drops it again, so tests never see
+ * each other's rows.
+ */
+public final class TestDatabase implements AutoCloseable {
+
+    public static final String URL = System.getProperty("test.db.url", "jdbc:postgresql://localhost:5432/appdb");
+    public static final String USERNAME = System.getProperty("test.db.username", "app");
+    public static final String PASSWORD = System.getProperty("test.db.password", "secret");
+
+    private final String schema;
+    private final HikariDataSource dataSource;
+
+    private TestDatabase(String schema, HikariDataSource dataSource) {
+        this.schema = schema;
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * A new, fully migrated schema; skips the calling test if there is no database.
+     */
+    public static TestDatabase create() {
+        String schema = "test_" + UUID.randomUUID().toString().replace("-", "").substring(0, 12);
+        try (Connection connection = DriverManager.getConnection(URL, USERNAME, PASSWORD);
+             Statement statement = connection.createStatement()) {
+            statement.execute("CREATE SCHEMA \"" + schema + "\"");
+        } catch (SQLException e) {
+            Assumptions.abort("No test database at " + URL + ": " + e.getMessage());
+        }
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl(URL);
+        config.setUsername(USERNAME);
+        config.setPassword(PASSWORD);
+        config.setMaximumPoolSize(4);
+        config.setPoolName(schema);
+        // every connection works in the test schema, like a tenant connection does
+        config.setSchema(schema);
+        HikariDataSource dataSource = new HikariDataSource(config);
+        Flyway.configure()
+                .dataSource(dataSource)
+                .schemas(schema)
+                .locations("classpath:db/migration")
+                .load()
+                .migrate();
+        return new TestDatabase(schema, dataSource);
+    }
+
+    public String schema() {
+        return schema;
+    }
+
+    /** Connections with the test schema as search_path. */
+    public DataSource dataSource() {
+        return dataSource;
+    }
+
+    public Connection connection() throws SQLException {
+        return dataSource.getConnection();
+    }
+
+    /** Run statements in the test schema, each in its own transaction. */
+    public void execute(String... sql) throws SQLException {
+        try (Connection connection = connection();
+             Statement statement = connection.createStatement()) {
+            for (String s : sql) {
+                statement.execute(s);
+            }
+        }
+    }
+
+    @Override
+    public void close() throws SQLException {
+        try {
+            execute("DROP SCHEMA \"" + schema + "\" CASCADE");
+        } finally {
+            dataSource.close();
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package io.github.leon_rgb.miniconcurexpense;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.data.jpa.repository.support.JpaRepositoryFactoryBean;
+import org.springframework.data.querydsl.EntityPathResolver;
+import org.springframework.data.querydsl.SimpleEntityPathResolver;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Spring Data repositories on top of a {@link TestDatabase} schema, without starting the
+ * application: no tenant routing, replicas or caches, just the entities, the repository
+ * interfaces and their {@code @Transactional} declarations.
+ */
+public final class TestRepositories implements AutoCloseable {
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final JpaTransactionManager transactionManager;
+    private final DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+
+    public TestRepositories(TestDatabase db) {
+        this(db, Map.of());
+    }
+
+    /**
+     * @param jpaProperties Hibernate settings added to (or replacing) the defaults, e.g. to turn
+     *                      the second-level cache on
+     */
+    public TestRepositories(TestDatabase db, Map<String, Object> jpaProperties) {
+        LocalContainerEntityManagerFactoryBean emf = new LocalContainerEntityManagerFactoryBean();
+        emf.setDataSource(db.dataSource());
+        emf.setPackagesToScan("io.github.leon_rgb.miniconcurexpense.model");
+        emf.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("hibernate.cache.use_second_level_cache", "false");
+        properties.put("hibernate.cache.use_query_cache", "false");
+        properties.putAll(jpaProperties);
+        emf.setJpaPropertyMap(properties);
+        emf.afterPropertiesSet();
+        this.entityManagerFactory = emf.getObject();
+        this.transactionManager = new JpaTransactionManager(entityManagerFactory);
+        beanFactory.registerSingleton("transactionManager", transactionManager);
+        beanFactory.registerSingleton("entityPathResolver", SimpleEntityPathResolver.INSTANCE);
+    }
+
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    public <T> T get(Class<T> repositoryInterface) {
+        JpaRepositoryFactoryBean factoryBean = new JpaRepositoryFactoryBean(repositoryInterface);
+        factoryBean.setEntityManager(SharedEntityManagerCreator.createSharedEntityManager(entityManagerFactory));
+        factoryBean.setBeanFactory(beanFactory);
+        factoryBean.setTransactionManager("transactionManager");
+        factoryBean.setEntityPathResolver(beanFactory.getBeanProvider(EntityPathResolver.class));
+        factoryBean.afterPropertiesSet();
+        return (T) factoryBean.getObject();
+    }
+
+    /** Bound to the current transaction, like the EntityManager injected into services. */
+    public EntityManager entityManager() {
+        return SharedEntityManagerCreator.createSharedEntityManager(entityManagerFactory);
+    }
+
+    public PlatformTransactionManager transactionManager() {
+        return transactionManager;
+    }
+
+    public TransactionTemplate transactionTemplate() {
+        return new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    public void close() {
+        entityManagerFactory.close();
+    }
+}
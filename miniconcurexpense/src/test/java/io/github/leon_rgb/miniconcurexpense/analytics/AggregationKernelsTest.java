@@ -0,0 +1,111 @@
+package io.github.leon_rgb.miniconcurexpense.analytics;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The kernels split into many small leaves here (ExpenseColumns never uses leaves this small),
+ * so the combine steps are checked against a plain loop over the same rows.
+ */
+class AggregationKernelsTest {
+
+    private static final int ROWS = 10_000;
+    private static final int LEAF = 37;
+
+    private final ForkJoinPool pool = new ForkJoinPool(4);
+    private final long[] cents = new long[ROWS];
+    private final int[] codes = new int[ROWS];
+    private final long[] deleted = new long[(ROWS + 63) / 64];
+
+    AggregationKernelsTest() {
+        Random random = new Random(42);
+        for (int row = 0; row < ROWS; row++) {
+            cents[row] = random.nextLong(-50_000, 500_000);
+            codes[row] = random.nextInt(5);
+            if (random.nextInt(10) == 0) {
+                deleted[row >>> 6] |= 1L << row;
+            }
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    void isDeletedReadsTheBitOfEachRow() {
+        long[] bits = new long[2];
+        bits[1] |= 1L << 65;
+
+        assertThat(AggregationKernels.isDeleted(bits, 65)).isTrue();
+        assertThat(AggregationKernels.isDeleted(bits, 64)).isFalse();
+        assertThat(AggregationKernels.isDeleted(bits, 1)).isFalse();
+    }
+
+    @Test
+    void totalsSkipDeletedRows() {
+        long count = 0;
+        long sum = 0;
+        for (int row = 0; row < ROWS; row++) {
+            if (!AggregationKernels.isDeleted(deleted, row)) {
+                count++;
+                sum += cents[row];
+            }
+        }
+
+        long[] totals = pool.invoke(new AggregationKernels.Totals(cents, deleted, 0, ROWS, LEAF));
+
+        assertThat(totals).containsExactly(count, sum);
+    }
+
+    @Test
+    void histogramMatchesASequentialCount() {
+        long min = -50_000;
+        int bins = 13;
+        long width = (500_000 - min) / bins + 1;
+        long[] expected = new long[bins];
+        for (int row = 0; row < ROWS; row++) {
+            if (!AggregationKernels.isDeleted(deleted, row)) {
+                expected[(int) ((cents[row] - min) / width)]++;
+            }
+        }
+
+        long[] counts = pool.invoke(new AggregationKernels.Histogram(cents, deleted, min, width, bins, 0, ROWS, LEAF));
+
+        assertThat(counts).containsExactly(expected);
+    }
+
+    @Test
+    void histogramClampsAmountsOutsideTheRange() {
+        long[] amounts = {-1, 0, 9, 10, 1_000};
+        long[] none = new long[1];
+
+        long[] counts = pool.invoke(new AggregationKernels.Histogram(amounts, none, 0, 5, 2, 0, amounts.length, 1));
+
+        // -1 goes to the first bin, 10 and 1000 to the last
+        assertThat(counts).containsExactly(2, 3);
+    }
+
+    @Test
+    void descriptionTotalsMatchASequentialSum() {
+        long[] counts = new long[5];
+        long[] sums = new long[5];
+        for (int row = 0; row < ROWS; row++) {
+            if (!AggregationKernels.isDeleted(deleted, row)) {
+                counts[codes[row]]++;
+                sums[codes[row]] += cents[row];
+            }
+        }
+
+        long[][] totals = pool.invoke(new AggregationKernels.DescriptionTotals(cents, codes, deleted, 5, 0, ROWS, LEAF));
+
+        assertThat(totals[0]).containsExactly(counts);
+        assertThat(totals[1]).containsExactly(sums);
+    }
+}
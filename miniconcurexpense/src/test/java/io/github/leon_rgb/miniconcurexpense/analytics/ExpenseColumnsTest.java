@@ -0,0 +1,140 @@
+package io.github.leon_rgb.miniconcurexpense.analytics;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ExpenseColumnsTest {
+
+    private final ForkJoinPool pool = new ForkJoinPool(4);
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    void percentilesUseNearestRank() {
+        ExpenseColumns columns = columns(100);  // 1.00 .. 100.00
+
+        ExpenseAnalytics result = analyze(columns, new double[] {0, 1, 50, 90, 99.9, 100}, 10);
+
+        assertThat(result.percentiles()).containsExactly(
+                entry("p0", "1.00"), entry("p1", "1.00"), entry("p50", "50.00"),
+                entry("p90", "90.00"), entry("p99.9", "100.00"), entry("p100", "100.00"));
+    }
+
+    @Test
+    void percentilesOfASingleRow() {
+        ExpenseColumns columns = new ExpenseColumns(16);
+        columns.load(1, 1234, "Taxi");
+
+        ExpenseAnalytics result = analyze(columns, new double[] {0, 50, 100}, 3);
+
+        assertThat(result.percentiles().values()).containsOnly(new BigDecimal("12.34"));
+        assertThat(result.histogram()).extracting(ExpenseAnalytics.Bucket::count).containsExactly(1L, 0L, 0L);
+    }
+
+    @Test
+    void percentilesFollowDeletesAndAdds() {
+        ExpenseColumns columns = columns(10);
+        assertThat(analyze(columns, new double[] {100}, 1).percentiles().get("p100")).isEqualByComparingTo("10.00");
+
+        columns.remove(new Long[] {10L, 9L});
+        ExpenseAnalytics afterDelete = analyze(columns, new double[] {50, 100}, 1);
+        assertThat(afterDelete.count()).isEqualTo(8);
+        assertThat(afterDelete.percentiles().get("p50")).isEqualByComparingTo("4.00");
+        assertThat(afterDelete.percentiles().get("p100")).isEqualByComparingTo("8.00");
+
+        columns.add(11, -250, "Refund");
+        ExpenseAnalytics afterAdd = analyze(columns, new double[] {0}, 1);
+        assertThat(afterAdd.percentiles().get("p0")).isEqualByComparingTo("-2.50");
+        assertThat(afterAdd.min()).isEqualByComparingTo("-2.50");
+    }
+
+    @Test
+    void histogramBucketsAreContiguousAndHalfOpen() {
+        ExpenseColumns columns = new ExpenseColumns(16);
+        long[] amounts = {0, 4, 5, 9};
+        for (int i = 0; i < amounts.length; i++) {
+            columns.load(i + 1, amounts[i], "Row");
+        }
+
+        List<ExpenseAnalytics.Bucket> histogram = analyze(columns, new double[0], 2).histogram();
+
+        // width (9 - 0) / 2 + 1 = 5: an amount on a boundary belongs to the upper bucket
+        assertThat(histogram).containsExactly(
+                new ExpenseAnalytics.Bucket(new BigDecimal("0.00"), new BigDecimal("0.05"), 2),
+                new ExpenseAnalytics.Bucket(new BigDecimal("0.05"), new BigDecimal("0.10"), 2));
+    }
+
+    @Test
+    void histogramCoversEveryAmountForAnyBinCount() {
+        ExpenseColumns columns = new ExpenseColumns(16);
+        columns.load(1, -10_000, "Refund");
+        columns.load(2, 0, "Free");
+        columns.load(3, 10_000, "Hotel");
+
+        // more bins than cents between min and max leaves the tail buckets empty
+        for (int bins : new int[] {1, 2, 3, 7, 20_000, 30_000}) {
+            List<ExpenseAnalytics.Bucket> histogram = analyze(columns, new double[0], bins).histogram();
+            assertThat(histogram).hasSize(bins);
+            assertThat(histogram.get(0).from()).isEqualByComparingTo("-100.00");
+            assertThat(histogram.get(0).count()).isPositive();
+            assertThat(histogram.get(bins - 1).to()).isGreaterThan(new BigDecimal("100.00"));
+            assertThat(histogram.stream().mapToLong(ExpenseAnalytics.Bucket::count).sum()).isEqualTo(3);
+            for (int i = 1; i < bins; i++) {
+                assertThat(histogram.get(i).from()).isEqualTo(histogram.get(i - 1).to());
+            }
+        }
+    }
+
+    @Test
+    void equalAmountsShareTheFirstBucket() {
+        ExpenseColumns columns = new ExpenseColumns(16);
+        for (int i = 1; i <= 5; i++) {
+            columns.load(i, 700, "Lunch");
+        }
+
+        ExpenseAnalytics result = analyze(columns, new double[] {50}, 4);
+
+        assertThat(result.histogram()).extracting(ExpenseAnalytics.Bucket::count).containsExactly(5L, 0L, 0L, 0L);
+        assertThat(result.min()).isEqualTo(result.max());
+    }
+
+    @Test
+    void emptySnapshotHasNoAmounts() {
+        ExpenseColumns columns = columns(3);
+        columns.removeRange(1, 3);
+
+        ExpenseAnalytics result = analyze(columns, new double[] {50}, 4);
+
+        assertThat(result.count()).isZero();
+        assertThat(result.min()).isNull();
+        assertThat(result.percentiles()).isEmpty();
+        assertThat(result.histogram()).isEmpty();
+    }
+
+    // ids 1..n with amounts 1.00 .. n.00
+    private static ExpenseColumns columns(int n) {
+        ExpenseColumns columns = new ExpenseColumns(n);
+        for (int i = 1; i <= n; i++) {
+            columns.load(i, i * 100L, "Expense " + i);
+        }
+        return columns;
+    }
+
+    private ExpenseAnalytics analyze(ExpenseColumns columns, double[] percentiles, int bins) {
+        return columns.analyze("t", pool, percentiles, bins, 3, 3);
+    }
+
+    private static Map.Entry<String, BigDecimal> entry(String label, String amount) {
+        return Map.entry(label, new BigDecimal(amount));
+    }
+}
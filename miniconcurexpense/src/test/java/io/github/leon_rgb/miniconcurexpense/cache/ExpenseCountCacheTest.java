@@ -0,0 +1,69 @@
+package io.github.leon_rgb.miniconcurexpense.cache;
+
+import io.github.leon_rgb.miniconcurexpense.TestDatabase;
+import io.github.leon_rgb.miniconcurexpense.TestRepositories;
+import io.github.leon_rgb.miniconcurexpense.repository.ExpenseRepository;
+import io.github.leon_rgb.miniconcurexpense.repository.ExpenseRollupRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ExpenseCountCacheTest {
+
+    private TestDatabase db;
+    private TestRepositories repositories;
+    private ExpenseRollupRepository rollupRepository;
+
+    @BeforeEach
+    void setUp() {
+        db = TestDatabase.create();
+        repositories = new TestRepositories(db);
+        rollupRepository = repositories.get(ExpenseRollupRepository.class);
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        repositories.close();
+        db.close();
+    }
+
+    @Test
+    void countComesFromTheRollup() throws SQLException {
+        db.execute("INSERT INTO expense (description, amount) SELECT 'Row ' || i, i FROM generate_series(1, 42) i");
+
+        assertThat(countCache().approximateCount()).isEqualTo(42);
+    }
+
+    @Test
+    void schemaWithoutARollupTableFallsBackToTheEstimate() throws SQLException {
+        // what TenantService's fallback DDL leaves behind: a plain expense table and nothing else
+        db.execute("DROP TABLE expense_rollup",
+                "DROP TABLE expense",
+                "CREATE TABLE expense (id BIGSERIAL PRIMARY KEY, description TEXT NOT NULL,"
+                        + " amount NUMERIC(10,2) NOT NULL, created_at TIMESTAMPTZ NOT NULL DEFAULT now())",
+                "INSERT INTO expense (description, amount) SELECT 'Row ' || i, i FROM generate_series(1, 300) i",
+                "ANALYZE expense");
+
+        assertThat(rollupRepository.findRollup()).isEmpty();
+        assertThat(countCache().approximateCount()).isEqualTo(300);
+    }
+
+    @Test
+    void valueIsReusedWithinTheTtl() throws SQLException {
+        ExpenseCountCache cache = countCache();
+        assertThat(cache.approximateCount()).isZero();
+
+        db.execute("INSERT INTO expense (description, amount) VALUES ('Taxi', 10)");
+
+        assertThat(cache.approximateCount()).isZero();
+    }
+
+    private ExpenseCountCache countCache() {
+        return new ExpenseCountCache(rollupRepository, repositories.get(ExpenseRepository.class), Duration.ofMinutes(1));
+    }
+}
@@ -0,0 +1,159 @@
+package io.github.leon_rgb.miniconcurexpense.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.leon_rgb.miniconcurexpense.datasource.RecentTenantWrites;
+import io.github.leon_rgb.miniconcurexpense.model.Expense;
+import io.github.leon_rgb.miniconcurexpense.tenant.TenantContext;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs against an in-memory stand-in for the few Redis string commands the cache uses.
+ */
+class ExpensePageCacheTest {
+
+    private final Map<String, String> redisData = new ConcurrentHashMap<>();
+    private final AtomicInteger loads = new AtomicInteger();
+    private final RecentTenantWrites recentWrites = new RecentTenantWrites(Duration.ofSeconds(5));
+    private StringRedisTemplate redis;
+    private ValueOperations<String, String> values;
+    private ExpensePageCache cache;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        redis = mock(StringRedisTemplate.class);
+        values = mock(ValueOperations.class);
+        when(redis.opsForValue()).thenReturn(values);
+        when(values.get(anyString())).thenAnswer(i -> redisData.get(i.<String>getArgument(0)));
+        when(values.setIfAbsent(anyString(), anyString())).thenAnswer(i -> redisData.putIfAbsent(i.getArgument(0), i.getArgument(1)) == null);
+        when(values.increment(anyString())).thenAnswer(i -> increment(i.getArgument(0), 1));
+        when(values.increment(anyString(), anyLong())).thenAnswer(i -> increment(i.getArgument(0), i.getArgument(1)));
+        doAnswer(i -> redisData.put(i.getArgument(0), i.getArgument(1)))
+                .when(values).set(anyString(), anyString(), any(Duration.class));
+
+        // generation-ttl 0: every lookup sees the generation in "Redis", as another instance would
+        cache = new ExpensePageCache(redis, new ObjectMapper().findAndRegisterModules(), recentWrites,
+                new SimpleMeterRegistry(), true, Duration.ofMinutes(10), Duration.ZERO, Duration.ofSeconds(30), 100, Duration.ofSeconds(30));
+        TenantContext.setCurrentTenant("acme");
+    }
+
+    @AfterEach
+    void clearTenant() {
+        TenantContext.clear();
+    }
+
+    @Test
+    void repeatedReadIsServedFromTheCache() {
+        Pageable pageable = PageRequest.of(0, 2);
+        Page<Expense> first = cache.getPage(pageable, loader());
+        Page<Expense> second = cache.getPage(pageable, loader());
+
+        assertThat(loads).hasValue(1);
+        assertThat(second.getContent()).extracting(Expense::getId).isEqualTo(first.getContent().stream().map(Expense::getId).toList());
+        assertThat(second.getTotalElements()).isEqualTo(first.getTotalElements());
+    }
+
+    @Test
+    void invalidateMakesEveryPageOfTheTenantUnreachable() {
+        cache.getPage(PageRequest.of(0, 2), loader());
+        cache.getPage(PageRequest.of(1, 2), loader());
+        long before = cache.version().orElseThrow();
+
+        cache.invalidate();
+
+        assertThat(cache.version().orElseThrow()).isGreaterThan(before);
+        cache.getPage(PageRequest.of(0, 2), loader());
+        cache.getPage(PageRequest.of(1, 2), loader());
+        assertThat(loads).hasValue(4);
+    }
+
+    @Test
+    void tenantsDoNotSeeEachOthersPages() {
+        cache.getPage(PageRequest.of(0, 2), loader());
+        TenantContext.setCurrentTenant("globex");
+        cache.getPage(PageRequest.of(0, 2), loader());
+        assertThat(loads).hasValue(2);
+
+        // globex writing leaves acme's pages alone
+        cache.invalidate();
+        TenantContext.setCurrentTenant("acme");
+        cache.getPage(PageRequest.of(0, 2), loader());
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void lostGenerationIsRecreatedAboveEveryEarlierStamp() throws InterruptedException {
+        cache.invalidate();
+        long before = cache.version().orElseThrow();
+        Thread.sleep(5);  // the generation is re-created from the clock, and Redis is not lost within the same millisecond
+        redisData.clear();
+
+        assertThat(cache.version().orElseThrow()).isGreaterThanOrEqualTo(before);
+        cache.invalidate();
+        assertThat(cache.version().orElseThrow()).isGreaterThan(before);
+    }
+
+    @Test
+    void firstLoadAfterAnotherInstancesWriteStaysOnThePrimary() {
+        // another instance bumped the generation before this one ever looked at the tenant
+        redisData.put("expenses:acme:gen", "1700000000005");
+        AtomicBoolean loadedWhileRecent = new AtomicBoolean();
+
+        cache.getPage(PageRequest.of(0, 2), () -> {
+            // what ReplicaRoutingDataSource asks before handing out a replica connection
+            loadedWhileRecent.set(recentWrites.isRecent("acme"));
+            return loader().get();
+        });
+
+        assertThat(loadedWhileRecent).isTrue();
+        assertThat(recentWrites.isRecent("globex")).isFalse();
+    }
+
+    @Test
+    void unreachableRedisIsBypassed() {
+        when(values.get(anyString())).thenThrow(new QueryTimeoutException("redis down"));
+
+        cache.getPage(PageRequest.of(0, 2), loader());
+        cache.getPage(PageRequest.of(0, 2), loader());
+
+        assertThat(loads).hasValue(2);
+        assertThat(cache.version()).isEmpty();
+    }
+
+    private Supplier<Page<Expense>> loader() {
+        return () -> {
+            loads.incrementAndGet();
+            return new PageImpl<>(List.of(new Expense(2L, "Taxi", 12.5), new Expense(1L, "Lunch", 9.0)), PageRequest.of(0, 2), 5);
+        };
+    }
+
+    private Long increment(String key, long delta) {
+        return Long.parseLong(redisData.merge(key, String.valueOf(delta), (a, b) -> String.valueOf(Long.parseLong(a) + Long.parseLong(b))));
+    }
+}
@@ -0,0 +1,65 @@
+package io.github.leon_rgb.miniconcurexpense.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ExpenseCursorTest {
+
+    @Test
+    void idCursorRoundTrips() {
+        assertThat(ExpenseCursor.decode(ExpenseCursor.encode(42))).isEqualTo(42L);
+        assertThat(ExpenseCursor.decode(ExpenseCursor.encode(Long.MAX_VALUE))).isEqualTo(Long.MAX_VALUE);
+    }
+
+    @Test
+    void cursorsAreUrlSafe() {
+        assertThat(ExpenseCursor.encode(Long.MAX_VALUE)).matches("[A-Za-z0-9_-]+");
+        assertThat(ExpenseCursor.encodeSearch(0.123456789, 7)).matches("[A-Za-z0-9_-]+");
+    }
+
+    @Test
+    void emptyCursorMeansFirstPage() {
+        assertThat(ExpenseCursor.decode(null)).isNull();
+        assertThat(ExpenseCursor.decode(" ")).isNull();
+        assertThat(ExpenseCursor.decodeAmount("")).isNull();
+        assertThat(ExpenseCursor.decodeSearch(null)).isNull();
+    }
+
+    @Test
+    void amountAndSearchCursorsKeepTheExactPosition() {
+        double rank = 0.1 + 0.2;  // not representable in short decimal form
+        assertThat(ExpenseCursor.decodeSearch(ExpenseCursor.encodeSearch(rank, 99)))
+                .isEqualTo(new ExpenseCursor.SearchPosition(rank, 99));
+        assertThat(ExpenseCursor.decodeAmount(ExpenseCursor.encodeAmount(12.34, 5)))
+                .isEqualTo(new ExpenseCursor.AmountPosition(12.34, 5));
+    }
+
+    @Test
+    void garbageAndCursorsOfAnotherKindAreBadRequests() {
+        assertBadRequest(() -> ExpenseCursor.decode("not base64!"));
+        assertBadRequest(() -> ExpenseCursor.decode(raw("id:abc")));
+        assertBadRequest(() -> ExpenseCursor.decode(ExpenseCursor.encodeSearch(1.0, 1)));
+        assertBadRequest(() -> ExpenseCursor.decodeSearch(ExpenseCursor.encode(1)));
+        assertBadRequest(() -> ExpenseCursor.decodeAmount(raw("amount:1.0")));
+        assertBadRequest(() -> ExpenseCursor.decodeAmount(raw("amount:1.0:x")));
+        assertBadRequest(() -> ExpenseCursor.decodeSearch(raw("rank:0.5:7:")));
+        assertBadRequest(() -> ExpenseCursor.decode(raw("id:1:2")));
+    }
+
+    private static String raw(String value) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void assertBadRequest(Runnable decode) {
+        assertThatThrownBy(decode::run)
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST));
+    }
+}
@@ -0,0 +1,190 @@
+package io.github.leon_rgb.miniconcurexpense.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.github.leon_rgb.miniconcurexpense.tenant.TenantContext;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Routing decisions against mocked pools: each replica pool answers the lag query with whatever
+ * state the test gives it, and every pool hands out its own recognisable connection.
+ */
+class ReplicaRoutingDataSourceTest {
+
+    private static final Duration MAX_LAG = Duration.ofSeconds(1);
+
+    private final Connection primaryConnection = mock(Connection.class);
+    private final DataSource primary = mock(DataSource.class);
+    private final RecentTenantWrites recentWrites = new RecentTenantWrites(Duration.ofMinutes(1));
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        TenantContext.setCurrentTenant("acme");
+    }
+
+    @AfterEach
+    void tearDown() {
+        TenantContext.clear();
+    }
+
+    @Test
+    void readWriteWorkAlwaysGoesToThePrimary() throws SQLException {
+        Replica replica = new Replica("r1").reports(true, "streaming", 0.0);
+        ReplicaRoutingDataSource routing = routing(Duration.ofMinutes(1), replica);
+        routing.checkReplicas();
+
+        assertThat(routing.getConnection()).isSameAs(primaryConnection);
+        assertThat(routed("primary", "read_write")).isEqualTo(1);
+    }
+
+    @Test
+    void readOnlyWorkGoesToAStreamingReplicaWithinMaxLag() throws SQLException {
+        Replica replica = new Replica("r1").reports(true, "streaming", 0.2);
+        ReplicaRoutingDataSource routing = routing(Duration.ofMinutes(1), replica);
+        routing.checkReplicas();
+
+        assertThat(readOnly(routing)).isSameAs(replica.connection);
+        assertThat(routed("replica", "read_only")).isEqualTo(1);
+    }
+
+    @Test
+    void replicaBehindMaxLagIsNotUsed() throws SQLException {
+        Replica replica = new Replica("r1").reports(true, "streaming", 1.5);
+        ReplicaRoutingDataSource routing = routing(Duration.ofMinutes(1), replica);
+        routing.checkReplicas();
+
+        assertThat(readOnly(routing)).isSameAs(primaryConnection);
+        assertThat(routed("primary", "no_usable_replica")).isEqualTo(1);
+    }
+
+    @Test
+    void replicaWithoutAStreamingWalReceiverIsNotUsedDespiteZeroLag() throws SQLException {
+        // everything received has been replayed, but nothing more is arriving
+        Replica disconnected = new Replica("r1").reports(true, null, 0.0);
+        Replica reconnecting = new Replica("r2").reports(true, "waiting", 0.0);
+        Replica hidden = new Replica("r3").reports(true, "not visible", 0.0);
+        ReplicaRoutingDataSource routing = routing(Duration.ofMinutes(1), disconnected, reconnecting, hidden);
+        routing.checkReplicas();
+
+        assertThat(readOnly(routing)).isSameAs(primaryConnection);
+        assertThat(meterRegistry.get("expenses.datasource.replica.lag").tag("replica", "r1").gauge().value()).isNaN();
+        assertThat(meterRegistry.get("expenses.datasource.replica.usable").gauges())
+                .allSatisfy(g -> assertThat(g.value()).isZero());
+    }
+
+    @Test
+    void promotedReplicaIsNotUsed() throws SQLException {
+        Replica replica = new Replica("r1").reports(false, null, 0.0);
+        ReplicaRoutingDataSource routing = routing(Duration.ofMinutes(1), replica);
+        routing.checkReplicas();
+
+        assertThat(readOnly(routing)).isSameAs(primaryConnection);
+    }
+
+    @Test
+    void aTenantThatJustWroteReadsItsWritesFromThePrimary() throws SQLException {
+        Replica replica = new Replica("r1").reports(true, "streaming", 0.0);
+        ReplicaRoutingDataSource routing = routing(Duration.ofMinutes(1), replica);
+        routing.checkReplicas();
+
+        recentWrites.record("acme");
+
+        assertThat(readOnly(routing)).isSameAs(primaryConnection);
+        assertThat(routed("primary", "recent_write")).isEqualTo(1);
+        TenantContext.setCurrentTenant("globex");
+        assertThat(readOnly(routing)).isSameAs(replica.connection);
+    }
+
+    @Test
+    void aCheckThatIsTooOldNoLongerVouchesForTheReplica() throws Exception {
+        Replica replica = new Replica("r1").reports(true, "streaming", 0.0);
+        ReplicaRoutingDataSource routing = routing(Duration.ofMillis(10), replica);
+        routing.checkReplicas();
+
+        Thread.sleep(50);  // three missed check intervals
+
+        assertThat(readOnly(routing)).isSameAs(primaryConnection);
+        routing.checkReplicas();
+        assertThat(readOnly(routing)).isSameAs(replica.connection);
+    }
+
+    @Test
+    void replicaThatFailsToConnectIsSkippedUntilItsNextCheck() throws SQLException {
+        Replica replica = new Replica("r1").reports(true, "streaming", 0.0);
+        ReplicaRoutingDataSource routing = routing(Duration.ofMinutes(1), replica);
+        routing.checkReplicas();
+        when(replica.pool.getConnection()).thenThrow(new SQLException("connection refused"));
+
+        assertThat(readOnly(routing)).isSameAs(primaryConnection);
+        assertThat(readOnly(routing)).isSameAs(primaryConnection);
+        // one lag check and one failed attempt; the second read did not try the replica again
+        verify(replica.pool, times(2)).getConnection();
+    }
+
+    @Test
+    void usableReplicasTakeTurns() throws SQLException {
+        Replica first = new Replica("r1").reports(true, "streaming", 0.0);
+        Replica second = new Replica("r2").reports(true, "streaming", 0.0);
+        ReplicaRoutingDataSource routing = routing(Duration.ofMinutes(1), first, second);
+        routing.checkReplicas();
+
+        assertThat(List.of(readOnly(routing), readOnly(routing), readOnly(routing), readOnly(routing)))
+                .containsExactly(first.connection, second.connection, first.connection, second.connection);
+    }
+
+    private ReplicaRoutingDataSource routing(Duration checkInterval, Replica... replicas) {
+        return new ReplicaRoutingDataSource(primary, List.of(replicas).stream().map(r -> r.pool).toList(),
+                recentWrites, MAX_LAG, checkInterval, meterRegistry);
+    }
+
+    private static Connection readOnly(ReplicaRoutingDataSource routing) throws SQLException {
+        return ReplicaRoutingDataSource.readOnly(routing::getConnection);
+    }
+
+    private double routed(String target, String reason) {
+        return meterRegistry.get("expenses.datasource.connections").tag("target", target).tag("reason", reason)
+                .counter().count();
+    }
+
+    /** A mocked replica pool whose connection answers the lag query. */
+    private static final class Replica {
+        final HikariDataSource pool = mock(HikariDataSource.class);
+        final Connection connection = mock(Connection.class);
+
+        Replica(String name) throws SQLException {
+            when(pool.getPoolName()).thenReturn(name);
+            when(pool.getConnection()).thenReturn(connection);
+        }
+
+        Replica reports(boolean inRecovery, String walReceiverStatus, double lagSeconds) throws SQLException {
+            Statement statement = mock(Statement.class);
+            ResultSet rs = mock(ResultSet.class);
+            when(connection.createStatement()).thenReturn(statement);
+            when(statement.executeQuery(anyString())).thenReturn(rs);
+            when(rs.next()).thenReturn(true);
+            when(rs.getBoolean(1)).thenReturn(inRecovery);
+            when(rs.getString(2)).thenReturn(walReceiverStatus);
+            when(rs.getDouble(3)).thenReturn(lagSeconds);
+            return this;
+        }
+    }
+}
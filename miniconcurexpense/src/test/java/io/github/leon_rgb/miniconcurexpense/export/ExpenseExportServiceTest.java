@@ -0,0 +1,74 @@
+package io.github.leon_rgb.miniconcurexpense.export;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.leon_rgb.miniconcurexpense.TestDatabase;
+import io.github.leon_rgb.miniconcurexpense.TestRepositories;
+import io.github.leon_rgb.miniconcurexpense.cache.HibernateCacheConfiguration;
+import io.github.leon_rgb.miniconcurexpense.model.Expense;
+import io.github.leon_rgb.miniconcurexpense.repository.ExpenseRepository;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Exports run with the second-level cache switched on, the way the application runs them.
+ */
+class ExpenseExportServiceTest {
+
+    private TestDatabase db;
+    private CacheManager cacheManager;
+    private TestRepositories repositories;
+    private ExpenseRepository repository;
+    private ExpenseExportService service;
+
+    @BeforeEach
+    void setUp() {
+        db = TestDatabase.create();
+        cacheManager = new HibernateCacheConfiguration().hibernateCacheManager(1000, Duration.ofMinutes(1));
+        repositories = new TestRepositories(db, Map.of(
+                "hibernate.cache.use_second_level_cache", "true",
+                "hibernate.cache.region.factory_class", "jcache",
+                ConfigSettings.CACHE_MANAGER, cacheManager));
+        repository = repositories.get(ExpenseRepository.class);
+        service = new ExpenseExportService(repository, repositories.entityManager(),
+                repositories.transactionManager(), new ObjectMapper());
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        repositories.close();
+        cacheManager.close();
+        db.close();
+    }
+
+    @Test
+    void exportWritesEveryRowWithoutFillingTheSecondLevelCache() throws Exception {
+        db.execute("INSERT INTO expense (description, amount) SELECT 'Row ' || i, i FROM generate_series(1, 50) i",
+                "INSERT INTO expense (description, amount) VALUES ('Lunch, with \"client\"', 12.5)");
+        Cache<Object, Object> region = cacheManager.getCache(Expense.CACHE_REGION);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        service.export(ExportFormat.CSV).writeTo(out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(lines).hasSize(52);
+        assertThat(lines[0]).isEqualTo("id,description,amount");
+        assertThat(lines[51]).endsWith(",\"Lunch, with \"\"client\"\"\",12.5");
+        assertThat(region.iterator().hasNext()).isFalse();
+
+        // lookups by id still go through the region
+        repository.findById(repository.findAll().get(0).getId());
+        assertThat(region.iterator().hasNext()).isTrue();
+    }
+}
@@ -0,0 +1,27 @@
+package io.github.leon_rgb.miniconcurexpense.ingest;
+
+import io.github.leon_rgb.miniconcurexpense.model.Expense;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ExpenseBatchServiceTest {
+
+    @Test
+    void acceptsCompleteRows() {
+        assertThat(ExpenseBatchService.validate(new Expense(null, "Taxi", 12.5))).isNull();
+        assertThat(ExpenseBatchService.validate(new Expense(null, "Free sample", 0.0))).isNull();
+        assertThat(ExpenseBatchService.validate(new Expense(null, "Car", 99_999_999.99))).isNull();
+    }
+
+    @Test
+    void rejectsRowsTheTableWouldRefuse() {
+        assertThat(ExpenseBatchService.validate(null)).isEqualTo("Row is null");
+        assertThat(ExpenseBatchService.validate(new Expense(null, null, 1.0))).isEqualTo("description is required");
+        assertThat(ExpenseBatchService.validate(new Expense(null, "  ", 1.0))).isEqualTo("description is required");
+        assertThat(ExpenseBatchService.validate(new Expense(null, "Taxi", null))).isEqualTo("amount is required");
+        assertThat(ExpenseBatchService.validate(new Expense(null, "Taxi", -0.01))).isEqualTo("amount must not be negative");
+        assertThat(ExpenseBatchService.validate(new Expense(null, "Taxi", Double.NaN))).isEqualTo("amount must not be negative");
+        assertThat(ExpenseBatchService.validate(new Expense(null, "Taxi", 1e8))).isEqualTo("amount must be below 100000000");
+    }
+}
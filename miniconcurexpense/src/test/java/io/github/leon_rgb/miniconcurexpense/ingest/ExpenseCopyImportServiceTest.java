@@ -0,0 +1,110 @@
+package io.github.leon_rgb.miniconcurexpense.ingest;
+
+import io.github.leon_rgb.miniconcurexpense.TestDatabase;
+import io.github.leon_rgb.miniconcurexpense.TestRepositories;
+import io.github.leon_rgb.miniconcurexpense.model.Expense;
+import io.github.leon_rgb.miniconcurexpense.repository.ExpenseRepository;
+import io.github.leon_rgb.miniconcurexpense.tenant.SchemaPerTenantConnectionProvider;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ExpenseCopyImportServiceTest {
+
+    private TestDatabase db;
+    private TestRepositories repositories;
+    private SchemaPerTenantConnectionProvider connectionProvider;
+    private ExpenseCopyImportService service;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        db = TestDatabase.create();
+        repositories = new TestRepositories(db);
+        connectionProvider = mock(SchemaPerTenantConnectionProvider.class);
+        when(connectionProvider.getConnection(anyString())).thenAnswer(i -> db.connection());
+        doAnswer(i -> {
+            i.<Connection>getArgument(1).close();
+            return null;
+        }).when(connectionProvider).releaseConnection(anyString(), any(Connection.class));
+        service = new ExpenseCopyImportService(connectionProvider);
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        repositories.close();
+        db.close();
+    }
+
+    @Test
+    void copiedRowsGetIdsThatNeverCollideWithPooledAllocation() throws Exception {
+        ExpenseRepository repository = repositories.get(ExpenseRepository.class);
+        List<Long> ids = new ArrayList<>();
+        repository.saveAll(expenses(3)).forEach(e -> ids.add(e.getId()));
+
+        ImportResult result = service.importCsv(csv("description,amount\nTaxi,12.50\n\"Hotel, 2 nights\",240\n"), true);
+
+        repository.saveAll(expenses(60)).forEach(e -> ids.add(e.getId()));
+        assertThat(result.rowsLoaded()).isEqualTo(2);
+        List<Expense> all = repository.findAll();
+        assertThat(all).hasSize(65);
+        assertThat(all).extracting(Expense::getId).doesNotHaveDuplicates().containsAll(ids);
+        assertThat(all).extracting(Expense::getDescription).contains("Hotel, 2 nights");
+    }
+
+    @Test
+    void rejectedFileIsABadRequestAndLoadsNothing() throws Exception {
+        assertStatus(() -> service.importCsv(csv("Taxi,12.50\nLunch,abc\n"), false), HttpStatus.BAD_REQUEST);
+        assertStatus(() -> service.importCsv(csv("name,price\nTaxi,12.50\n"), true), HttpStatus.BAD_REQUEST);
+        assertStatus(() -> service.importCsv(csv("Taxi,\n"), false), HttpStatus.BAD_REQUEST);
+        assertStatus(() -> service.importCsv(csv("Car,123456789.00\n"), false), HttpStatus.BAD_REQUEST);
+        assertThat(repositories.get(ExpenseRepository.class).count()).isZero();
+    }
+
+    @Test
+    void databaseFailuresAreNotBlamedOnTheClient() throws SQLException {
+        when(connectionProvider.getConnection(anyString())).thenThrow(new SQLException("Connection refused", "08001"));
+
+        assertThatThrownBy(() -> service.importCsv(csv("Taxi,12.50\n"), false))
+                .isNotInstanceOf(ResponseStatusException.class)
+                .hasRootCauseInstanceOf(SQLException.class);
+    }
+
+    private interface Import {
+        ImportResult run() throws Exception;
+    }
+
+    private static void assertStatus(Import call, HttpStatus status) {
+        assertThatThrownBy(call::run)
+                .isInstanceOfSatisfying(ResponseStatusException.class, e -> assertThat(e.getStatusCode()).isEqualTo(status));
+    }
+
+    private static InputStream csv(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static List<Expense> expenses(int n) {
+        List<Expense> expenses = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            expenses.add(new Expense(null, "Expense " + i, 1.0 + i));
+        }
+        return expenses;
+    }
+}
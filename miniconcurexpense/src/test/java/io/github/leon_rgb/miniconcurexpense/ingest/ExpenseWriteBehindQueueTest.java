@@ -0,0 +1,118 @@
+package io.github.leon_rgb.miniconcurexpense.ingest;
+
+import io.github.leon_rgb.miniconcurexpense.TestDatabase;
+import io.github.leon_rgb.miniconcurexpense.TestRepositories;
+import io.github.leon_rgb.miniconcurexpense.analytics.ExpenseAnalyticsService;
+import io.github.leon_rgb.miniconcurexpense.cache.ExpensePageCache;
+import io.github.leon_rgb.miniconcurexpense.model.Expense;
+import io.github.leon_rgb.miniconcurexpense.repository.ExpenseRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+class ExpenseWriteBehindQueueTest {
+
+    private static final Duration WAIT = Duration.ofSeconds(10);
+
+    private TestDatabase db;
+    private TestRepositories repositories;
+    private ExpenseRepository repository;
+    private ExpenseWriteBehindQueue queue;
+
+    @BeforeEach
+    void setUp() {
+        db = TestDatabase.create();
+        repositories = new TestRepositories(db);
+        repository = repositories.get(ExpenseRepository.class);
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        if (queue.isRunning()) {
+            queue.stop();
+        }
+        repositories.close();
+        db.close();
+    }
+
+    @Test
+    void invalidExpenseIsRejectedBeforeItIsQueued() {
+        start(500, Duration.ofMillis(20), 1000);
+
+        assertStatus(() -> queue.submit(new Expense(null, " ", 1.0)), HttpStatus.BAD_REQUEST);
+        assertStatus(() -> queue.submit(new Expense(null, "Taxi", null)), HttpStatus.BAD_REQUEST);
+        assertStatus(() -> queue.submit(new Expense(null, "Taxi", -5.0)), HttpStatus.BAD_REQUEST);
+    }
+
+    @Test
+    void failingWriteDoesNotTakeItsGroupDown() {
+        start(4, Duration.ofSeconds(30), 1000);
+        List<String> tickets = new ArrayList<>();
+        tickets.add(queue.submit(new Expense(null, "Taxi", 12.5)).orElseThrow());
+        // passes validation, but PostgreSQL refuses NUL characters in text
+        tickets.add(queue.submit(new Expense(null, "Bad\u0000row", 1.0)).orElseThrow());
+        tickets.add(queue.submit(new Expense(null, "Hotel", 240.0)).orElseThrow());
+        tickets.add(queue.submit(new Expense(null, "Lunch", 9.9)).orElseThrow());  // fills the group
+
+        List<WriteTicket.Status> statuses = tickets.stream().map(t -> queue.await(t, WAIT).status()).toList();
+
+        assertThat(statuses).containsExactly(WriteTicket.Status.COMMITTED, WriteTicket.Status.FAILED,
+                WriteTicket.Status.COMMITTED, WriteTicket.Status.COMMITTED);
+        assertThat(repository.findAll()).extracting(Expense::getDescription).containsExactlyInAnyOrder("Taxi", "Hotel", "Lunch");
+    }
+
+    @Test
+    void stopCommitsEverythingThatWasAccepted() {
+        start(500, Duration.ofSeconds(30), 1000);
+        List<String> tickets = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            tickets.add(queue.submit(new Expense(null, "Expense " + i, 1.0 + i)).orElseThrow());
+        }
+
+        queue.stop();
+
+        assertThat(tickets).allSatisfy(t -> assertThat(queue.await(t, Duration.ZERO).status()).isEqualTo(WriteTicket.Status.COMMITTED));
+        assertThat(repository.count()).isEqualTo(20);
+        assertStatus(() -> queue.submit(new Expense(null, "Too late", 1.0)), HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+    @Test
+    void finishedTicketsBeyondTheCapAreDropped() throws InterruptedException {
+        start(500, Duration.ofMillis(20), 2);
+        List<String> tickets = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            tickets.add(queue.submit(new Expense(null, "Expense " + i, 1.0 + i)).orElseThrow());
+        }
+        assertThat(queue.await(tickets.get(4), WAIT).status()).isEqualTo(WriteTicket.Status.COMMITTED);
+
+        long deadline = System.nanoTime() + WAIT.toNanos();
+        while (queue.status(tickets.get(0)).isPresent() && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(tickets).allSatisfy(t -> assertThat(queue.status(t)).isEmpty());
+        assertThat(repository.count()).isEqualTo(5);
+    }
+
+    private void start(int batchSize, Duration maxDelay, int maxTickets) {
+        queue = new ExpenseWriteBehindQueue(repository, repositories.transactionTemplate(),
+                mock(ExpensePageCache.class), mock(ExpenseAnalyticsService.class),
+                100, batchSize, maxDelay, Duration.ofMinutes(10), maxTickets, 2);
+        queue.start();
+    }
+
+    private static void assertStatus(Runnable call, HttpStatus status) {
+        assertThatThrownBy(call::run)
+                .isInstanceOfSatisfying(ResponseStatusException.class, e -> assertThat(e.getStatusCode()).isEqualTo(status));
+    }
+}
@@ -0,0 +1,231 @@
+package io.github.leon_rgb.miniconcurexpense.loadtest;
+
+import io.github.leon_rgb.miniconcurexpense.loadtest.LoadReport.Operation;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.LockSupport;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Multi-tenant load driver for ExpenseController, meant to reproduce production traffic shapes locally.
+ * Every request runs on its own virtual thread and carries an {@code X-Tenant} header; tenants are
+ * picked with a Zipf distribution so a few of them can be made hot.
+ *
+ * Start the docker-compose stack (or the app against a local Postgres/Redis), create the tenants
+ * with the datagen profile, then run for example:
+ * <pre>
+ *   ./mvnw test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=io.github.leon_rgb.miniconcurexpense.loadtest.LoadDriver \
+ *     -Dexec.args="--tenants=50 --skew=1.1 --mode=open --rate=500 --duration=120s --label=baseline"
+ * </pre>
+ * In open-loop mode latency is measured from the time a request was scheduled to start, so a
+ * stalled server shows up in the percentiles instead of silently lowering the request rate.
+ * Each run prints a summary and writes a JSON report plus .hgrm files to {@code --report-dir}.
+ */
+public class LoadDriver {
+
+    private static final Pattern ID_PATTERN = Pattern.compile("\"id\"\\s*:\\s*(\\d+)");
+    private static final String[] DESCRIPTIONS = {"Taxi", "Lunch", "Hotel", "Flight", "Train", "Parking", "Coffee", "Supplies"};
+
+    private final LoadTestConfig config;
+    private final LoadReport report = new LoadReport();
+    private final HttpClient client;
+    private final double[] tenantCdf;
+    private final int totalWeight;
+    // ids created by this run, per tenant, so deletes never touch pre-existing data
+    private final List<ConcurrentLinkedDeque<Long>> createdIds = new ArrayList<>();
+    private volatile long measureFromNanos;
+
+    LoadDriver(LoadTestConfig config) {
+        this.config = config;
+        this.client = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        this.tenantCdf = zipfCdf(config.tenants(), config.skew());
+        this.totalWeight = config.readWeight() + config.writeWeight() + config.deleteWeight();
+        for (int i = 0; i < config.tenants(); i++) {
+            createdIds.add(new ConcurrentLinkedDeque<>());
+        }
+        if (totalWeight <= 0) {
+            throw new IllegalArgumentException("--mix needs at least one non-zero weight");
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config = LoadTestConfig.parse(args);
+        System.out.println("Starting load test: " + config.describe());
+        new LoadDriver(config).run();
+    }
+
+    void run() throws InterruptedException, IOException {
+        Instant startedAt = Instant.now();
+        long start = System.nanoTime();
+        measureFromNanos = start + config.warmup().toNanos();
+        long end = measureFromNanos + config.duration().toNanos();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            if (config.openLoop()) {
+                runOpenLoop(executor, start, end);
+            } else {
+                runClosedLoop(executor, end);
+            }
+        }
+
+        double seconds = config.duration().toNanos() / 1e9;
+        report.print(System.out, config, seconds);
+        Path file = report.write(config, startedAt, seconds);
+        System.out.println("Report written to " + file.toAbsolutePath());
+    }
+
+    // requests start on a fixed schedule; a slow response never delays the next one
+    private void runOpenLoop(ExecutorService executor, long start, long end) {
+        long intervalNanos = Math.max(1, 1_000_000_000L / Math.max(1, config.rate()));
+        Semaphore inFlight = new Semaphore(config.maxInFlight());
+        SplittableRandom random = new SplittableRandom(config.seed());
+        for (long i = 0; ; i++) {
+            long intendedStart = start + i * intervalNanos;
+            if (intendedStart - end >= 0) {
+                break;
+            }
+            long wait = intendedStart - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            if (!inFlight.tryAcquire()) {
+                if (intendedStart - measureFromNanos >= 0) {
+                    report.recordDropped();
+                }
+                continue;
+            }
+            int tenant = pick(tenantCdf, random.nextDouble());
+            Operation op = pickOperation(random.nextInt(totalWeight));
+            executor.execute(() -> {
+                try {
+                    execute(tenant, op, intendedStart);
+                } finally {
+                    inFlight.release();
+                }
+            });
+        }
+    }
+
+    // a fixed number of clients, each sending its next request as soon as the previous one returned
+    private void runClosedLoop(ExecutorService executor, long end) {
+        for (int c = 0; c < config.concurrency(); c++) {
+            SplittableRandom random = new SplittableRandom(config.seed() + c);
+            executor.execute(() -> {
+                while (System.nanoTime() - end < 0) {
+                    int tenant = pick(tenantCdf, random.nextDouble());
+                    execute(tenant, pickOperation(random.nextInt(totalWeight)), System.nanoTime());
+                }
+            });
+        }
+    }
+
+    private void execute(int tenantIndex, Operation op, long intendedStart) {
+        String tenant = config.tenantName(tenantIndex);
+        ConcurrentLinkedDeque<Long> ids = createdIds.get(tenantIndex);
+        Long deleteId = null;
+        if (op == Operation.DELETE) {
+            deleteId = ids.pollLast();
+            if (deleteId == null) {
+                // nothing of ours to delete yet for this tenant, write instead
+                op = Operation.WRITE;
+            }
+        }
+
+        HttpRequest request = switch (op) {
+            case READ -> request(tenant, "/expenses?page=0&size=" + config.pageSize()).GET().build();
+            case WRITE -> request(tenant, "/expenses")
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(randomExpense()))
+                    .build();
+            case DELETE -> request(tenant, "/expenses/" + deleteId).DELETE().build();
+        };
+
+        String status;
+        String body = null;
+        try {
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            status = String.valueOf(response.statusCode());
+            body = response.body();
+        } catch (IOException e) {
+            status = e.getClass().getSimpleName();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        long latency = System.nanoTime() - intendedStart;
+
+        if (op == Operation.WRITE && body != null && status.startsWith("2")) {
+            Matcher m = ID_PATTERN.matcher(body);
+            if (m.find()) {
+                ids.addLast(Long.parseLong(m.group(1)));
+            }
+        }
+        if (intendedStart - measureFromNanos >= 0) {
+            report.record(op, latency, status);
+        }
+    }
+
+    private HttpRequest.Builder request(String tenant, String path) {
+        return HttpRequest.newBuilder(URI.create(config.baseUrl() + path))
+                .timeout(Duration.ofSeconds(30))
+                .header("X-Tenant", tenant);
+    }
+
+    private Operation pickOperation(int roll) {
+        if (roll < config.readWeight()) return Operation.READ;
+        if (roll < config.readWeight() + config.writeWeight()) return Operation.WRITE;
+        return Operation.DELETE;
+    }
+
+    private static String randomExpense() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return String.format(Locale.ROOT, "{\"description\":\"Load test - %s #%d\",\"amount\":%.2f}",
+                DESCRIPTIONS[random.nextInt(DESCRIPTIONS.length)], random.nextInt(1000), 1 + random.nextDouble(500));
+    }
+
+    /**
+     * Cumulative distribution over {@code n} tenants with weight 1/rank^skew; skew 0 is uniform.
+     */
+    private static double[] zipfCdf(int n, double skew) {
+        double[] cdf = new double[n];
+        double total = 0;
+        for (int i = 0; i < n; i++) {
+            total += 1.0 / Math.pow(i + 1, skew);
+            cdf[i] = total;
+        }
+        for (int i = 0; i < n; i++) {
+            cdf[i] /= total;
+        }
+        return cdf;
+    }
+
+    private static int pick(double[] cdf, double u) {
+        int lo = 0, hi = cdf.length - 1;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (cdf[mid] < u) lo = mid + 1; else hi = mid;
+        }
+        return lo;
+    }
+}
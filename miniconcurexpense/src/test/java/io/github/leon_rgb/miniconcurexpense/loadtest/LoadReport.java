@@ -0,0 +1,129 @@
+package io.github.leon_rgb.miniconcurexpense.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histograms (microseconds, 3 significant digits) and outcome counters per operation,
+ * plus the JSON / .hgrm report written at the end of a run.
+ */
+final class LoadReport {
+
+    enum Operation { READ, WRITE, DELETE }
+
+    // one hour in microseconds is plenty for an HTTP request
+    private static final long HIGHEST_TRACKABLE_MICROS = 3_600_000_000L;
+
+    private final Map<Operation, Histogram> histograms = new EnumMap<>(Operation.class);
+    private final Histogram all = new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3);
+    private final Map<String, LongAdder> statuses = new ConcurrentHashMap<>();
+    private final LongAdder dropped = new LongAdder();
+
+    LoadReport() {
+        for (Operation op : Operation.values()) {
+            histograms.put(op, new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3));
+        }
+    }
+
+    void record(Operation op, long latencyNanos, String status) {
+        long micros = Math.min(HIGHEST_TRACKABLE_MICROS, Math.max(1, latencyNanos / 1_000));
+        histograms.get(op).recordValue(micros);
+        all.recordValue(micros);
+        statuses.computeIfAbsent(op + " " + status, k -> new LongAdder()).increment();
+    }
+
+    void recordDropped() {
+        dropped.increment();
+    }
+
+    void print(PrintStream out, LoadTestConfig config, double seconds) {
+        out.println();
+        out.println("Load test '" + config.label() + "': " + config.describe());
+        out.printf("%-8s %10s %10s %10s %10s %10s %10s%n", "op", "count", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms");
+        for (Operation op : Operation.values()) {
+            printRow(out, op.name(), histograms.get(op), seconds);
+        }
+        printRow(out, "ALL", all, seconds);
+        out.println("Responses: " + new TreeMap<>(counts()));
+        if (dropped.sum() > 0) {
+            out.println("Dropped (max in flight reached): " + dropped.sum());
+        }
+    }
+
+    private static void printRow(PrintStream out, String name, Histogram h, double seconds) {
+        out.printf("%-8s %10d %10.1f %10.2f %10.2f %10.2f %10.2f%n", name, h.getTotalCount(), h.getTotalCount() / seconds,
+                h.getValueAtPercentile(50) / 1000.0, h.getValueAtPercentile(99) / 1000.0,
+                h.getValueAtPercentile(99.9) / 1000.0, h.getMaxValue() / 1000.0);
+    }
+
+    /**
+     * Write {@code <label>-<timestamp>.json} with the settings and percentiles, and one .hgrm
+     * percentile distribution per operation (plottable with the HdrHistogram plotter).
+     * @return the JSON report file
+     */
+    Path write(LoadTestConfig config, Instant startedAt, double seconds) throws IOException {
+        Path dir = Path.of(config.reportDir());
+        Files.createDirectories(dir);
+        String base = config.label() + "-" + DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss").withZone(ZoneOffset.UTC).format(startedAt);
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("label", config.label());
+        report.put("startedAt", startedAt.toString());
+        report.put("config", config);
+        report.put("measuredSeconds", seconds);
+        Map<String, Object> operations = new LinkedHashMap<>();
+        for (Operation op : Operation.values()) {
+            operations.put(op.name(), summary(histograms.get(op), seconds));
+        }
+        operations.put("ALL", summary(all, seconds));
+        report.put("latencyMillis", operations);
+        report.put("responses", counts());
+        report.put("dropped", dropped.sum());
+
+        Path json = dir.resolve(base + ".json");
+        new ObjectMapper().findAndRegisterModules().enable(SerializationFeature.INDENT_OUTPUT)
+                .disable(SerializationFeature.WRITE_DURATIONS_AS_TIMESTAMPS)
+                .writeValue(json.toFile(), report);
+
+        for (Operation op : Operation.values()) {
+            try (PrintStream out = new PrintStream(dir.resolve(base + "-" + op.name().toLowerCase() + ".hgrm").toFile())) {
+                histograms.get(op).outputPercentileDistribution(out, 1000.0);
+            }
+        }
+        return json;
+    }
+
+    private static Map<String, Object> summary(Histogram h, double seconds) {
+        Map<String, Object> s = new LinkedHashMap<>();
+        s.put("count", h.getTotalCount());
+        s.put("throughput", h.getTotalCount() / seconds);
+        s.put("p50", h.getValueAtPercentile(50) / 1000.0);
+        s.put("p90", h.getValueAtPercentile(90) / 1000.0);
+        s.put("p99", h.getValueAtPercentile(99) / 1000.0);
+        s.put("p999", h.getValueAtPercentile(99.9) / 1000.0);
+        s.put("max", h.getMaxValue() / 1000.0);
+        return s;
+    }
+
+    private Map<String, Long> counts() {
+        Map<String, Long> result = new LinkedHashMap<>();
+        statuses.forEach((k, v) -> result.put(k, v.sum()));
+        return result;
+    }
+}
@@ -0,0 +1,88 @@
+package io.github.leon_rgb.miniconcurexpense.loadtest;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Settings of one load-test run, parsed from {@code --key=value} arguments.
+ *
+ * @param baseUrl       where the application listens
+ * @param tenants       number of tenants, named {@code <tenantPrefix>001...} like the datagen profile creates them
+ * @param skew          Zipf exponent of the tenant choice; 0 spreads load evenly, 1+ makes a few tenants hot
+ * @param openLoop      true: requests start at a fixed rate whatever the latency; false: {@code concurrency} clients back to back
+ * @param rate          requests per second in open-loop mode
+ * @param concurrency   number of clients in closed-loop mode
+ * @param maxInFlight   open-loop requests beyond this are counted as dropped instead of sent
+ * @param readWeight    relative share of GET /expenses
+ * @param writeWeight   relative share of POST /expenses
+ * @param deleteWeight  relative share of DELETE /expenses/{id} (only ids this run created)
+ */
+record LoadTestConfig(URI baseUrl,
+                      int tenants,
+                      String tenantPrefix,
+                      double skew,
+                      boolean openLoop,
+                      int rate,
+                      int concurrency,
+                      int maxInFlight,
+                      Duration warmup,
+                      Duration duration,
+                      int readWeight,
+                      int writeWeight,
+                      int deleteWeight,
+                      int pageSize,
+                      long seed,
+                      String label,
+                      String reportDir) {
+
+    static LoadTestConfig parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --key=value but got: " + arg);
+            }
+            int eq = arg.indexOf('=');
+            options.put(arg.substring(2, eq), arg.substring(eq + 1));
+        }
+
+        String[] mix = options.getOrDefault("mix", "80:15:5").split(":");
+        if (mix.length != 3) {
+            throw new IllegalArgumentException("--mix must be read:write:delete, e.g. 80:15:5");
+        }
+        String mode = options.getOrDefault("mode", "closed");
+        if (!mode.equals("open") && !mode.equals("closed")) {
+            throw new IllegalArgumentException("--mode must be 'open' or 'closed'");
+        }
+
+        return new LoadTestConfig(
+                URI.create(options.getOrDefault("base-url", "http://localhost:8080")),
+                Integer.parseInt(options.getOrDefault("tenants", "10")),
+                options.getOrDefault("tenant-prefix", "loadtest_"),
+                Double.parseDouble(options.getOrDefault("skew", "1.0")),
+                mode.equals("open"),
+                Integer.parseInt(options.getOrDefault("rate", "200")),
+                Integer.parseInt(options.getOrDefault("concurrency", "32")),
+                Integer.parseInt(options.getOrDefault("max-in-flight", "10000")),
+                Duration.parse("PT" + options.getOrDefault("warmup", "10s").toUpperCase()),
+                Duration.parse("PT" + options.getOrDefault("duration", "60s").toUpperCase()),
+                Integer.parseInt(mix[0]),
+                Integer.parseInt(mix[1]),
+                Integer.parseInt(mix[2]),
+                Integer.parseInt(options.getOrDefault("page-size", "20")),
+                Long.parseLong(options.getOrDefault("seed", "42")),
+                options.getOrDefault("label", "run"),
+                options.getOrDefault("report-dir", "target/loadtest"));
+    }
+
+    String tenantName(int index) {
+        return String.format("%s%03d", tenantPrefix, index + 1);
+    }
+
+    String describe() {
+        return (openLoop ? "open loop, " + rate + " req/s" : "closed loop, " + concurrency + " clients")
+                + ", " + tenants + " tenants (skew " + skew + "), mix " + readWeight + ":" + writeWeight + ":" + deleteWeight
+                + ", warmup " + warmup.toSeconds() + "s, duration " + duration.toSeconds() + "s";
+    }
+}
@@ -0,0 +1,67 @@
+package io.github.leon_rgb.miniconcurexpense.migration;
+
+import io.github.leon_rgb.miniconcurexpense.TestDatabase;
+import io.github.leon_rgb.miniconcurexpense.model.Expense;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Shape of a freshly migrated tenant schema.
+ */
+class ExpenseMigrationTest {
+
+    private TestDatabase db;
+
+    @BeforeEach
+    void migrate() {
+        db = TestDatabase.create();
+    }
+
+    @AfterEach
+    void drop() throws SQLException {
+        db.close();
+    }
+
+    @Test
+    void idsAreBigintAndTheSequenceStepsByTheAllocationSize() throws SQLException {
+        try (Connection connection = db.connection();
+             PreparedStatement column = connection.prepareStatement(
+                     "SELECT data_type FROM information_schema.columns WHERE table_schema = ? AND table_name = 'expense' AND column_name = 'id'");
+             PreparedStatement sequence = connection.prepareStatement(
+                     "SELECT data_type::text, increment_by FROM pg_sequences WHERE schemaname = ? AND sequencename = 'expense_id_seq'")) {
+            column.setString(1, db.schema());
+            try (ResultSet rs = column.executeQuery()) {
+                assertThat(rs.next()).isTrue();
+                assertThat(rs.getString(1)).isEqualTo("bigint");
+            }
+            sequence.setString(1, db.schema());
+            try (ResultSet rs = sequence.executeQuery()) {
+                assertThat(rs.next()).isTrue();
+                assertThat(rs.getString(1)).isEqualTo("bigint");
+                assertThat(rs.getLong(2)).isEqualTo(Expense.ID_ALLOCATION_SIZE);
+            }
+        }
+    }
+
+    @Test
+    void idsBeyondTheIntegerRangeCanBeStored() throws SQLException {
+        try (Connection connection = db.connection();
+             Statement st = connection.createStatement()) {
+            st.execute("SELECT setval('expense_id_seq', 3000000000)");
+            st.execute("INSERT INTO expense (description, amount) VALUES ('Hotel', 120.00)");
+            try (ResultSet rs = st.executeQuery("SELECT max(id) FROM expense")) {
+                rs.next();
+                assertThat(rs.getLong(1)).isGreaterThan(Integer.MAX_VALUE);
+            }
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package io.github.leon_rgb.miniconcurexpense.repository;
+
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Hibernate's query cache is local to one app instance, so no query of the repositories may
+ * opt into it; their results feed caches and ETags that are shared between instances.
+ * Bulk reads must not fill the second-level cache either.
+ */
+class ExpenseRepositoryQueryHintsTest {
+
+    @Test
+    void noQueryIsCacheable() {
+        for (Class<?> repository : new Class<?>[] {ExpenseRepository.class, ExpenseSearchRepository.class, ExpenseRollupRepository.class}) {
+            for (Method method : repository.getMethods()) {
+                QueryHints hints = method.getAnnotation(QueryHints.class);
+                if (hints != null) {
+                    assertThat(Arrays.stream(hints.value()).map(QueryHint::name))
+                            .as(repository.getSimpleName() + "." + method.getName())
+                            .doesNotContain(HibernateHints.HINT_CACHEABLE);
+                }
+            }
+        }
+    }
+
+    @Test
+    void exportStreamBypassesTheSecondLevelCache() throws NoSuchMethodException {
+        QueryHints hints = ExpenseRepository.class.getMethod("streamAllByOrderByIdAsc").getAnnotation(QueryHints.class);
+
+        assertThat(hints.value())
+                .anySatisfy(hint -> {
+                    assertThat(hint.name()).isEqualTo(HibernateHints.HINT_CACHE_MODE);
+                    assertThat(hint.value()).isEqualTo("IGNORE");
+                });
+    }
+}
@@ -0,0 +1,156 @@
+package io.github.leon_rgb.miniconcurexpense.repository;
+
+import io.github.leon_rgb.miniconcurexpense.TestDatabase;
+import io.github.leon_rgb.miniconcurexpense.TestRepositories;
+import io.github.leon_rgb.miniconcurexpense.model.Expense;
+import io.github.leon_rgb.miniconcurexpense.retention.ExpensePurgeService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.IncorrectResultSizeDataAccessException;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ExpenseRepositoryTest {
+
+    private TestDatabase db;
+    private TestRepositories repositories;
+    private ExpenseRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        db = TestDatabase.create();
+        repositories = new TestRepositories(db);
+        repository = repositories.get(ExpenseRepository.class);
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        repositories.close();
+        db.close();
+    }
+
+    @Test
+    void keysetPagesCoverEveryRowOnceNewestFirst() {
+        List<Long> ids = save(23).stream().map(Expense::getId).sorted((a, b) -> Long.compare(b, a)).toList();
+
+        List<Long> seen = new ArrayList<>();
+        List<Expense> page = repository.findAllByOrderByIdDesc(Limit.of(10));
+        while (!page.isEmpty()) {
+            page.forEach(e -> seen.add(e.getId()));
+            page = repository.findByIdLessThanOrderByIdDesc(page.get(page.size() - 1).getId(), Limit.of(10));
+        }
+        assertThat(seen).isEqualTo(ids);
+    }
+
+    @Test
+    void keysetPageIsNotShiftedByConcurrentInserts() {
+        save(5);
+        List<Expense> first = repository.findAllByOrderByIdDesc(Limit.of(3));
+        save(4);  // newer rows must not show up again on the next page
+        List<Expense> second = repository.findByIdLessThanOrderByIdDesc(first.get(2).getId(), Limit.of(3));
+        assertThat(second).hasSize(2)
+                .allSatisfy(e -> assertThat(e.getId()).isLessThan(first.get(2).getId()));
+    }
+
+    @Test
+    void recentSliceLeavesOlderMonthsOut() throws SQLException {
+        // older rows with higher ids, so leaving them out is visible in the result
+        save(5);
+        db.execute("INSERT INTO expense (description, amount, created_at) "
+                + "SELECT 'Old ' || i, i, now() - interval '6 months' FROM generate_series(1, 3) i");
+        Instant since = Instant.now().minus(Duration.ofDays(30));
+        Pageable firstPage = PageRequest.of(0, 2, Sort.by("id").descending());
+
+        Slice<Expense> first = repository.findSliceByCreatedAtGreaterThanEqual(since, firstPage);
+        Slice<Expense> last = repository.findSliceByCreatedAtGreaterThanEqual(since, firstPage.withPage(2));
+
+        assertThat(first.getContent()).extracting(Expense::getDescription).containsExactly("Expense 4", "Expense 3");
+        assertThat(first.hasNext()).isTrue();
+        assertThat(last.getContent()).extracting(Expense::getDescription).containsExactly("Expense 0");
+        assertThat(last.hasNext()).isFalse();
+        assertThat(repository.findSliceBy(firstPage).getContent())
+                .extracting(Expense::getDescription).allMatch(d -> d.startsWith("Old "));
+    }
+
+    @Test
+    void deleteRowByIdRemovesOnlyThatRow() {
+        List<Expense> saved = save(3);
+
+        assertThat(repository.deleteRowById(saved.get(1).getId())).isEqualTo(1);
+        assertThat(repository.deleteRowById(saved.get(1).getId())).isZero();
+        assertThat(repository.findAll()).extracting(Expense::getId)
+                .containsExactlyInAnyOrder(saved.get(0).getId(), saved.get(2).getId());
+    }
+
+    @Test
+    void deleteRowsByIdsCountsOnlyExistingRows() {
+        List<Expense> saved = save(5);
+        Long missing = saved.get(4).getId() + 1000;
+
+        int rows = repository.deleteRowsByIds(new Long[] {saved.get(0).getId(), saved.get(3).getId(), missing});
+
+        assertThat(rows).isEqualTo(2);
+        assertThat(repository.count()).isEqualTo(3);
+        assertThat(repository.existsById(saved.get(0).getId())).isFalse();
+    }
+
+    @Test
+    void deleteRowsByIdRangeIsInclusive() {
+        List<Expense> saved = save(6);
+
+        int rows = repository.deleteRowsByIdRange(saved.get(1).getId(), saved.get(3).getId());
+
+        assertThat(rows).isEqualTo(3);
+        assertThat(repository.findAll()).extracting(Expense::getId)
+                .containsExactlyInAnyOrder(saved.get(0).getId(), saved.get(4).getId(), saved.get(5).getId());
+        assertThat(repository.deleteRowsByIdRange(Long.MIN_VALUE, Long.MAX_VALUE)).isEqualTo(3);
+    }
+
+    @Test
+    void deletesByIdRefuseIdsThatAreNotUnique() throws SQLException {
+        // the partitioned primary key is (id, created_at), so only the sequence keeps ids unique
+        Long id = save(1).get(0).getId();
+        db.execute("INSERT INTO expense (id, description, amount, created_at) VALUES (" + id + ", 'Copy', 1, now() + interval '1 month')");
+
+        assertThatThrownBy(() -> repository.deleteRowById(id))
+                .isInstanceOf(IncorrectResultSizeDataAccessException.class);
+        assertThatThrownBy(() -> repository.deleteRowsByIds(new Long[] {id, id}))
+                .isInstanceOf(IncorrectResultSizeDataAccessException.class);
+        assertThat(repository.count()).isEqualTo(2);
+    }
+
+    @Test
+    void purgeReportsTheRowCountAndKeepsTheSequence() {
+        List<Expense> saved = save(7);
+        ExpensePurgeService purge = new ExpensePurgeService(repositories.entityManager(),
+                repositories.get(ExpenseRollupRepository.class), Duration.ofSeconds(5));
+
+        Long rows = repositories.transactionTemplate().execute(status -> purge.purgeCurrentTenant());
+
+        assertThat(rows).isEqualTo(7);
+        assertThat(repository.count()).isZero();
+        // the sequence is not restarted, so new rows never reuse an id handed out before
+        assertThat(save(1).get(0).getId()).isGreaterThan(saved.get(6).getId());
+    }
+
+    List<Expense> save(int n) {
+        List<Expense> expenses = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            expenses.add(new Expense(null, "Expense " + i, 10.0 + i));
+        }
+        return repository.saveAll(expenses);
+    }
+}
@@ -0,0 +1,131 @@
+package io.github.leon_rgb.miniconcurexpense.repository;
+
+import io.github.leon_rgb.miniconcurexpense.TestDatabase;
+import io.github.leon_rgb.miniconcurexpense.TestRepositories;
+import io.github.leon_rgb.miniconcurexpense.model.ExpenseRollup;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The trigger-maintained rollup (V3__Create_expense_rollup.sql) must always equal a fresh
+ * aggregate over the expense table, whatever statement changed it.
+ */
+class ExpenseRollupRepositoryTest {
+
+    private TestDatabase db;
+    private TestRepositories repositories;
+    private ExpenseRollupRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        db = TestDatabase.create();
+        repositories = new TestRepositories(db);
+        repository = repositories.get(ExpenseRollupRepository.class);
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        repositories.close();
+        db.close();
+    }
+
+    @Test
+    void emptyTable() throws SQLException {
+        assertRollupMatchesTable();
+        assertThat(repository.findRollup().orElseThrow().getCount()).isZero();
+    }
+
+    @Test
+    void insertsOfOneAndManyRows() throws SQLException {
+        db.execute("INSERT INTO expense (description, amount) VALUES ('Taxi', 12.50)");
+        assertRollupMatchesTable();
+        db.execute("INSERT INTO expense (description, amount) SELECT 'Row ' || i, i * 1.25 FROM generate_series(1, 500) i");
+        assertRollupMatchesTable();
+        assertThat(repository.findRollup().orElseThrow().getCount()).isEqualTo(501);
+    }
+
+    @Test
+    void deletesThatRemoveTheExtremes() throws SQLException {
+        db.execute("INSERT INTO expense (description, amount) SELECT 'Row ' || i, i FROM generate_series(1, 100) i");
+        db.execute("DELETE FROM expense WHERE amount IN (1, 100)");
+        assertRollupMatchesTable();
+        ExpenseRollup rollup = repository.findRollup().orElseThrow();
+        assertThat(rollup.getMin()).isEqualByComparingTo("2");
+        assertThat(rollup.getMax()).isEqualByComparingTo("99");
+
+        db.execute("DELETE FROM expense WHERE amount BETWEEN 40 AND 60");
+        assertRollupMatchesTable();
+        db.execute("DELETE FROM expense");
+        assertRollupMatchesTable();
+        assertThat(repository.findRollup().orElseThrow().getMin()).isNull();
+    }
+
+    @Test
+    void updatesOfAmounts() throws SQLException {
+        db.execute("INSERT INTO expense (description, amount) SELECT 'Row ' || i, i FROM generate_series(1, 10) i");
+        db.execute("UPDATE expense SET amount = amount * 10 WHERE amount > 5");
+        assertRollupMatchesTable();
+        db.execute("UPDATE expense SET amount = 0.5 WHERE amount = 1");
+        assertRollupMatchesTable();
+    }
+
+    @Test
+    void truncateResetsTheRollup() throws SQLException {
+        db.execute("INSERT INTO expense (description, amount) SELECT 'Row ' || i, i FROM generate_series(1, 10) i");
+        db.execute("TRUNCATE expense");
+        assertRollupMatchesTable();
+        db.execute("INSERT INTO expense (description, amount) VALUES ('After truncate', 7)");
+        assertRollupMatchesTable();
+    }
+
+    @Test
+    void rolledBackWriteLeavesTheRollupAlone() throws SQLException {
+        db.execute("INSERT INTO expense (description, amount) VALUES ('Kept', 5)");
+        try (Connection connection = db.connection();
+             Statement st = connection.createStatement()) {
+            connection.setAutoCommit(false);
+            st.execute("INSERT INTO expense (description, amount) VALUES ('Rolled back', 1000)");
+            connection.rollback();
+        }
+        assertRollupMatchesTable();
+    }
+
+    @Test
+    void rebuildRepairsADriftedRollup() throws SQLException {
+        db.execute("INSERT INTO expense (description, amount) SELECT 'Row ' || i, i FROM generate_series(1, 10) i");
+        db.execute("UPDATE expense_rollup SET expense_count = 0, amount_sum = 0");
+
+        assertThat(repository.rebuild()).isEqualTo(10);
+        assertRollupMatchesTable();
+    }
+
+    private void assertRollupMatchesTable() throws SQLException {
+        try (Connection connection = db.connection();
+             Statement st = connection.createStatement();
+             ResultSet rs = st.executeQuery("SELECT count(*), coalesce(sum(amount), 0), min(amount), max(amount) FROM expense")) {
+            rs.next();
+            ExpenseRollup rollup = repository.findRollup().orElseThrow();
+            assertThat(rollup.getCount()).isEqualTo(rs.getLong(1));
+            assertThat(rollup.getSum()).isEqualByComparingTo(rs.getBigDecimal(2));
+            assertNumericEquals(rollup.getMin(), rs.getBigDecimal(3));
+            assertNumericEquals(rollup.getMax(), rs.getBigDecimal(4));
+        }
+    }
+
+    private static void assertNumericEquals(BigDecimal actual, BigDecimal expected) {
+        if (expected == null) {
+            assertThat(actual).isNull();
+        } else {
+            assertThat(actual).isEqualByComparingTo(expected);
+        }
+    }
+}
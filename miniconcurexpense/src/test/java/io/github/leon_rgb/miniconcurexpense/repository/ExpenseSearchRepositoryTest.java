@@ -0,0 +1,105 @@
+package io.github.leon_rgb.miniconcurexpense.repository;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.leon_rgb.miniconcurexpense.TestDatabase;
+import io.github.leon_rgb.miniconcurexpense.TestRepositories;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ExpenseSearchRepositoryTest {
+
+    private static final int MAX_CANDIDATES = 10_000;
+
+    private TestDatabase db;
+    private TestRepositories repositories;
+    private ExpenseSearchRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        db = TestDatabase.create();
+        repositories = new TestRepositories(db);
+        repository = repositories.get(ExpenseSearchRepository.class);
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        repositories.close();
+        db.close();
+    }
+
+    @Test
+    void closerMatchesRankHigherAndTiesGoToTheNewerRow() throws SQLException {
+        db.execute("INSERT INTO expense (description, amount) VALUES "
+                + "('Hotel room, hotel tax', 120), ('Taxi to the hotel', 30), ('Lunch', 9), ('Hotel room, hotel tax', 130)");
+
+        List<ExpenseSearchHit> hits = repository.search("hotel", MAX_CANDIDATES, 10);
+
+        assertThat(hits).extracting(ExpenseSearchHit::getDescription)
+                .containsExactly("Hotel room, hotel tax", "Hotel room, hotel tax", "Taxi to the hotel");
+        assertThat(hits.get(0).getId()).isGreaterThan(hits.get(1).getId());
+        assertThat(hits).isSortedAccordingTo(Comparator.comparing(ExpenseSearchHit::getRank).reversed());
+    }
+
+    @Test
+    void typosStillFindTheWord() throws SQLException {
+        db.execute("INSERT INTO expense (description, amount) VALUES ('Restaurant dinner', 55), ('Train ticket', 80)");
+
+        assertThat(repository.search("restaurnt", MAX_CANDIDATES, 10))
+                .extracting(ExpenseSearchHit::getDescription).containsExactly("Restaurant dinner");
+    }
+
+    @Test
+    void keysetPagesMatchTheUnpagedResult() throws SQLException {
+        db.execute("INSERT INTO expense (description, amount) "
+                + "SELECT CASE WHEN i % 3 = 0 THEN 'taxi taxi ride ' ELSE 'taxi ride ' END || i, i FROM generate_series(1, 50) i");
+        List<Long> all = repository.search("taxi", MAX_CANDIDATES, 100).stream().map(ExpenseSearchHit::getId).toList();
+
+        assertThat(pagedIds("taxi", MAX_CANDIDATES, 7)).isEqualTo(all).hasSize(50);
+    }
+
+    @Test
+    void candidateCapKeepsTheNewestMatchesOnEveryPage() throws SQLException {
+        db.execute("INSERT INTO expense (description, amount) SELECT 'taxi ride ' || i, i FROM generate_series(1, 30) i");
+        db.execute("INSERT INTO expense (description, amount) VALUES ('taxi taxi taxi', 1)");
+
+        List<Long> paged = pagedIds("taxi", 10, 3);
+
+        List<Long> newest = repository.search("taxi", MAX_CANDIDATES, 100).stream()
+                .map(ExpenseSearchHit::getId).sorted(Comparator.reverseOrder()).limit(10).toList();
+        assertThat(paged).hasSize(10).containsExactlyInAnyOrderElementsOf(newest);
+    }
+
+    @Test
+    void snippetEscapesTheDescriptionAndMarksOnlyTheMatches() throws Exception {
+        db.execute("INSERT INTO expense (description, amount) VALUES "
+                + "('Dinner <img src=x onerror=alert(1)> taxi & \"tip\" ' || chr(2) || 'home' || chr(3), 12)");
+
+        ExpenseSearchHit hit = repository.search("taxi", MAX_CANDIDATES, 10).get(0);
+
+        assertThat(hit.getSnippet())
+                .contains("onerror=alert(1)&gt;", "<b>taxi</b>", "&amp;", "&quot;tip&quot;", "home")
+                .doesNotContain("\u0002", "\u0003");
+        assertThat(hit.getSnippet().replace("<b>", "").replace("</b>", "")).doesNotContain("<", ">");
+        assertThat(new ObjectMapper().writeValueAsString(hit))
+                .contains("\"snippet\":").doesNotContain("markedSnippet");
+    }
+
+    private List<Long> pagedIds(String q, int maxCandidates, int pageSize) {
+        List<Long> ids = new ArrayList<>();
+        List<ExpenseSearchHit> page = repository.search(q, maxCandidates, pageSize);
+        while (!page.isEmpty()) {
+            page.forEach(h -> ids.add(h.getId()));
+            ExpenseSearchHit last = page.get(page.size() - 1);
+            page = repository.searchAfter(q, maxCandidates, last.getRank(), last.getId(), pageSize);
+        }
+        return ids;
+    }
+}
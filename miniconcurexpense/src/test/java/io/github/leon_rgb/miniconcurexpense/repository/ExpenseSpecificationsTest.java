@@ -0,0 +1,117 @@
+package io.github.leon_rgb.miniconcurexpense.repository;
+
+import io.github.leon_rgb.miniconcurexpense.TestDatabase;
+import io.github.leon_rgb.miniconcurexpense.TestRepositories;
+import io.github.leon_rgb.miniconcurexpense.model.Expense;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ExpenseSpecificationsTest {
+
+    private TestDatabase db;
+    private TestRepositories repositories;
+    private ExpenseRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        db = TestDatabase.create();
+        repositories = new TestRepositories(db);
+        repository = repositories.get(ExpenseRepository.class);
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        repositories.close();
+        db.close();
+    }
+
+    @Test
+    void amountBoundsAreInclusive() {
+        save("a", 10.0, "b", 20.0, "c", 30.0, "d", 40.0);
+
+        List<Expense> rows = repository.findAll(Specification.allOf(
+                ExpenseSpecifications.amountAtLeast(20.0),
+                ExpenseSpecifications.amountAtMost(30.0)));
+
+        assertThat(rows).extracting(Expense::getDescription).containsExactlyInAnyOrder("b", "c");
+    }
+
+    @Test
+    void descriptionPrefixIgnoresCaseAndMatchesWildcardsLiterally() {
+        save("Taxi to airport", 1.0, "taxi home", 2.0, "Train", 3.0,
+                "50% off", 4.0, "500 pens", 5.0, "a_b", 6.0, "axb", 7.0);
+
+        assertThat(find(ExpenseSpecifications.descriptionStartsWith("TAXI")))
+                .containsExactlyInAnyOrder("Taxi to airport", "taxi home");
+        assertThat(find(ExpenseSpecifications.descriptionStartsWith("50%")))
+                .containsExactly("50% off");
+        assertThat(find(ExpenseSpecifications.descriptionStartsWith("a_")))
+                .containsExactly("a_b");
+    }
+
+    @Test
+    void idSeekWalksEveryRowOnceInBothDirections() {
+        List<Long> ids = save("a", 1.0, "b", 2.0, "c", 3.0, "d", 4.0, "e", 5.0)
+                .stream().map(Expense::getId).sorted().toList();
+
+        assertThat(walkById(false)).isEqualTo(ids);
+        assertThat(walkById(true)).isEqualTo(ids.reversed());
+    }
+
+    @Test
+    void amountSeekBreaksTiesById() {
+        // three rows share an amount, so a page boundary inside the tie must not skip or repeat any
+        save("a", 5.0, "b", 5.0, "c", 5.0, "d", 1.0, "e", 9.0);
+
+        assertThat(walkByAmount(false)).containsExactly("d", "a", "b", "c", "e");
+        assertThat(walkByAmount(true)).containsExactly("e", "c", "b", "a", "d");
+    }
+
+    // pages of two, each page seeking past the last row of the previous one, like /expenses/filter
+    private List<Long> walkById(boolean descending) {
+        Sort order = Sort.by(descending ? Sort.Direction.DESC : Sort.Direction.ASC, "id");
+        List<Long> seen = new ArrayList<>();
+        List<Expense> page = repository.findBy(Specification.allOf(), q -> q.sortBy(order).limit(2).all());
+        while (!page.isEmpty()) {
+            page.forEach(e -> seen.add(e.getId()));
+            Specification<Expense> seek = ExpenseSpecifications.idAfter(page.get(page.size() - 1).getId(), descending);
+            page = repository.findBy(seek, q -> q.sortBy(order).limit(2).all());
+        }
+        return seen;
+    }
+
+    private List<String> walkByAmount(boolean descending) {
+        Sort order = Sort.by(descending ? Sort.Direction.DESC : Sort.Direction.ASC, "amount", "id");
+        List<String> seen = new ArrayList<>();
+        List<Expense> page = repository.findBy(Specification.allOf(), q -> q.sortBy(order).limit(2).all());
+        while (!page.isEmpty()) {
+            page.forEach(e -> seen.add(e.getDescription()));
+            Expense last = page.get(page.size() - 1);
+            Specification<Expense> seek = ExpenseSpecifications.amountAfter(last.getAmount(), last.getId(), descending);
+            page = repository.findBy(seek, q -> q.sortBy(order).limit(2).all());
+        }
+        return seen;
+    }
+
+    private List<String> find(Specification<Expense> specification) {
+        return repository.findAll(specification).stream().map(Expense::getDescription).toList();
+    }
+
+    // saved one at a time, so ids follow argument order
+    private List<Expense> save(Object... descriptionsAndAmounts) {
+        List<Expense> saved = new ArrayList<>();
+        for (int i = 0; i < descriptionsAndAmounts.length; i += 2) {
+            saved.add(repository.save(new Expense(null, (String) descriptionsAndAmounts[i], (Double) descriptionsAndAmounts[i + 1])));
+        }
+        return saved;
+    }
+}
@@ -0,0 +1,185 @@
+package io.github.leon_rgb.miniconcurexpense.retention;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.leon_rgb.miniconcurexpense.TestDatabase;
+import io.github.leon_rgb.miniconcurexpense.analytics.ExpenseAnalyticsService;
+import io.github.leon_rgb.miniconcurexpense.cache.ExpensePageCache;
+import io.github.leon_rgb.miniconcurexpense.cache.SecondLevelCacheEvictor;
+import io.github.leon_rgb.miniconcurexpense.tenant.SchemaPerTenantConnectionProvider;
+import io.github.leon_rgb.miniconcurexpense.tenant.TenantRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Partition maintenance on a real schema: months ahead are created (and split out of the default
+ * partition when rows are already waiting there), expired months are archived and dropped, and
+ * the trigger-maintained rollup stays equal to a fresh aggregate throughout.
+ */
+class PartitionRetentionJobTest {
+
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+
+    @TempDir
+    Path archiveDir;
+
+    private TestDatabase db;
+    private ExpensePageCache pageCache;
+    private PartitionRetentionJob job;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        db = TestDatabase.create();
+        TenantRegistry tenantRegistry = mock(TenantRegistry.class);
+        when(tenantRegistry.knownTenants()).thenReturn(List.of(db.schema()));
+        SchemaPerTenantConnectionProvider connectionProvider = mock(SchemaPerTenantConnectionProvider.class);
+        when(connectionProvider.getConnection(anyString())).thenAnswer(i -> db.connection());
+        doAnswer(i -> {
+            i.<Connection>getArgument(1).close();
+            return null;
+        }).when(connectionProvider).releaseConnection(anyString(), any(Connection.class));
+        pageCache = mock(ExpensePageCache.class);
+        job = new PartitionRetentionJob(tenantRegistry, connectionProvider, pageCache,
+                mock(SecondLevelCacheEvictor.class), mock(ExpenseAnalyticsService.class), new ObjectMapper(),
+                3, true, 12, archiveDir.toString(), Duration.ofSeconds(5));
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        db.close();
+    }
+
+    @Test
+    void createsTheMonthsAhead() throws SQLException {
+        job.run();
+
+        YearMonth now = YearMonth.now(ZoneOffset.UTC);
+        assertThat(partitions()).contains(partition(now), partition(now.plusMonths(1)),
+                partition(now.plusMonths(2)), partition(now.plusMonths(3)));
+    }
+
+    @Test
+    void rowsWaitingInTheDefaultMoveIntoTheirNewPartition() throws SQLException {
+        YearMonth later = YearMonth.now(ZoneOffset.UTC).plusMonths(3);
+        insert(later, 4);
+        assertThat(count("expense_pdefault")).isEqualTo(4);
+
+        job.run();
+
+        assertThat(count("expense_pdefault")).isZero();
+        assertThat(count(partition(later))).isEqualTo(4);
+        assertThat(count("expense")).isEqualTo(4);
+        assertRollupMatchesTable();
+        // the split partition gets the same indexes as one created directly
+        assertThat(indexCount(partition(later))).isEqualTo(indexCount(partition(later.minusMonths(1))));
+    }
+
+    @Test
+    void expiredMonthsAreArchivedAndDropped() throws Exception {
+        YearMonth expired = YearMonth.now(ZoneOffset.UTC).minusMonths(12);
+        db.execute("CREATE TABLE " + partition(expired) + " PARTITION OF expense FOR VALUES FROM ('"
+                + expired.atDay(1) + " 00:00Z') TO ('" + expired.plusMonths(1).atDay(1) + " 00:00Z')");
+        insert(expired, 3);
+        insert(YearMonth.now(ZoneOffset.UTC), 2);
+
+        job.run();
+
+        assertThat(partitions()).doesNotContain(partition(expired));
+        assertThat(count("expense")).isEqualTo(2);
+        assertRollupMatchesTable();
+        Path archive = archiveDir.resolve(db.schema()).resolve(partition(expired) + ".ndjson.gz");
+        assertThat(archiveLines(archive)).hasSize(3)
+                .allSatisfy(line -> assertThat(line).contains("\"description\":\"Old " + expired));
+        verify(pageCache).invalidate();
+    }
+
+    @Test
+    void theDefaultPartitionIsNeverRetired() throws SQLException {
+        // a month long gone has no partition, so its rows stay in the default
+        insert(YearMonth.now(ZoneOffset.UTC).minusMonths(40), 2);
+
+        job.run();
+
+        assertThat(count("expense_pdefault")).isEqualTo(2);
+        assertThat(partitions()).contains("expense_pdefault");
+    }
+
+    private void insert(YearMonth month, int rows) throws SQLException {
+        db.execute("INSERT INTO expense (description, amount, created_at) SELECT 'Old " + month + " ' || i, i, '"
+                + month.atDay(2) + " 12:00Z' FROM generate_series(1, " + rows + ") i");
+    }
+
+    private static String partition(YearMonth month) {
+        return "expense_p" + month.format(SUFFIX);
+    }
+
+    private List<String> partitions() throws SQLException {
+        List<String> names = new ArrayList<>();
+        try (Connection connection = db.connection();
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT inhrelid::regclass::text FROM pg_inherits WHERE inhparent = 'expense'::regclass")) {
+            while (rs.next()) {
+                names.add(rs.getString(1));
+            }
+        }
+        return names;
+    }
+
+    private long count(String table) throws SQLException {
+        return queryLong("SELECT count(*) FROM " + table);
+    }
+
+    private long indexCount(String table) throws SQLException {
+        return queryLong("SELECT count(*) FROM pg_index WHERE indrelid = '" + table + "'::regclass");
+    }
+
+    private long queryLong(String sql) throws SQLException {
+        try (Connection connection = db.connection();
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(sql)) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    private void assertRollupMatchesTable() throws SQLException {
+        assertThat(queryLong("SELECT count(*) FROM expense_rollup r, (SELECT count(*) c, coalesce(sum(amount), 0) s,"
+                + " min(amount) mn, max(amount) mx FROM expense) t WHERE r.expense_count = t.c AND r.amount_sum = t.s"
+                + " AND r.amount_min IS NOT DISTINCT FROM t.mn AND r.amount_max IS NOT DISTINCT FROM t.mx"))
+                .isEqualTo(1);
+    }
+
+    private static List<String> archiveLines(Path file) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(file)), StandardCharsets.UTF_8))) {
+            return reader.lines().toList();
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package io.github.leon_rgb.miniconcurexpense.tenant;
+
+import io.github.leon_rgb.miniconcurexpense.TestDatabase;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TenantProvisionerTest {
+
+    private static final String LATEST_VERSION = "6";
+
+    private TestDatabase db;
+    private String tenantA;
+    private String tenantB;
+    private TenantService tenantService;
+    private TenantProvisioner provisioner;
+
+    @BeforeEach
+    void setUp() {
+        db = TestDatabase.create();
+        tenantA = db.schema() + "_a";
+        tenantB = db.schema() + "_b";
+        TenantRegistry registry = new TenantRegistry(db.dataSource());
+        tenantService = new TenantService(db.dataSource(), registry);
+        provisioner = new TenantProvisioner(tenantService, registry, db.dataSource(), 2);
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        db.execute("DROP SCHEMA IF EXISTS \"" + tenantA + "\" CASCADE", "DROP SCHEMA IF EXISTS \"" + tenantB + "\" CASCADE");
+        db.close();
+    }
+
+    @Test
+    void upToDateSchemasAreSkipped() throws SQLException {
+        provisioner.provisionAll(List.of(tenantA, tenantB));
+
+        ProvisioningReport report = provisioner.provisionAll(List.of(tenantA, tenantB));
+
+        assertThat(report.tenants()).extracting(ProvisioningReport.TenantResult::outcome)
+                .containsExactly(ProvisioningReport.Outcome.MIGRATED, ProvisioningReport.Outcome.UP_TO_DATE);
+        assertThat(historyHead(tenantB)).isEqualTo(LATEST_VERSION);
+    }
+
+    @Test
+    void schemaBehindTheClasspathIsMigrated() throws SQLException {
+        provisioner.provisionAll(List.of(tenantA));
+        migrateTo(tenantB, "2");
+
+        ProvisioningReport report = provisioner.provisionAll(List.of(tenantA, tenantB));
+
+        assertThat(report.tenants().get(1).outcome()).isEqualTo(ProvisioningReport.Outcome.MIGRATED);
+        assertThat(historyHead(tenantB)).isEqualTo(LATEST_VERSION);
+    }
+
+    @Test
+    void staleReferenceDoesNotLetOtherSchemasSkipTheirMigrations() throws SQLException {
+        // V3 fails on the reference, which then gets the manual fallback table and stays at V2
+        db.execute("CREATE SCHEMA \"" + tenantA + "\"", "CREATE TABLE \"" + tenantA + "\".expense_rollup (id INT)");
+        migrateTo(tenantB, "2");
+
+        ProvisioningReport report = provisioner.provisionAll(List.of(tenantA, tenantB));
+
+        assertThat(historyHead(tenantA)).isEqualTo("2");
+        assertThat(tenantService.isUpToDate(tenantA)).isFalse();
+        assertThat(report.tenants().get(1).outcome()).isEqualTo(ProvisioningReport.Outcome.MIGRATED);
+        assertThat(historyHead(tenantB)).isEqualTo(LATEST_VERSION);
+        assertThat(tenantService.isUpToDate(tenantB)).isTrue();
+    }
+
+    private void migrateTo(String schema, String version) {
+        Flyway.configure()
+                .dataSource(db.dataSource())
+                .schemas(schema)
+                .locations("classpath:db/migration")
+                .target(version)
+                .load()
+                .migrate();
+    }
+
+    private String historyHead(String schema) throws SQLException {
+        try (Connection connection = db.connection();
+             Statement st = connection.createStatement();
+             ResultSet rs = st.executeQuery("SELECT version FROM \"" + schema + "\".flyway_schema_history"
+                     + " WHERE success AND version IS NOT NULL ORDER BY installed_rank DESC LIMIT 1")) {
+            return rs.next() ? rs.getString(1) : null;
+        }
+    }
+}